@@ -2,3 +2,72 @@
 plugins {
     id("com.gtnewhorizons.gtnhconvention")
 }
+
+// Measures the annotation processor against synthetic configs. Run with ./gradlew processorBenchmark, passing sizes
+// with --args="100 1000". By default, configs with 10 to 10000 properties are measured.
+val benchmark: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += output + compileClasspath
+}
+
+tasks.register<JavaExec>("processorBenchmark") {
+    group = "verification"
+    description = "Measures the annotation processor against synthetic configs."
+    classpath = benchmark.runtimeClasspath
+    mainClass.set("org.squiddev.configgen.benchmark.ProcessorBenchmark")
+}
+
+// Measures the code generated by the annotation processor, using a copy of Forge's Configuration which works outside
+// of Minecraft. Run with ./gradlew jmh. Results are written to build/reports/jmh/results.json, so they can be compared
+// between releases.
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += output + compileClasspath
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhImplementation"("org.apache.logging.log4j:log4j-api:2.0-beta9")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.named<JavaCompile>(jmh.compileJavaTaskName) {
+    // Run our own processor alongside JMH's. Forge is only needed to load the processor, not the generated code.
+    options.annotationProcessorPath = configurations[jmh.annotationProcessorConfigurationName] +
+        sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Measures the throughput, latency and allocation rate of generated code."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    doFirst { results.get().asFile.parentFile.mkdirs() }
+    args("-prof", "gc", "-rf", "json", "-rff", results.get().asFile.path)
+}
+
+// Checks that Gradle compiles configs incrementally, by building a small project with Gradle TestKit. Run with
+// ./gradlew functionalTest.
+val functionalTest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += output + compileClasspath
+}
+
+dependencies {
+    "functionalTestImplementation"(gradleTestKit())
+    "functionalTestImplementation"("junit:junit:4.13.2")
+}
+
+tasks.register<Test>("functionalTest") {
+    group = "verification"
+    description = "Checks that Gradle compiles configs incrementally."
+    testClassesDirs = functionalTest.output.classesDirs
+    classpath = functionalTest.runtimeClasspath
+    useJUnit()
+
+    // The test project loads the processor from here, rather than from a published jar.
+    val processor = sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    inputs.files(processor)
+    doFirst { systemProperty("configgen.processorClasspath", processor.asPath) }
+}
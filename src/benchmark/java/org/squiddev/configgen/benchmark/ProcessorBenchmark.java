@@ -0,0 +1,290 @@
+package org.squiddev.configgen.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.squiddev.configgen.processor.ConfigClass;
+import org.squiddev.configgen.processor.ConfigProcessor;
+
+/**
+ * Measures how the annotation processor scales with the size of a config.
+ *
+ * For each size, a {@link SyntheticConfig} is compiled in-process with {@link JavaCompiler}. The time and memory
+ * allocated by each builder is recorded, along with the size of the source and bytecode it generated.
+ *
+ * Usage: {@code ProcessorBenchmark [--iterations N] [--output DIR] [size...]}
+ */
+public final class ProcessorBenchmark {
+
+    /**
+     * The sizes to measure if none are given. Larger configs still compile, but javac takes several minutes to
+     * compile the generated code for 50000 properties.
+     */
+    private static final int[] DEFAULT_SIZES = { 10, 100, 1000, 10000 };
+
+    private ProcessorBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int iterations = 3;
+        File output = new File(System.getProperty("java.io.tmpdir"), "configgen-benchmark");
+        List<Integer> sizes = new ArrayList<Integer>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--iterations")) {
+                iterations = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--output")) {
+                output = new File(args[++i]);
+            } else {
+                sizes.add(Integer.parseInt(args[i]));
+            }
+        }
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) sizes.add(size);
+        }
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) throw new IllegalStateException("No Java compiler available. Are you running on a JDK?");
+
+        System.out.println(
+            String.format(
+                Locale.ROOT,
+                "%8s %-9s %10s %12s %12s %12s",
+                "fields",
+                "builder",
+                "time (ms)",
+                "alloc (KiB)",
+                "source (B)",
+                "class (B)"));
+        for (int size : sizes) {
+            Result best = null;
+            for (int i = 0; i < iterations; i++) {
+                Result result = run(compiler, size, new File(output, Integer.toString(size)));
+                if (result == null) break;
+                if (best == null || result.total < best.total) best = result;
+            }
+            if (best != null) best.print(size);
+        }
+    }
+
+    /**
+     * Compile a synthetic config of a given size
+     *
+     * @param compiler The compiler to use
+     * @param size     The number of properties to generate
+     * @param output   The directory to write generated sources and classes to
+     * @return The measurements for this run, or {@code null} if compilation failed.
+     * @throws IOException If the output directory could not be created
+     */
+    private static Result run(JavaCompiler compiler, int size, File output) throws IOException {
+        File sources = new File(output, "sources"), classes = new File(output, "classes");
+        delete(output);
+        if (!sources.mkdirs() || !classes.mkdirs()) throw new IOException("Cannot create " + output);
+
+        String name = SyntheticConfig.getName(size);
+        JavaFileObject source = new SourceFile(SyntheticConfig.PACKAGE + "." + name, SyntheticConfig.generate(size));
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null);
+        TimingProcessor processor = new TimingProcessor();
+        JavaCompiler.CompilationTask task = compiler.getTask(
+            null,
+            files,
+            diagnostics,
+            Arrays.asList(
+                "-classpath",
+                System.getProperty("java.class.path"),
+                "-d",
+                classes.getPath(),
+                "-s",
+                sources.getPath(),
+                "-nowarn"),
+            null,
+            Collections.singletonList(source));
+        task.setProcessors(Collections.singletonList(processor));
+
+        long start = System.nanoTime();
+        boolean success = task.call();
+        long total = System.nanoTime() - start;
+        files.close();
+
+        if (!success) {
+            System.out.println(String.format(Locale.ROOT, "%8d compilation failed:", size));
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    JavaFileObject file = diagnostic.getSource();
+                    System.out.println(
+                        "  " + (file == null ? "" : file.getName() + ":" + diagnostic.getLineNumber() + ": ")
+                            + diagnostic.getMessage(Locale.ROOT));
+                }
+            }
+            return null;
+        }
+
+        Result result = new Result(total);
+        result.measurements.put("parse", processor.parsing);
+        for (ConfigProcessor.Step step : ConfigProcessor.Step.values()) {
+            Measurement measurement = processor.steps.get(step);
+            if (measurement == null) continue;
+
+            String file = name + step.getSuffix();
+            measurement.sourceSize = size(new File(sources, SyntheticConfig.PACKAGE), file, ".java");
+            measurement.classSize = size(new File(classes, SyntheticConfig.PACKAGE), file, ".class");
+            result.measurements.put(step.name().toLowerCase(Locale.ROOT), measurement);
+        }
+        return result;
+    }
+
+    /**
+     * Sum the size of every file generated for a class, including nested classes.
+     *
+     * @param directory The directory to search
+     * @param name      The class's simple name
+     * @param extension The file extension to look for
+     * @return The total size of the files
+     */
+    private static long size(File directory, String name, String extension) {
+        File[] children = directory.listFiles();
+        if (children == null) return 0;
+
+        long size = 0;
+        for (File child : children) {
+            String fileName = child.getName();
+            if (fileName.equals(name + extension)
+                || (fileName.startsWith(name + "$") && fileName.endsWith(extension))) {
+                size += child.length();
+            }
+        }
+        return size;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread, or {@code -1} if this is not supported.
+     *
+     * @return The number of bytes allocated
+     */
+    private static long allocated() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+                Thread.currentThread()
+                    .getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Runs {@link ConfigProcessor}, measuring each of its steps
+     */
+    @SupportedAnnotationTypes("org.squiddev.configgen.*")
+    @SupportedSourceVersion(SourceVersion.RELEASE_8)
+    private static final class TimingProcessor extends ConfigProcessor {
+
+        final Map<ConfigProcessor.Step, Measurement> steps = new EnumMap<ConfigProcessor.Step, Measurement>(
+            ConfigProcessor.Step.class);
+        Measurement parsing;
+
+        @Override
+        protected ConfigClass parse(TypeElement element) {
+            long start = System.nanoTime(), alloc = allocated();
+            ConfigClass config = super.parse(element);
+            parsing = measure(start, alloc);
+            return config;
+        }
+
+        @Override
+        protected void generate(ConfigProcessor.Step step, ConfigClass config) throws IOException {
+            long start = System.nanoTime(), alloc = allocated();
+            super.generate(step, config);
+            steps.put(step, measure(start, alloc));
+        }
+
+        private static Measurement measure(long start, long alloc) {
+            Measurement measurement = new Measurement();
+            measurement.time = System.nanoTime() - start;
+            measurement.allocated = alloc < 0 ? -1 : allocated() - alloc;
+            return measurement;
+        }
+    }
+
+    private static final class Measurement {
+
+        long time;
+        long allocated;
+        long sourceSize;
+        long classSize;
+    }
+
+    private static final class Result {
+
+        final long total;
+        final Map<String, Measurement> measurements = new LinkedHashMap<String, Measurement>();
+
+        Result(long total) {
+            this.total = total;
+        }
+
+        void print(int size) {
+            for (Map.Entry<String, Measurement> entry : measurements.entrySet()) {
+                Measurement measurement = entry.getValue();
+                System.out.println(
+                    String.format(
+                        Locale.ROOT,
+                        "%8d %-9s %10.1f %12d %12d %12d",
+                        size,
+                        entry.getKey(),
+                        measurement.time / 1e6,
+                        measurement.allocated < 0 ? -1 : measurement.allocated / 1024,
+                        measurement.sourceSize,
+                        measurement.classSize));
+            }
+            System.out.println(String.format(Locale.ROOT, "%8d %-9s %10.1f", size, "javac", total / 1e6));
+        }
+    }
+
+    /**
+     * A source file held in memory
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String contents;
+
+        SourceFile(String name, String contents) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.contents = contents;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return contents;
+        }
+    }
+}
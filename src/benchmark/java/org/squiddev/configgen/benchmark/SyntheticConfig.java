@@ -0,0 +1,124 @@
+package org.squiddev.configgen.benchmark;
+
+/**
+ * Generates the source of a synthetic {@code @Config} class
+ *
+ * Properties are spread across a tree of categories, with each category having up to {@link #BRANCHING} children.
+ * Properties cycle through every kind of type the processor supports, and one in every {@link #SYNCED} properties is
+ * synced. The config also has a sync hook and change listeners, so every loader generates its listener calls.
+ */
+public final class SyntheticConfig {
+
+    public static final String PACKAGE = "bench";
+
+    /**
+     * The number of properties in each category
+     */
+    private static final int CATEGORY_SIZE = 100;
+
+    /**
+     * The number of children each category has
+     */
+    private static final int BRANCHING = 4;
+
+    /**
+     * How often a property is synced. The sync codec stores two fields for each synced property, so syncing every
+     * property would give large configs more fields than a class can hold.
+     */
+    private static final int SYNCED = 4;
+
+    private static final String[] TEMPLATES = { "@Range(min = 0, max = 10) @DefaultInt(3) public static int",
+        "@DefaultDouble(2.5) public static double", "@DefaultBoolean(true) public static boolean",
+        "@DefaultString(\"hello\") public static String", "@DefaultInt({ 1, 2, 3 }) public static int[]",
+        "@DefaultDouble({ 1, 2 }) public static double[]", "@DefaultBoolean({ true, false }) public static boolean[]",
+        "@DefaultString({ \"a\", \"b\" }) public static String[]",
+        "@DefaultInt({ 1, 2 }) public static java.util.ArrayList<Integer>",
+        "@DefaultString({ \"x\" }) public static java.util.HashSet<String>",
+        "@RequiresRestart @DefaultDouble(1) public static Double", };
+
+    private SyntheticConfig() {}
+
+    /**
+     * Get the name of the config class for a given size
+     *
+     * @param size The number of properties
+     * @return The config's simple name
+     */
+    public static String getName(int size) {
+        return "Synthetic" + size;
+    }
+
+    /**
+     * Generate a config class
+     *
+     * @param size The number of properties to generate
+     * @return The config's source code
+     */
+    public static String generate(int size) {
+        int categories = Math.max(1, (size + CATEGORY_SIZE - 1) / CATEGORY_SIZE);
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ")
+            .append(PACKAGE)
+            .append(";\n\n");
+        out.append("import org.squiddev.configgen.*;\n\n");
+        out.append("@Config(trackChanges = true, snapshot = true)\n");
+        out.append("public class ")
+            .append(getName(size))
+            .append(" {\n");
+        writeCategory(out, 0, categories, size, 1);
+        out.append("\n    @OnSync\n    public static void sync() {}\n");
+        out.append("\n    @OnChange\n    public static void changed() {}\n");
+        out.append("\n    @OnChange(\"c0\")\n");
+        out.append("    public static void changed(String path, Object oldValue, Object newValue) {}\n");
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static void writeCategory(StringBuilder out, int index, int categories, int size, int depth) {
+        String indent = indent(depth);
+        out.append(indent)
+            .append("/**\n")
+            .append(indent)
+            .append(" * Category ")
+            .append(index)
+            .append("\n")
+            .append(indent)
+            .append(" */\n");
+        out.append(indent)
+            .append("public static class C")
+            .append(index)
+            .append(" {\n");
+
+        String fieldIndent = indent(depth + 1);
+        int start = index * CATEGORY_SIZE, end = Math.min(size, start + CATEGORY_SIZE);
+        for (int i = start; i < end; i++) {
+            if (i % 3 == 0) {
+                out.append(fieldIndent)
+                    .append("/** Property ")
+                    .append(i)
+                    .append(" */\n");
+            }
+            out.append(fieldIndent);
+            if (i % SYNCED == 0) out.append("@Synced ");
+            out.append(TEMPLATES[i % TEMPLATES.length])
+                .append(" f")
+                .append(i)
+                .append(";\n");
+        }
+
+        for (int child = index * BRANCHING + 1; child <= index * BRANCHING + BRANCHING && child < categories; child++) {
+            out.append("\n");
+            writeCategory(out, child, categories, size, depth + 1);
+        }
+
+        out.append(indent)
+            .append("}\n");
+    }
+
+    private static String indent(int depth) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < depth; i++) out.append("    ");
+        return out.toString();
+    }
+}
@@ -0,0 +1,222 @@
+package org.squiddev.configgen.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks that Gradle compiles configs incrementally, by building a small project twice and changing a class which is
+ * not a config between the builds.
+ *
+ * The processor's classpath is passed in by the {@code functionalTest} task, through the {@value #CLASSPATH_PROPERTY}
+ * system property.
+ */
+public class IncrementalProcessingTest {
+
+    private static final String CLASSPATH_PROPERTY = "configgen.processorClasspath";
+
+    private static final String GENERATED = "build/generated/sources/annotationProcessor/java/main/example/";
+    private static final String LOADER = GENERATED + "ExampleConfigForgeLoader.java";
+    private static final String CODEC = GENERATED + "ExampleConfigSyncCodec.java";
+    private static final String REGISTRY = GENERATED + "Configs.java";
+    private static final String DESCRIPTIONS = "build/classes/java/main/example/ExampleConfig.descriptions";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * As an isolating processor, configs are only reprocessed when they change, so their loaders are left alone.
+     */
+    @Test
+    public void isolating() throws IOException {
+        File project = createProject(null);
+        build(project);
+
+        File loader = new File(project, LOADER);
+        byte[] contents = read(loader);
+        long modified = loader.lastModified();
+
+        editOther(project);
+        assertIncremental(build(project));
+        assertEquals("Loader was regenerated", modified, loader.lastModified());
+        assertTrue("Loader changed", Arrays.equals(contents, read(loader)));
+    }
+
+    /**
+     * With a registry, the registry's processor is aggregating. Gradle then reprocesses every loader from its class
+     * file, but must still compile incrementally and leave the configs' schemas and descriptions unchanged.
+     */
+    @Test
+    public void aggregating() throws IOException {
+        File project = createProject("example.Configs");
+        build(project);
+
+        String loader = getSchema(new File(project, LOADER));
+        String codec = getSchema(new File(project, CODEC));
+        byte[] descriptions = read(new File(project, DESCRIPTIONS));
+        assertTrue("Descriptions were not written", new String(descriptions, "UTF-8").contains("Advanced options"));
+        assertTrue("Registry was not generated", new File(project, REGISTRY).isFile());
+
+        editOther(project);
+        assertIncremental(build(project));
+        assertEquals("Loader's schema changed", loader, getSchema(new File(project, LOADER)));
+        assertEquals("Codec's schema changed", codec, getSchema(new File(project, CODEC)));
+        assertTrue("Descriptions changed", Arrays.equals(descriptions, read(new File(project, DESCRIPTIONS))));
+        assertTrue("Registry was removed", new File(project, REGISTRY).isFile());
+    }
+
+    private File createProject(String registry) throws IOException {
+        String classpath = System.getProperty(CLASSPATH_PROPERTY);
+        if (classpath == null) throw new IllegalStateException(CLASSPATH_PROPERTY + " is not set");
+
+        StringBuilder files = new StringBuilder();
+        for (String path : classpath.split(File.pathSeparator)) {
+            if (files.length() > 0) files.append(", ");
+            files.append('\'')
+                .append(
+                    path.replace("\\", "\\\\")
+                        .replace("'", "\\'"))
+                .append('\'');
+        }
+
+        StringBuilder build = new StringBuilder();
+        build.append("plugins { id 'java' }\n\n");
+        build.append("dependencies {\n");
+        build.append("    compileOnly files(")
+            .append(files)
+            .append(")\n");
+        build.append("    annotationProcessor files(")
+            .append(files)
+            .append(")\n");
+        build.append("}\n");
+        if (registry != null) {
+            build.append("\ntasks.withType(JavaCompile).configureEach {\n");
+            build.append("    options.compilerArgs.add('-A")
+                .append(RegistryBuilder.OPTION)
+                .append("=")
+                .append(registry)
+                .append("')\n");
+            build.append("}\n");
+        }
+
+        File project = folder.newFolder("project");
+        write(new File(project, "settings.gradle"), "rootProject.name = 'example'\n");
+        write(new File(project, "build.gradle"), build.toString());
+        write(
+            new File(project, "src/main/java/example/ExampleConfig.java"),
+            "package example;\n\n"
+                + "import org.squiddev.configgen.*;\n\n"
+                + "@Config(cache = true)\n"
+                + "public class ExampleConfig {\n"
+                + "    /** General options */\n"
+                + "    @Synced\n"
+                + "    public static class General {\n"
+                + "        /** The value */\n"
+                + "        @DefaultInt(3)\n"
+                + "        public static int value;\n"
+                + "\n"
+                + "        /** The name */\n"
+                + "        @DefaultString(\"example\")\n"
+                + "        public static String name;\n"
+                + "    }\n"
+                + "\n"
+                + "    /** Advanced options */\n"
+                + "    public static class Advanced {\n"
+                + "        /** Whether it is enabled */\n"
+                + "        @DefaultBoolean(true)\n"
+                + "        public static boolean enabled;\n"
+                + "    }\n"
+                + "}\n");
+        writeOther(project, 1);
+        return project;
+    }
+
+    private static void editOther(File project) throws IOException {
+        writeOther(project, 2);
+    }
+
+    private static void writeOther(File project, int value) throws IOException {
+        write(
+            new File(project, "src/main/java/example/Other.java"),
+            "package example;\n\n"
+                + "public class Other {\n"
+                + "    public static int value() {\n"
+                + "        return " + value + ";\n"
+                + "    }\n"
+                + "}\n");
+    }
+
+    private static BuildResult build(File project) {
+        return GradleRunner.create()
+            .withProjectDir(project)
+            .withArguments("compileJava", "--info", "--stacktrace")
+            .build();
+    }
+
+    private static void assertIncremental(BuildResult result) {
+        assertEquals(
+            "compileJava was not run",
+            TaskOutcome.SUCCESS,
+            result.task(":compileJava")
+                .getOutcome());
+        assertFalse(
+            "Changing a class which is not a config recompiled everything",
+            result.getOutput()
+                .contains("Full recompilation is required"));
+    }
+
+    /**
+     * Read the declaration of a generated class's {@code SCHEMA} fingerprint
+     *
+     * @param file The generated source file
+     * @return The line declaring the fingerprint
+     */
+    private static String getSchema(File file) throws IOException {
+        for (String line : new String(read(file), "UTF-8").split("\n")) {
+            if (line.contains(" SCHEMA = ")) return line.trim();
+        }
+        throw new AssertionError("No schema in " + file.getName());
+    }
+
+    private static void write(File file, String contents) throws IOException {
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) throw new IOException("Cannot create " + parent);
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static byte[] read(File file) throws IOException {
+        InputStream stream = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) >= 0) out.write(buffer, 0, read);
+            return out.toByteArray();
+        } finally {
+            stream.close();
+        }
+    }
+}
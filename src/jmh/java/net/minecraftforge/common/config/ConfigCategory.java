@@ -0,0 +1,148 @@
+package net.minecraftforge.common.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A cut down copy of Forge's {@code ConfigCategory}
+ */
+public class ConfigCategory {
+
+    private final String name;
+    private final ConfigCategory parent;
+    private final List<ConfigCategory> children = new ArrayList<ConfigCategory>();
+    private final Map<String, Property> properties = new TreeMap<String, Property>();
+    private String comment;
+    private String languageKey;
+    private boolean requiresWorldRestart;
+    private boolean requiresMcRestart;
+    private boolean changed = false;
+
+    public ConfigCategory(String name) {
+        this(name, null);
+    }
+
+    public ConfigCategory(String name, ConfigCategory parent) {
+        this.name = name;
+        this.parent = parent;
+        if (parent != null) parent.children.add(this);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getQualifiedName() {
+        return parent == null ? name : parent.getQualifiedName() + Configuration.CATEGORY_SPLITTER + name;
+    }
+
+    public boolean isChild() {
+        return parent != null;
+    }
+
+    public List<ConfigCategory> getChildren() {
+        return children;
+    }
+
+    public void setComment(String comment) {
+        this.comment = comment;
+    }
+
+    public ConfigCategory setLanguageKey(String languageKey) {
+        this.languageKey = languageKey;
+        return this;
+    }
+
+    public ConfigCategory setRequiresWorldRestart(boolean requiresWorldRestart) {
+        this.requiresWorldRestart = requiresWorldRestart;
+        return this;
+    }
+
+    public ConfigCategory setRequiresMcRestart(boolean requiresMcRestart) {
+        this.requiresMcRestart = requiresMcRestart;
+        this.requiresWorldRestart |= requiresMcRestart;
+        return this;
+    }
+
+    public boolean containsKey(String key) {
+        return properties.containsKey(key);
+    }
+
+    public Property get(String key) {
+        return properties.get(key);
+    }
+
+    public void put(String key, Property property) {
+        changed = true;
+        properties.put(key, property);
+    }
+
+    public boolean hasChanged() {
+        if (changed) return true;
+        for (Property property : properties.values()) {
+            if (property.hasChanged()) return true;
+        }
+        return false;
+    }
+
+    void resetChangedState() {
+        changed = false;
+        for (Property property : properties.values()) property.resetChangedState();
+    }
+
+    /**
+     * Write this category and its children, in the same layout as Forge
+     *
+     * @param out    The writer to write to
+     * @param indent The current indent level
+     * @throws IOException If the writer could not be written to
+     */
+    public void write(BufferedWriter out, int indent) throws IOException {
+        String pad = indent(indent), padInner = indent(indent + 1);
+
+        if (comment != null && !comment.isEmpty()) {
+            out.write(pad + Configuration.COMMENT_SEPARATOR + Configuration.NEW_LINE);
+            out.write(pad + "# " + name + Configuration.NEW_LINE);
+            for (String line : comment.split("\r?\n")) out.write(pad + "# " + line + Configuration.NEW_LINE);
+            out.write(pad + Configuration.COMMENT_SEPARATOR + Configuration.NEW_LINE + Configuration.NEW_LINE);
+        }
+
+        out.write(pad + name + " {" + Configuration.NEW_LINE);
+        for (Property property : properties.values()) {
+            if (property.comment != null) {
+                for (String line : property.comment.split("\r?\n")) {
+                    out.write(padInner + "# " + line + Configuration.NEW_LINE);
+                }
+            }
+
+            char type = property.getType()
+                .name()
+                .charAt(0);
+            if (property.isList()) {
+                out.write(padInner + type + ":" + property.getName() + " <" + Configuration.NEW_LINE);
+                for (String value : property.getStringList()) {
+                    out.write(indent(indent + 2) + value + Configuration.NEW_LINE);
+                }
+                out.write(padInner + " >" + Configuration.NEW_LINE);
+            } else {
+                out.write(
+                    padInner + type + ":" + property.getName() + "=" + property.getString() + Configuration.NEW_LINE);
+            }
+        }
+
+        if (!children.isEmpty()) out.write(Configuration.NEW_LINE);
+        for (ConfigCategory child : children) child.write(out, indent + 1);
+
+        out.write(pad + "}" + Configuration.NEW_LINE + Configuration.NEW_LINE);
+    }
+
+    private static String indent(int indent) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < indent; i++) out.append("    ");
+        return out.toString();
+    }
+}
@@ -0,0 +1,188 @@
+package net.minecraftforge.common.config;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A cut down copy of Forge's {@code Configuration}, which can be used outside of FML.
+ *
+ * Looking up and creating properties works the same as Forge. Loading is not supported, so every configuration starts
+ * empty. Saving writes the same layout as Forge, either to the config file or, if there is none, to memory.
+ */
+public class Configuration {
+
+    public static final String CATEGORY_GENERAL = "general";
+    public static final String CATEGORY_SPLITTER = ".";
+    public static final String NEW_LINE = "\n";
+    public static final String CONFIG_VERSION_MARKER = "~CONFIG_VERSION";
+    public static final String COMMENT_SEPARATOR = "#####################################################"
+        + "#####################################################";
+
+    private final File file;
+    private final String definedConfigVersion;
+    private final Map<String, ConfigCategory> categories = new TreeMap<String, ConfigCategory>();
+    private boolean changed = false;
+
+    public Configuration() {
+        this(null);
+    }
+
+    public Configuration(File file) {
+        this(file, null);
+    }
+
+    public Configuration(File file, String configVersion) {
+        this.file = file;
+        this.definedConfigVersion = configVersion;
+    }
+
+    public File getConfigFile() {
+        return file;
+    }
+
+    public String getDefinedConfigVersion() {
+        return definedConfigVersion;
+    }
+
+    public void load() {}
+
+    public void save() {
+        try {
+            BufferedWriter out = new BufferedWriter(
+                file == null ? new StringWriter()
+                    : new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+            try {
+                out.write("# Configuration file" + NEW_LINE + NEW_LINE);
+                if (definedConfigVersion != null) {
+                    out.write(CONFIG_VERSION_MARKER + ": " + definedConfigVersion + NEW_LINE + NEW_LINE);
+                }
+                for (ConfigCategory category : categories.values()) {
+                    if (!category.isChild()) {
+                        category.write(out, 0);
+                        out.write(NEW_LINE);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot save " + file, e);
+        }
+
+        changed = false;
+        for (ConfigCategory category : categories.values()) category.resetChangedState();
+    }
+
+    public boolean hasChanged() {
+        if (changed) return true;
+        for (ConfigCategory category : categories.values()) {
+            if (category.hasChanged()) return true;
+        }
+        return false;
+    }
+
+    public boolean hasCategory(String category) {
+        return categories.containsKey(category);
+    }
+
+    public boolean hasKey(String category, String key) {
+        ConfigCategory cat = categories.get(category);
+        return cat != null && cat.containsKey(key);
+    }
+
+    public Set<String> getCategoryNames() {
+        return categories.keySet();
+    }
+
+    public ConfigCategory getCategory(String category) {
+        ConfigCategory ret = categories.get(category);
+        if (ret == null) {
+            int split = category.lastIndexOf(CATEGORY_SPLITTER);
+            if (split >= 0) {
+                ConfigCategory parent = getCategory(category.substring(0, split));
+                ret = new ConfigCategory(category.substring(split + 1), parent);
+            } else {
+                ret = new ConfigCategory(category);
+            }
+            categories.put(category, ret);
+            changed = true;
+        }
+        return ret;
+    }
+
+    public Property get(String category, String key, int defaultValue, String comment) {
+        Property prop = get(category, key, Integer.toString(defaultValue), comment, Property.Type.INTEGER);
+        if (!prop.isIntValue()) prop.set(defaultValue);
+        return prop;
+    }
+
+    public Property get(String category, String key, double defaultValue, String comment) {
+        Property prop = get(category, key, Double.toString(defaultValue), comment, Property.Type.DOUBLE);
+        if (!prop.isDoubleValue()) prop.set(defaultValue);
+        return prop;
+    }
+
+    public Property get(String category, String key, boolean defaultValue, String comment) {
+        Property prop = get(category, key, Boolean.toString(defaultValue), comment, Property.Type.BOOLEAN);
+        if (!prop.isBooleanValue()) prop.set(defaultValue);
+        return prop;
+    }
+
+    public Property get(String category, String key, String defaultValue, String comment) {
+        return get(category, key, defaultValue, comment, Property.Type.STRING);
+    }
+
+    public Property get(String category, String key, int[] defaultValues, String comment) {
+        String[] values = new String[defaultValues.length];
+        for (int i = 0; i < defaultValues.length; i++) values[i] = Integer.toString(defaultValues[i]);
+        return get(category, key, values, comment, Property.Type.INTEGER);
+    }
+
+    public Property get(String category, String key, double[] defaultValues, String comment) {
+        String[] values = new String[defaultValues.length];
+        for (int i = 0; i < defaultValues.length; i++) values[i] = Double.toString(defaultValues[i]);
+        return get(category, key, values, comment, Property.Type.DOUBLE);
+    }
+
+    public Property get(String category, String key, boolean[] defaultValues, String comment) {
+        String[] values = new String[defaultValues.length];
+        for (int i = 0; i < defaultValues.length; i++) values[i] = Boolean.toString(defaultValues[i]);
+        return get(category, key, values, comment, Property.Type.BOOLEAN);
+    }
+
+    public Property get(String category, String key, String[] defaultValues, String comment) {
+        return get(category, key, defaultValues, comment, Property.Type.STRING);
+    }
+
+    private Property get(String category, String key, String defaultValue, String comment, Property.Type type) {
+        ConfigCategory cat = getCategory(category);
+        Property prop = cat.get(key);
+        if (prop == null) {
+            prop = new Property(key, defaultValue, type);
+            prop.set(defaultValue);
+            cat.put(key, prop);
+        }
+        prop.comment = comment;
+        return prop;
+    }
+
+    private Property get(String category, String key, String[] defaultValues, String comment, Property.Type type) {
+        ConfigCategory cat = getCategory(category);
+        Property prop = cat.get(key);
+        if (prop == null) {
+            prop = new Property(key, defaultValues, type);
+            prop.set(defaultValues);
+            cat.put(key, prop);
+        }
+        prop.comment = comment;
+        return prop;
+    }
+}
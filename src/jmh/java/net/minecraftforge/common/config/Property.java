@@ -0,0 +1,258 @@
+package net.minecraftforge.common.config;
+
+/**
+ * A cut down copy of Forge's {@code Property}, holding values as strings in the same way.
+ *
+ * Parsing and change tracking match Forge, so generated loaders do the same work as they would in game.
+ */
+public class Property {
+
+    public enum Type {
+        STRING,
+        INTEGER,
+        BOOLEAN,
+        DOUBLE
+    }
+
+    public String comment;
+
+    private final String name;
+    private final Type type;
+    private final boolean isList;
+    private String value;
+    private String[] values;
+    private String languageKey;
+    private boolean requiresWorldRestart;
+    private boolean requiresMcRestart;
+    private int minValue = Integer.MIN_VALUE, maxValue = Integer.MAX_VALUE;
+    private double minDouble = -Double.MAX_VALUE, maxDouble = Double.MAX_VALUE;
+    private boolean changed = false;
+
+    public Property(String name, String value, Type type) {
+        this.name = name;
+        this.value = value;
+        this.type = type;
+        this.isList = false;
+    }
+
+    public Property(String name, String[] values, Type type) {
+        this.name = name;
+        this.value = "";
+        this.values = values;
+        this.type = type;
+        this.isList = true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isList() {
+        return isList;
+    }
+
+    public Property setLanguageKey(String key) {
+        this.languageKey = key;
+        return this;
+    }
+
+    public String getLanguageKey() {
+        return languageKey;
+    }
+
+    public Property setRequiresWorldRestart(boolean requiresWorldRestart) {
+        this.requiresWorldRestart = requiresWorldRestart;
+        return this;
+    }
+
+    public Property setRequiresMcRestart(boolean requiresMcRestart) {
+        this.requiresMcRestart = requiresMcRestart;
+        this.requiresWorldRestart |= requiresMcRestart;
+        return this;
+    }
+
+    public boolean requiresWorldRestart() {
+        return requiresWorldRestart;
+    }
+
+    public boolean requiresMcRestart() {
+        return requiresMcRestart;
+    }
+
+    public Property setMinValue(int minValue) {
+        this.minValue = minValue;
+        this.minDouble = minValue;
+        return this;
+    }
+
+    public Property setMaxValue(int maxValue) {
+        this.maxValue = maxValue;
+        this.maxDouble = maxValue;
+        return this;
+    }
+
+    public Property setMinValue(double minValue) {
+        this.minDouble = minValue;
+        this.minValue = (int) Math.ceil(minValue);
+        return this;
+    }
+
+    public Property setMaxValue(double maxValue) {
+        this.maxDouble = maxValue;
+        this.maxValue = (int) Math.floor(maxValue);
+        return this;
+    }
+
+    public String getString() {
+        return value;
+    }
+
+    public int getInt() {
+        return getInt(-1);
+    }
+
+    public int getInt(int defaultValue) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public boolean isIntValue() {
+        try {
+            Integer.parseInt(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public double getDouble() {
+        return getDouble(0);
+    }
+
+    public double getDouble(double defaultValue) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public boolean isDoubleValue() {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public boolean getBoolean() {
+        return getBoolean(false);
+    }
+
+    public boolean getBoolean(boolean defaultValue) {
+        return isBooleanValue() ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    public boolean isBooleanValue() {
+        return "true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value);
+    }
+
+    public String[] getStringList() {
+        return values;
+    }
+
+    public int[] getIntList() {
+        int[] parsed = new int[values.length];
+        int count = 0;
+        for (String string : values) {
+            try {
+                parsed[count] = Integer.parseInt(string);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return count == parsed.length ? parsed : java.util.Arrays.copyOf(parsed, count);
+    }
+
+    public double[] getDoubleList() {
+        double[] parsed = new double[values.length];
+        int count = 0;
+        for (String string : values) {
+            try {
+                parsed[count] = Double.parseDouble(string);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return count == parsed.length ? parsed : java.util.Arrays.copyOf(parsed, count);
+    }
+
+    public boolean[] getBooleanList() {
+        boolean[] parsed = new boolean[values.length];
+        int count = 0;
+        for (String string : values) {
+            if ("true".equalsIgnoreCase(string) || "false".equalsIgnoreCase(string)) {
+                parsed[count++] = Boolean.parseBoolean(string);
+            }
+        }
+        return count == parsed.length ? parsed : java.util.Arrays.copyOf(parsed, count);
+    }
+
+    public void set(String value) {
+        this.value = value;
+        changed = true;
+    }
+
+    public void set(String[] values) {
+        this.values = values;
+        changed = true;
+    }
+
+    public void set(int value) {
+        set(Integer.toString(value));
+    }
+
+    public void set(double value) {
+        set(Double.toString(value));
+    }
+
+    public void set(boolean value) {
+        set(Boolean.toString(value));
+    }
+
+    public void set(int[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Integer.toString(values[i]);
+        set(strings);
+    }
+
+    public void set(double[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Double.toString(values[i]);
+        set(strings);
+    }
+
+    public void set(boolean[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Boolean.toString(values[i]);
+        set(strings);
+    }
+
+    public boolean hasChanged() {
+        return changed;
+    }
+
+    void resetChangedState() {
+        changed = false;
+    }
+
+    public boolean wasRead() {
+        return true;
+    }
+}
@@ -0,0 +1,157 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.common.config.Property;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building collection fields (such as {@code ArrayList<Integer>}) from the array stored in the config.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollectionBenchmark {
+
+    private static final int[][] DIMENSIONS = { { 0, -1, 1 }, { 0, -1, 1, 7, 20, -100 } };
+    private static final String[][] BLACKLIST = { { "minecraft:bedrock", "minecraft:barrier" },
+        { "minecraft:bedrock", "minecraft:barrier", "minecraft:command_block", "minecraft:structure_block" } };
+
+    private static final String[] NAMES = { "minecraft:stone", "minecraft:iron_ore", "minecraft:bedrock",
+        "mymod:copper_block", "othermod:machine_3", "othermod:machine_10", "minecraft:end_portal_frame",
+        "minecraft:chain_command_block" };
+
+    private Property dimensions;
+    private Property blacklist;
+    private final List<Map<String, String>> overrides = new ArrayList<Map<String, String>>();
+    private TrackedConfigMetadata.Property<int[]> dimensionsMetadata;
+    private final List<Pattern> unbreakablePatterns = new ArrayList<Pattern>();
+    private int counter;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        TrackedConfigForgeLoader.init(new Configuration());
+        UntrackedConfigForgeLoader.init(new Configuration());
+
+        dimensions = TrackedConfigForgeLoader.getConfiguration()
+            .get("general", "dimensions", new int[0], null);
+        blacklist = TrackedConfigForgeLoader.getConfiguration()
+            .get("general", "blacklist", new String[0], null);
+        dimensionsMetadata = TrackedConfigMetadata.property("general.dimensions");
+
+        for (String pattern : TrackedConfig.General.unbreakable.toArray()) {
+            unbreakablePatterns.add(Pattern.compile(pattern.replace("*", ".*").replace('?', '.')));
+        }
+
+        for (int i = 0; i < DIMENSIONS.length; i++) {
+            Map<String, String> override = new HashMap<String, String>();
+            override.put("TrackedConfig.General.dimensions", join(DIMENSIONS[i]));
+            override.put("TrackedConfig.General.blacklist", join(BLACKLIST[i]));
+            overrides.add(override);
+        }
+    }
+
+    /**
+     * Change both collections in the config and sync, rebuilding them.
+     */
+    @Benchmark
+    public void forgeChanged() {
+        int index = ++counter & 1;
+        dimensions.set(DIMENSIONS[index]);
+        blacklist.set(BLACKLIST[index]);
+        TrackedConfigForgeLoader.doSync();
+    }
+
+    /**
+     * Sync without change tracking, where collections are rebuilt on every sync.
+     */
+    @Benchmark
+    public void forgeUntracked() {
+        UntrackedConfigForgeLoader.doSync();
+    }
+
+    @Benchmark
+    public void propertyLoader() {
+        TrackedConfigPropertyLoader.init(overrides.get(++counter & 1));
+    }
+
+    @Benchmark
+    public void metadataSet() {
+        dimensionsMetadata.set(DIMENSIONS[++counter & 1]);
+    }
+
+    /**
+     * Check membership of a boxed list, as done every tick by mods which blacklist block ids.
+     */
+    @Benchmark
+    public boolean containsBoxed() {
+        return TrackedConfig.General.blacklistIds.contains(++counter & 0xFF);
+    }
+
+    /**
+     * Check membership of a primitive set, built once when the config is synced.
+     */
+    @Benchmark
+    public boolean containsPrimitive() {
+        return TrackedConfig.General.blacklistIdSet.contains(++counter & 0xFF);
+    }
+
+    /**
+     * Check a name against each wildcard pattern in turn, as consumers of a plain {@code String[]} would.
+     */
+    @Benchmark
+    public boolean matchLoop() {
+        String name = NAMES[++counter & (NAMES.length - 1)];
+        for (Pattern pattern : unbreakablePatterns) {
+            if (pattern.matcher(name)
+                .matches()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check a name against a matcher compiled when the config is synced.
+     */
+    @Benchmark
+    public boolean matchCompiled() {
+        return TrackedConfig.General.unbreakable.matches(NAMES[++counter & (NAMES.length - 1)]);
+    }
+
+    private static String join(int[] values) {
+        StringBuilder out = new StringBuilder();
+        for (int value : values) {
+            if (out.length() > 0) out.append(',');
+            out.append(value);
+        }
+        return out.toString();
+    }
+
+    private static String join(String[] values) {
+        StringBuilder out = new StringBuilder();
+        for (String value : values) {
+            if (out.length() > 0) out.append(',');
+            out.append(value);
+        }
+        return out.toString();
+    }
+}
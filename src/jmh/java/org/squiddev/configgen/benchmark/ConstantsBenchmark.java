@@ -0,0 +1,58 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraftforge.common.config.Configuration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading restart-only properties in hot code, either from the config's mutable fields or from the generated
+ * constants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstantsBenchmark {
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        TrackedConfigForgeLoader.init(new Configuration());
+    }
+
+    /**
+     * Read the mutable fields, which must be loaded on every call.
+     */
+    @Benchmark
+    public int veinsMutable() {
+        int y = ++counter & 0xFF;
+        if (!TrackedConfig.Worldgen.ores || y < TrackedConfig.Worldgen.minHeight
+            || y > TrackedConfig.Worldgen.maxHeight) return 0;
+        return TrackedConfig.Worldgen.veinSize * TrackedConfig.Worldgen.veinsPerChunk;
+    }
+
+    /**
+     * Read the constants, which the JIT folds into the compiled code.
+     */
+    @Benchmark
+    public int veinsConstant() {
+        int y = ++counter & 0xFF;
+        if (!TrackedConfigConstants.Worldgen.ores || y < TrackedConfigConstants.Worldgen.minHeight
+            || y > TrackedConfigConstants.Worldgen.maxHeight) return 0;
+        return TrackedConfigConstants.Worldgen.veinSize * TrackedConfigConstants.Worldgen.veinsPerChunk;
+    }
+}
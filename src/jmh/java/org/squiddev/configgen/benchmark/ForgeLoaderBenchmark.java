@@ -0,0 +1,88 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.common.config.Property;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the generated Forge loaders.
+ *
+ * The loaders are static, so each benchmark runs in its own fork, starting from a config which has been synced once.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForgeLoaderBenchmark {
+
+    private Property interval;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        TrackedConfigForgeLoader.init(new Configuration());
+        UntrackedConfigForgeLoader.init(new Configuration());
+        interval = TrackedConfigForgeLoader.getConfiguration()
+            .get("general", "interval", 20, null);
+    }
+
+    /**
+     * Load into an empty configuration, creating every property and then saving.
+     */
+    @Benchmark
+    public void initTracked() {
+        TrackedConfigForgeLoader.init(new Configuration());
+    }
+
+    @Benchmark
+    public void initUntracked() {
+        UntrackedConfigForgeLoader.init(new Configuration());
+    }
+
+    /**
+     * Sync when nothing has changed: every property is read, but no fields are written.
+     */
+    @Benchmark
+    public void doSyncTracked() {
+        TrackedConfigForgeLoader.doSync();
+    }
+
+    /**
+     * Sync without change tracking, where every field is written.
+     */
+    @Benchmark
+    public void doSyncUntracked() {
+        UntrackedConfigForgeLoader.doSync();
+    }
+
+    /**
+     * Sync after changing a single property, which also publishes a snapshot and fires listeners.
+     */
+    @Benchmark
+    public void doSyncChanged() {
+        interval.set(20 + (++counter & 1));
+        TrackedConfigForgeLoader.doSync();
+    }
+
+    /**
+     * Sync and then check whether the configuration needs saving.
+     */
+    @Benchmark
+    public void sync() {
+        TrackedConfigForgeLoader.sync();
+    }
+}
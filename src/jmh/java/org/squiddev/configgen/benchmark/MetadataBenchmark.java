@@ -0,0 +1,79 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraftforge.common.config.Configuration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the generated metadata classes.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MetadataBenchmark {
+
+    private static final String[] PATHS = { "client.overlayScale", "general.advanced.threads", "general.interval",
+        "worldgen.biomes", "worldgen.missing", };
+
+    private TrackedConfigMetadata.IntProperty interval;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        TrackedConfigForgeLoader.init(new Configuration());
+        interval = (TrackedConfigMetadata.IntProperty) TrackedConfigMetadata.property("general.interval");
+    }
+
+    /**
+     * Visit every category and property, reading each property's current value.
+     */
+    @Benchmark
+    public void traverse(Blackhole blackhole) {
+        traverse(TrackedConfigMetadata.categories(), blackhole);
+    }
+
+    private static void traverse(List<TrackedConfigMetadata.Category> categories, Blackhole blackhole) {
+        for (TrackedConfigMetadata.Category category : categories) {
+            blackhole.consume(category.name());
+            for (TrackedConfigMetadata.Property<?> property : category.properties()) {
+                blackhole.consume(property.name());
+                blackhole.consume(property.get());
+            }
+            traverse(category.children(), blackhole);
+        }
+    }
+
+    /**
+     * Look up properties by their path, including one which does not exist.
+     */
+    @Benchmark
+    public void lookup(Blackhole blackhole) {
+        for (String path : PATHS) blackhole.consume(TrackedConfigMetadata.property(path));
+    }
+
+    @Benchmark
+    public void set() {
+        interval.set(20 + (++counter & 1));
+    }
+
+    @Benchmark
+    public int get() {
+        return interval.getInt();
+    }
+}
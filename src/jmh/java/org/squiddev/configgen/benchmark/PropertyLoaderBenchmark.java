@@ -0,0 +1,92 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the generated property loader.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyLoaderBenchmark {
+
+    private final Map<String, String> overrides = new HashMap<String, String>();
+    private final Map<String, String> environment = new HashMap<String, String>();
+    private final Map<String, String> unrelated = new HashMap<String, String>();
+
+    @Setup
+    public void setup() {
+        overrides.put("TrackedConfig.General.enabled", "false");
+        overrides.put("TrackedConfig.General.interval", "40");
+        overrides.put("TrackedConfig.General.profile", "benchmark");
+        overrides.put("TrackedConfig.General.scale", "2.25");
+        overrides.put("TrackedConfig.General.dimensions", "0,1,7,-1");
+        overrides.put("TrackedConfig.General.blacklist", "minecraft:bedrock,minecraft:obsidian");
+        overrides.put("TrackedConfig.General.Advanced.multipliers", "1,2,3,4,5,6");
+        overrides.put("TrackedConfig.General.Advanced.flags", "false,true");
+        overrides.put("TrackedConfig.Worldgen.veinSize", "12");
+        overrides.put("TrackedConfig.Worldgen.rarity", "0.5");
+        overrides.put("TrackedConfig.Client.overlayPosition", "bottom_right");
+        overrides.put("TrackedConfig.Client.overlayScale", "1.25");
+
+        for (Map.Entry<String, String> entry : overrides.entrySet()) {
+            environment.put(
+                entry.getKey()
+                    .toUpperCase()
+                    .replace('.', '_'),
+                entry.getValue());
+        }
+
+        // Most system properties and environment variables have nothing to do with the config.
+        for (int i = 0; i < 64; i++) unrelated.put("java.unrelated.property" + i, Integer.toString(i));
+    }
+
+    /**
+     * Reset every property to its default value.
+     */
+    @Benchmark
+    public void defaults() {
+        TrackedConfigPropertyLoader.init(Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Load a handful of overrides, keyed by their property names.
+     */
+    @Benchmark
+    public void overrides() {
+        TrackedConfigPropertyLoader.init(overrides);
+    }
+
+    /**
+     * Load the same overrides, keyed by their environment variable names.
+     */
+    @Benchmark
+    public void environment() {
+        TrackedConfigPropertyLoader.init(environment);
+    }
+
+    /**
+     * Load a map where no key matches a property.
+     */
+    @Benchmark
+    public void unrelated() {
+        TrackedConfigPropertyLoader.init(unrelated);
+    }
+}
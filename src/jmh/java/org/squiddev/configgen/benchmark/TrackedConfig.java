@@ -0,0 +1,164 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.squiddev.configgen.Config;
+import org.squiddev.configgen.DefaultBoolean;
+import org.squiddev.configgen.DefaultDouble;
+import org.squiddev.configgen.DefaultInt;
+import org.squiddev.configgen.DefaultString;
+import org.squiddev.configgen.OnChange;
+import org.squiddev.configgen.OnSync;
+import org.squiddev.configgen.Range;
+import org.squiddev.configgen.RequiresRestart;
+import org.squiddev.configgen.runtime.IntSet;
+import org.squiddev.configgen.runtime.StringMatcher;
+
+/**
+ * A config of a similar size and shape to those found in a typical mod, using change tracking, snapshots and
+ * listeners.
+ */
+@Config(languagePrefix = "gui.config.benchmark.", trackChanges = true, snapshot = true)
+public class TrackedConfig {
+
+    /**
+     * General settings
+     */
+    public static class General {
+
+        /**
+         * Whether the mod is enabled
+         */
+        @DefaultBoolean(true)
+        public static boolean enabled;
+
+        @DefaultBoolean(false)
+        public static boolean debug;
+
+        /**
+         * How often to run the main loop, in ticks
+         */
+        @Range(min = 1, max = 200)
+        @DefaultInt(20)
+        public static int interval;
+
+        @DefaultString("default")
+        public static String profile;
+
+        @DefaultDouble(1.5)
+        public static double scale;
+
+        /**
+         * Dimensions which the mod is active in
+         */
+        @DefaultInt({ 0, -1, 1 })
+        public static ArrayList<Integer> dimensions;
+
+        /**
+         * Blocks which are ignored
+         */
+        @DefaultString({ "minecraft:bedrock", "minecraft:barrier", "minecraft:command_block" })
+        public static HashSet<String> blacklist;
+
+        /**
+         * Block ids which are ignored
+         */
+        @DefaultInt({ 7, 8, 9, 10, 11, 52, 90, 119, 120, 137, 166, 176, 177, 209, 210, 211, 255 })
+        public static ArrayList<Integer> blacklistIds;
+
+        /**
+         * Block ids which are ignored, stored as a primitive set
+         */
+        @DefaultInt({ 7, 8, 9, 10, 11, 52, 90, 119, 120, 137, 166, 176, 177, 209, 210, 211, 255 })
+        public static IntSet blacklistIdSet;
+
+        /**
+         * Blocks which cannot be mined, supporting wildcards
+         */
+        @DefaultString({ "minecraft:bedrock", "minecraft:barrier", "minecraft:*_ore", "minecraft:*command_block",
+            "mymod:*", "othermod:machine_?", "thirdmod:*_frame", "minecraft:end_portal*" })
+        public static StringMatcher unbreakable;
+
+        public static class Advanced {
+
+            @Range(min = 1, max = 64)
+            @DefaultInt(8)
+            public static int threads;
+
+            @DefaultDouble({ 0.5, 1, 2, 4 })
+            public static double[] multipliers;
+
+            @DefaultBoolean({ true, false, true })
+            public static boolean[] flags;
+
+            @RequiresRestart
+            @DefaultString({ "alpha", "beta", "gamma" })
+            public static String[] modules;
+
+            @RequiresRestart(world = false)
+            @DefaultInt(256)
+            public static int cacheSize;
+        }
+    }
+
+    /**
+     * Settings for world generation
+     */
+    @RequiresRestart
+    public static class Worldgen {
+
+        @DefaultBoolean(true)
+        public static boolean ores;
+
+        @Range(min = 0, max = 64)
+        @DefaultInt(8)
+        public static int veinSize;
+
+        @Range(min = 0, max = 64)
+        @DefaultInt(4)
+        public static int veinsPerChunk;
+
+        @Range(min = 0, max = 255)
+        @DefaultInt(16)
+        public static int minHeight;
+
+        @Range(min = 0, max = 255)
+        @DefaultInt(64)
+        public static int maxHeight;
+
+        @DefaultDouble(0.25)
+        public static double rarity;
+
+        @DefaultString({ "minecraft:plains", "minecraft:forest", "minecraft:taiga", "minecraft:desert" })
+        public static ArrayList<String> biomes;
+    }
+
+    public static class Client {
+
+        @DefaultBoolean(true)
+        public static boolean particles;
+
+        @Range(min = 0, max = 1)
+        @DefaultDouble(0.75)
+        public static double volume;
+
+        @DefaultInt(0xFF8800)
+        public static int colour;
+
+        @DefaultString("top_left")
+        public static String overlayPosition;
+
+        @DefaultDouble(1)
+        public static Double overlayScale;
+    }
+
+    @OnChange("general.interval")
+    public static void intervalChanged() {}
+
+    @OnChange("worldgen")
+    public static void worldgenChanged(String path, Object oldValue, Object newValue) {}
+
+    @OnSync
+    public static void sync() {}
+}
@@ -0,0 +1,135 @@
+package org.squiddev.configgen.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.squiddev.configgen.Config;
+import org.squiddev.configgen.DefaultBoolean;
+import org.squiddev.configgen.DefaultDouble;
+import org.squiddev.configgen.DefaultInt;
+import org.squiddev.configgen.DefaultString;
+import org.squiddev.configgen.OnSync;
+import org.squiddev.configgen.Range;
+import org.squiddev.configgen.RequiresRestart;
+
+/**
+ * The same properties as {@link TrackedConfig}, without change tracking, snapshots or listeners.
+ */
+@Config(languagePrefix = "gui.config.benchmark.")
+public class UntrackedConfig {
+
+    /**
+     * General settings
+     */
+    public static class General {
+
+        /**
+         * Whether the mod is enabled
+         */
+        @DefaultBoolean(true)
+        public static boolean enabled;
+
+        @DefaultBoolean(false)
+        public static boolean debug;
+
+        /**
+         * How often to run the main loop, in ticks
+         */
+        @Range(min = 1, max = 200)
+        @DefaultInt(20)
+        public static int interval;
+
+        @DefaultString("default")
+        public static String profile;
+
+        @DefaultDouble(1.5)
+        public static double scale;
+
+        /**
+         * Dimensions which the mod is active in
+         */
+        @DefaultInt({ 0, -1, 1 })
+        public static ArrayList<Integer> dimensions;
+
+        /**
+         * Blocks which are ignored
+         */
+        @DefaultString({ "minecraft:bedrock", "minecraft:barrier", "minecraft:command_block" })
+        public static HashSet<String> blacklist;
+
+        public static class Advanced {
+
+            @Range(min = 1, max = 64)
+            @DefaultInt(8)
+            public static int threads;
+
+            @DefaultDouble({ 0.5, 1, 2, 4 })
+            public static double[] multipliers;
+
+            @DefaultBoolean({ true, false, true })
+            public static boolean[] flags;
+
+            @RequiresRestart
+            @DefaultString({ "alpha", "beta", "gamma" })
+            public static String[] modules;
+
+            @RequiresRestart(world = false)
+            @DefaultInt(256)
+            public static int cacheSize;
+        }
+    }
+
+    /**
+     * Settings for world generation
+     */
+    @RequiresRestart
+    public static class Worldgen {
+
+        @DefaultBoolean(true)
+        public static boolean ores;
+
+        @Range(min = 0, max = 64)
+        @DefaultInt(8)
+        public static int veinSize;
+
+        @Range(min = 0, max = 64)
+        @DefaultInt(4)
+        public static int veinsPerChunk;
+
+        @Range(min = 0, max = 255)
+        @DefaultInt(16)
+        public static int minHeight;
+
+        @Range(min = 0, max = 255)
+        @DefaultInt(64)
+        public static int maxHeight;
+
+        @DefaultDouble(0.25)
+        public static double rarity;
+
+        @DefaultString({ "minecraft:plains", "minecraft:forest", "minecraft:taiga", "minecraft:desert" })
+        public static ArrayList<String> biomes;
+    }
+
+    public static class Client {
+
+        @DefaultBoolean(true)
+        public static boolean particles;
+
+        @Range(min = 0, max = 1)
+        @DefaultDouble(0.75)
+        public static double volume;
+
+        @DefaultInt(0xFF8800)
+        public static int colour;
+
+        @DefaultString("top_left")
+        public static String overlayPosition;
+
+        @DefaultDouble(1)
+        public static Double overlayScale;
+    }
+
+    @OnSync
+    public static void sync() {}
+}
@@ -9,7 +9,7 @@ import java.lang.annotation.Target;
  * The root config class.
  * Subclasses are considered categories
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.TYPE)
 public @interface Config {
 
@@ -28,4 +28,65 @@ public @interface Config {
      * @return The property prefix
      */
     String propertyPrefix() default "";
+
+    /**
+     * Only update fields whose value has changed when syncing
+     *
+     * The {@link OnSync} method will only be called when a field has changed, and the configuration will only be
+     * saved when it has been modified.
+     *
+     * @return If changes should be tracked
+     */
+    boolean trackChanges() default false;
+
+    /**
+     * Save the configuration on a background thread, merging any saves which occur within this many milliseconds of
+     * each other.
+     *
+     * If negative, the configuration is saved on the thread calling sync.
+     *
+     * @return The delay in milliseconds to wait before saving
+     */
+    int saveDelay() default -1;
+
+    /**
+     * Generate an immutable snapshot class, which holds a copy of every property.
+     *
+     * A new snapshot is published after each sync, so readers on other threads can get a consistent view of the
+     * config without any locking.
+     *
+     * @return If a snapshot class should be generated
+     */
+    boolean snapshot() default false;
+
+    /**
+     * Keep a binary cache of the synced values next to the config file.
+     *
+     * When the config file has not changed since the cache was written, {@code init(File)} loads values from the cache
+     * instead of parsing the file. The file is only parsed once the {@code Configuration} is needed.
+     *
+     * @return If a binary cache should be used
+     */
+    boolean cache() default false;
+
+    /**
+     * Store each top level category in its own file, rather than a single file.
+     *
+     * This generates {@code initShards(File)}, {@code loadShards(File)} and {@code saveShards(File)} methods on the
+     * {@code CfgLoader}, which read and write every category's file in parallel. Saving only writes the files whose
+     * contents have changed.
+     *
+     * @return If the config should be split into a file per category
+     */
+    boolean sharded() default false;
+
+    /**
+     * The name of this config's file within the directory passed to the generated registry's {@code initAll}. The
+     * file is {@code <name>.cfg}.
+     *
+     * If left blank, the class's name is used.
+     *
+     * @return The name of the config file
+     */
+    String name() default "";
 }
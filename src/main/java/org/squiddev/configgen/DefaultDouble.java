@@ -8,7 +8,7 @@ import java.lang.annotation.Target;
 /**
  * Mark the default value on a double field
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.FIELD)
 public @interface DefaultDouble {
 
@@ -10,6 +10,6 @@ import java.lang.annotation.Target;
  *
  * Final fields are automatically excluded
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target({ ElementType.FIELD, ElementType.TYPE })
 public @interface Exclude {}
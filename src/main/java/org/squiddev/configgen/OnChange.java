@@ -0,0 +1,28 @@
+package org.squiddev.configgen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A method to call when properties change. This requires {@link Config#trackChanges()}.
+ *
+ * Methods with no arguments are called once per sync if any of their properties changed, and on the first sync.
+ * Methods taking {@code (String path, Object oldValue, Object newValue)} are called for each property which changed.
+ * The Forge loader calls them as soon as the property is updated, while other loaders call them once every property
+ * has been loaded.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ ElementType.METHOD })
+public @interface OnChange {
+
+    /**
+     * The properties or categories to listen to, such as {@code category.field} or {@code category}
+     *
+     * If empty, all properties are listened to.
+     *
+     * @return The paths of the properties and categories to listen to
+     */
+    String[] value() default {};
+}
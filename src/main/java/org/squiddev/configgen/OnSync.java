@@ -8,6 +8,6 @@ import java.lang.annotation.Target;
 /**
  * The method to call on sync
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target({ ElementType.METHOD })
 public @interface OnSync {}
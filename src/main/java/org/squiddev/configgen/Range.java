@@ -8,7 +8,7 @@ import java.lang.annotation.Target;
 /**
  * Specify a range the value should take
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target(ElementType.FIELD)
 public @interface Range {
 
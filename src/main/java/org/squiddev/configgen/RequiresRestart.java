@@ -8,7 +8,7 @@ import java.lang.annotation.Target;
 /**
  * Mark a property/category as requiring a restart
  */
-@Retention(RetentionPolicy.SOURCE)
+@Retention(RetentionPolicy.CLASS)
 @Target({ ElementType.TYPE, ElementType.FIELD })
 public @interface RequiresRestart {
 
@@ -0,0 +1,16 @@
+package org.squiddev.configgen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Mark a property/category as synced from the server to clients
+ *
+ * Marking a category syncs every property within it, including those in child categories. A {@code SyncCodec} is
+ * generated for any config with synced properties.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ ElementType.TYPE, ElementType.FIELD })
+public @interface Synced {}
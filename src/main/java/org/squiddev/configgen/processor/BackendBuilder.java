@@ -0,0 +1,163 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+
+import org.squiddev.configgen.runtime.ConfigBackend;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for loaders which read and write fields through a {@link ConfigBackend}
+ *
+ * The generated code only depends on the backend interface, so the same loader can be used with Forge's
+ * {@code Configuration}, a plain {@code .cfg} file or an in-memory store, chosen at runtime.
+ */
+public class BackendBuilder {
+
+    private static final String LOOP_NAME = "var";
+    private static final String BACKEND_NAME = "backend";
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        TypeSpec.Builder type = TypeSpec.classBuilder(klass.type.getSimpleName() + "BackendLoader")
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+        MethodSpec.Builder sync = MethodSpec.methodBuilder("sync")
+            .addJavadoc("Read every field from a backend, adding any properties which are missing, and then commit\n")
+            .addJavadoc("any changes.\n\n")
+            .addJavadoc("@param backend The backend to read from\n")
+            .addJavadoc("@throws IOException If the backend could not be committed\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ConfigBackend.class, BACKEND_NAME)
+            .addException(IOException.class)
+            .returns(void.class);
+
+        MethodSpec.Builder save = MethodSpec.methodBuilder("save")
+            .addJavadoc("Write every field to a backend, and then commit it\n\n")
+            .addJavadoc("@param backend The backend to write to\n")
+            .addJavadoc("@throws IOException If the backend could not be committed\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ConfigBackend.class, BACKEND_NAME)
+            .addException(IOException.class)
+            .returns(void.class);
+
+        ParameterSpec backend = ParameterSpec.builder(ConfigBackend.class, BACKEND_NAME)
+            .build();
+        Chunker.Holders holders = new Chunker.Holders(type);
+        Chunker reads = new Chunker(holders, "read", backend);
+        Chunker writes = new Chunker(holders, "write", backend);
+        for (Category category : klass.categories) generate(category, reads, writes);
+
+        ChangesBuilder.generateCapture(klass, sync, env);
+        reads.call(sync);
+        sync.addStatement("$N.commit()", BACKEND_NAME);
+        if (klass.snapshot) sync.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+        ChangesBuilder.generateDispatch(klass, sync, env);
+        if (klass.sync != null) sync.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+
+        writes.call(save);
+        save.addStatement("$N.commit()", BACKEND_NAME);
+
+        type.addMethod(sync.build())
+            .addMethod(save.build());
+        holders.build();
+
+        JavaFile.builder(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    private static void generate(Category category, Chunker reads, Chunker writes) {
+        reads.next()
+            .addStatement(
+                "$N.category($S, $L)",
+                BACKEND_NAME,
+                category.name,
+                DescriptionBuilder.get(category.root, category));
+
+        for (Field field : category.fields) {
+            if (field.type == null) continue;
+            generateRead(field, reads.next());
+            generateWrite(field, writes.next());
+        }
+
+        for (Category child : category.children) generate(child, reads, writes);
+    }
+
+    private static void generateRead(Field field, MethodSpec.Builder spec) {
+        CodeBlock value = CodeBlock.builder()
+            .add(
+                "$N.$N($S, $S, $L, $L)",
+                BACKEND_NAME,
+                "get" + field.type.accessName(),
+                field.category.name,
+                field.name,
+                PropertyBuilder.getDefault(field),
+                DescriptionBuilder.get(field.category.root, field))
+            .build();
+        PropertyBuilder.generate(field, spec, value);
+    }
+
+    private static void generateWrite(Field field, MethodSpec.Builder spec) {
+        String setter = "set" + field.type.accessName();
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.type.convertsToArray()) {
+            spec.addStatement(
+                "$N.$N($S, $S, $T.$N.toArray())",
+                BACKEND_NAME,
+                setter,
+                field.category.name,
+                field.name,
+                field.category.type,
+                field.name);
+            return;
+        } else if (field.type.getType() != TypeHelpers.Type.GENERIC_ARRAY) {
+            spec.addStatement(
+                "$N.$N($S, $S, $T.$N)",
+                BACKEND_NAME,
+                setter,
+                field.category.name,
+                field.name,
+                field.category.type,
+                field.name);
+            return;
+        }
+
+        // Copy the collection into an array of the same type the property is read as.
+        String propName = field.category.type.getQualifiedName()
+            .toString()
+            .replace('.', '_') + "_" + field.name;
+        String indexName = propName + "_index";
+        spec.addStatement(
+            "$T $N = new $T[$T.$N.size()]",
+            field.baseType,
+            propName,
+            field.type.getComponentType()
+                .getMirror(),
+            field.category.type,
+            field.name)
+            .addStatement("int $N = 0", indexName)
+            .addStatement(
+                "for ($T $N : $T.$N) $N[$N++] = $N",
+                field.type.getComponentType()
+                    .getMirror(),
+                LOOP_NAME,
+                field.category.type,
+                field.name,
+                propName,
+                indexName,
+                LOOP_NAME)
+            .addStatement("$N.$N($S, $S, $N)", BACKEND_NAME, setter, field.category.name, field.name, propName);
+    }
+}
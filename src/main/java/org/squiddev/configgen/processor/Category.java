@@ -1,6 +1,8 @@
 package org.squiddev.configgen.processor;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 
@@ -12,9 +14,30 @@ import javax.lang.model.element.VariableElement;
 
 import org.squiddev.configgen.Exclude;
 import org.squiddev.configgen.RequiresRestart;
+import org.squiddev.configgen.Synced;
 
 public class Category {
 
+    /**
+     * Orders categories by name. Class files may list members in a different order to their source, so categories
+     * and fields are sorted to generate the same output, and fingerprints, however the config was read.
+     */
+    static final Comparator<Category> ORDER = new Comparator<Category>() {
+
+        @Override
+        public int compare(Category a, Category b) {
+            return a.unqualifiedName.compareTo(b.unqualifiedName);
+        }
+    };
+
+    private static final Comparator<Field> FIELD_ORDER = new Comparator<Field>() {
+
+        @Override
+        public int compare(Field a, Field b) {
+            return a.name.compareTo(b.name);
+        }
+    };
+
     public final TypeElement type;
 
     public final String name;
@@ -28,6 +51,7 @@ public class Category {
     public final String description;
     public final boolean requiresMcRestart;
     public final boolean requiresWorldRestart;
+    public final boolean synced;
 
     public Category(TypeElement type, Category parent, ConfigClass root, ProcessingEnvironment env) {
         this.type = type;
@@ -40,6 +64,7 @@ public class Category {
         name = (parent == null ? "" : parent.name + ".") + unqualifiedName;
         description = env.getElementUtils()
             .getDocComment(type);
+        synced = type.getAnnotation(Synced.class) != null || (parent != null && parent.synced);
 
         for (Element element : type.getEnclosedElements()) {
             switch (element.getKind()) {
@@ -60,6 +85,8 @@ public class Category {
                     break;
             }
         }
+        Collections.sort(fields, FIELD_ORDER);
+        Collections.sort(children, ORDER);
 
         RequiresRestart restart = type.getAnnotation(RequiresRestart.class);
         if (restart != null) {
@@ -0,0 +1,600 @@
+package org.squiddev.configgen.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+
+import org.squiddev.configgen.runtime.ConfigReader;
+import org.squiddev.configgen.runtime.ConfigShards;
+import org.squiddev.configgen.runtime.ConfigWriter;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for loaders which read and write Forge's {@code .cfg} files directly
+ *
+ * Unlike the Forge loader, no {@code Configuration} is built: the file is streamed through a {@link ConfigReader} and
+ * each property is parsed into its field's slot, first by category and then by name. Fields are only assigned once
+ * the whole file has been read. Saving writes the fields in the same layout as Forge, so the two loaders can share a
+ * file.
+ */
+public class CfgBuilder {
+
+    private static final String CATEGORY_NAME = "category";
+    private static final String NAME_NAME = "name";
+    private static final String VALUE_NAME = "value";
+    private static final String VALUES_NAME = "values";
+    private static final String WRITER_NAME = "out";
+    private static final String HANDLER_NAME = "handler";
+
+    private static final Comparator<Field> BY_NAME = new Comparator<Field>() {
+
+        @Override
+        public int compare(Field a, Field b) {
+            return a.name.compareTo(b.name);
+        }
+    };
+
+    private static final Comparator<Category> BY_CATEGORY_NAME = new Comparator<Category>() {
+
+        @Override
+        public int compare(Category a, Category b) {
+            return a.name.compareTo(b.name);
+        }
+    };
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        List<Field> fields = new ArrayList<Field>();
+        for (Category category : klass.categories) collect(category, fields);
+
+        ClassName name = ClassName.get(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            klass.type.getSimpleName() + "CfgLoader");
+        ClassName handler = name.nestedClass("Handler");
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+        MethodSpec.Builder load = MethodSpec.methodBuilder("load")
+            .addJavadoc("Load the config from a file. Properties which are missing from the file, or cannot be\n")
+            .addJavadoc("parsed, are reset to their default value. Fields are left unchanged if the file cannot be\n")
+            .addJavadoc("read.\n\n")
+            .addJavadoc("@param file The file to load\n")
+            .addJavadoc("@return If every property was present and valid. If not, the file should be saved again.\n")
+            .addJavadoc("@throws IOException If the file could not be read or is malformed\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(File.class, "file")
+            .addException(IOException.class)
+            .returns(boolean.class);
+
+        // Each root category's fields are assigned by their own methods, so shards can assign them separately.
+        Chunker.Holders holders = new Chunker.Holders(type);
+        Map<Category, Chunker> appliers = new IdentityHashMap<Category, Chunker>();
+        int start = 0;
+        for (Category category : klass.categories) {
+            List<Field> categoryFields = new ArrayList<Field>();
+            collect(category, categoryFields);
+            appliers.put(
+                category,
+                PropertyBuilder.addApply(holders, getMethodName("apply_", category) + "_", fields, start,
+                    start + categoryFields.size()));
+            start += categoryFields.size();
+        }
+
+        ChangesBuilder.generateCapture(klass, load, env);
+        load.addStatement("$T $N = new $T($L)", handler, HANDLER_NAME, handler, fields.size())
+            .addStatement("if ($N.exists()) $T.read($N, $N)", "file", ConfigReader.class, "file", HANDLER_NAME)
+            .addStatement("$T[] $N = $N.$N", Object.class, PropertyBuilder.PARSED_NAME, HANDLER_NAME,
+                PropertyBuilder.PARSED_NAME);
+        for (Category category : klass.categories) appliers.get(category)
+            .call(load);
+        if (klass.snapshot) load.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+        ChangesBuilder.generateDispatch(klass, load, env);
+        if (klass.sync != null) load.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+        load.addStatement("return $N.complete()", HANDLER_NAME);
+
+        MethodSpec.Builder save = MethodSpec.methodBuilder("save")
+            .addJavadoc("Save the config to a file, in the same layout as Forge\n\n")
+            .addJavadoc("@param file The file to save to\n")
+            .addJavadoc("@throws IOException If the file could not be written\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(File.class, "file")
+            .addException(IOException.class)
+            .returns(void.class)
+            .addStatement("$T $N = new $T()", ConfigWriter.class, WRITER_NAME, ConfigWriter.class);
+
+        Map<Category, String> writers = new IdentityHashMap<Category, String>();
+        for (Category category : klass.categories) writers.put(category, addWriter(holders, category));
+
+        // Forge sorts root categories by name, and properties within a category by name.
+        List<Category> roots = new ArrayList<Category>(klass.categories);
+        Collections.sort(roots, BY_CATEGORY_NAME);
+        for (Category category : roots) save.addStatement("$L($N)", writers.get(category), WRITER_NAME);
+        save.addStatement("$N.writeTo($N)", WRITER_NAME, "file");
+
+        type.addMethod(
+            MethodSpec.methodBuilder("init")
+                .addJavadoc("Load the config from a file, saving it again if it is missing or incomplete\n\n")
+                .addJavadoc("@param file The file to load\n")
+                .addJavadoc("@throws IOException If the file could not be read or written\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(File.class, "file")
+                .addException(IOException.class)
+                .returns(void.class)
+                .addStatement("if (!load($N)) save($N)", "file", "file")
+                .build())
+            .addMethod(load.build())
+            .addMethod(save.build());
+
+        if (klass.sharded) addShards(type, klass, env, handler, fields.size(), appliers, writers);
+
+        addSetter(type, holders, klass.categories, fields, false);
+        addSetter(type, holders, klass.categories, fields, true);
+        holders.build();
+
+        type.addType(generateHandler(handler, fields.size()));
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    /**
+     * Generate methods which store each root category in its own file, using {@link ConfigShards}
+     *
+     * @param type     The class being generated
+     * @param handler  The name of the handler class
+     * @param size     The number of fields
+     * @param appliers The methods which assign each root category's fields from their parsed values
+     * @param writers  The method which writes each root category
+     */
+    private static void addShards(TypeSpec.Builder type, ConfigClass klass, ProcessingEnvironment env,
+        ClassName handler, int size, Map<Category, Chunker> appliers, Map<Category, String> writers) {
+        CodeBlock.Builder shards = CodeBlock.builder()
+            .add("new $T(", ConfigShards.class);
+        for (int i = 0; i < klass.categories.size(); i++) {
+            Category category = klass.categories.get(i);
+            List<Field> fields = new ArrayList<Field>();
+            collect(category, fields);
+
+            MethodSpec.Builder read = MethodSpec.methodBuilder("read")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .addParameter(ByteBuffer.class, "buffer")
+                .addException(IOException.class)
+                .returns(boolean.class)
+                .addStatement("$T $N = new $T($L)", handler, HANDLER_NAME, handler, fields.size())
+                .addStatement("$T.read($N, $N)", ConfigReader.class, "buffer", HANDLER_NAME)
+                .addStatement("$T[] $N = $N.$N", Object.class, PropertyBuilder.PARSED_NAME, HANDLER_NAME,
+                    PropertyBuilder.PARSED_NAME);
+            appliers.get(category)
+                .call(read);
+            read.addStatement("return $N.complete()", HANDLER_NAME);
+
+            MethodSpec.Builder reset = MethodSpec.methodBuilder("reset")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(void.class)
+                .addStatement("$T[] $N = new $T[$L]", Object.class, PropertyBuilder.PARSED_NAME, Object.class, size);
+            appliers.get(category)
+                .call(reset);
+
+            TypeSpec shard = TypeSpec.anonymousClassBuilder("$S", category.name)
+                .superclass(ConfigShards.Shard.class)
+                .addMethod(read.build())
+                .addMethod(reset.build())
+                .addMethod(
+                    MethodSpec.methodBuilder("write")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PROTECTED)
+                        .addParameter(ConfigWriter.class, WRITER_NAME)
+                        .returns(void.class)
+                        .addStatement("$L($N)", writers.get(category), WRITER_NAME)
+                        .build())
+                .build();
+            shards.add(i == 0 ? "\n$>$>$L" : ",\n$L", shard);
+        }
+        shards.add(klass.categories.isEmpty() ? ")" : "$<$<)");
+
+        type.addField(
+            FieldSpec.builder(ConfigShards.class, "SHARDS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(shards.build())
+                .build());
+
+        MethodSpec.Builder load = MethodSpec.methodBuilder("loadShards")
+            .addJavadoc("Load the config from a directory, with each category in its own file. Files are read in\n")
+            .addJavadoc("parallel, and each category's fields are assigned once its file has been read.\n\n")
+            .addJavadoc("@param directory The directory to load from\n")
+            .addJavadoc("@return If every file existed and all properties were present and valid.\n")
+            .addJavadoc("@throws IOException If a file could not be read or is malformed\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(File.class, "directory")
+            .addException(IOException.class)
+            .returns(boolean.class);
+
+        ChangesBuilder.generateCapture(klass, load, env);
+        load.addStatement("boolean $N = $N.load($N)", "complete", "SHARDS", "directory");
+        if (klass.snapshot) load.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+        ChangesBuilder.generateDispatch(klass, load, env);
+        if (klass.sync != null) load.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+        load.addStatement("return $N", "complete");
+
+        type.addMethod(
+            MethodSpec.methodBuilder("initShards")
+                .addJavadoc("Load the config from a directory, saving any files which are missing or incomplete\n\n")
+                .addJavadoc("@param directory The directory to load from\n")
+                .addJavadoc("@throws IOException If a file could not be read or written\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(File.class, "directory")
+                .addException(IOException.class)
+                .returns(void.class)
+                .addStatement("if (!loadShards($N)) saveShards($N)", "directory", "directory")
+                .build())
+            .addMethod(load.build())
+            .addMethod(
+                MethodSpec.methodBuilder("saveShards")
+                    .addJavadoc("Save the config to a directory, with each category in its own file. Only files\n")
+                    .addJavadoc("whose contents have changed since they were last loaded or saved are written.\n\n")
+                    .addJavadoc("@param directory The directory to save to\n")
+                    .addJavadoc("@return The number of files which were written\n")
+                    .addJavadoc("@throws IOException If a file could not be written\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(File.class, "directory")
+                    .addException(IOException.class)
+                    .returns(int.class)
+                    .addStatement("return $N.save($N)", "SHARDS", "directory")
+                    .build());
+    }
+
+    private static void collect(Category category, List<Field> fields) {
+        for (Field field : category.fields) {
+            if (field.type != null) fields.add(field);
+        }
+        for (Category child : category.children) collect(child, fields);
+    }
+
+    private static String getMethodName(String prefix, Category category) {
+        return prefix + category.name.replace('.', '_');
+    }
+
+    /**
+     * Generate the handler passed to the reader. This dispatches each property to its field, and tracks which fields
+     * have been read.
+     */
+    private static TypeSpec generateHandler(ClassName name, int fields) {
+        return TypeSpec.classBuilder(name.simpleName())
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addSuperinterface(ConfigReader.Handler.class)
+            .addField(Object[].class, PropertyBuilder.PARSED_NAME, Modifier.PRIVATE, Modifier.FINAL)
+            .addField(boolean[].class, "present", Modifier.PRIVATE, Modifier.FINAL)
+            .addField(int.class, "expected", Modifier.PRIVATE, Modifier.FINAL)
+            .addField(int.class, "count", Modifier.PRIVATE)
+            .addField(boolean.class, "invalid", Modifier.PRIVATE)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addJavadoc("@param expected The number of properties which should be read\n")
+                    .addParameter(int.class, "expected")
+                    .addStatement("$N = new $T[$L]", PropertyBuilder.PARSED_NAME, Object.class, fields)
+                    .addStatement("$N = new boolean[$L]", "present", fields)
+                    .addStatement("this.$N = $N", "expected", "expected")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("value")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(String.class, CATEGORY_NAME)
+                    .addParameter(String.class, NAME_NAME)
+                    .addParameter(String.class, VALUE_NAME)
+                    .returns(void.class)
+                    .beginControlFlow("try")
+                    .addStatement("mark(set($N, $N, $N, $N))", PropertyBuilder.PARSED_NAME, CATEGORY_NAME, NAME_NAME,
+                        VALUE_NAME)
+                    .nextControlFlow("catch ($T e)", IllegalArgumentException.class)
+                    .addCode("// The field is reset to its default, and the file will be saved with it.\n")
+                    .addStatement("$N = true", "invalid")
+                    .endControlFlow()
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("list")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(String.class, CATEGORY_NAME)
+                    .addParameter(String.class, NAME_NAME)
+                    .addParameter(String[].class, VALUES_NAME)
+                    .returns(void.class)
+                    .addStatement("mark(setList($N, $N, $N, $N))", PropertyBuilder.PARSED_NAME, CATEGORY_NAME,
+                        NAME_NAME, VALUES_NAME)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("mark")
+                    .addModifiers(Modifier.PRIVATE)
+                    .addParameter(int.class, "index")
+                    .returns(void.class)
+                    .beginControlFlow("if ($N >= 0 && !$N[$N])", "index", "present", "index")
+                    .addStatement("$N[$N] = true", "present", "index")
+                    .addStatement("$N++", "count")
+                    .endControlFlow()
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("complete")
+                    .addModifiers(Modifier.PRIVATE)
+                    .returns(boolean.class)
+                    .addStatement("return !$N && $N == $N", "invalid", "count", "expected")
+                    .build())
+            .build();
+    }
+
+    /**
+     * Generate the method which parses a property from its category and name, returning the field's index or
+     * {@code -1} if there is no such property. Each category's properties are set in their own methods, split into
+     * buckets by their hash if there are many of them.
+     *
+     * @param type    The class being generated
+     * @param holders The classes to add each category's methods to
+     * @param fields  Every field, in index order
+     * @param lists   Whether to generate the setter for list properties or single valued ones
+     */
+    private static void addSetter(TypeSpec.Builder type, Chunker.Holders holders, List<Category> roots,
+        List<Field> fields, boolean lists) {
+        String prefix = lists ? "setList" : "set";
+        String valueName = lists ? VALUES_NAME : VALUE_NAME;
+        Class<?> valueType = lists ? String[].class : String.class;
+
+        List<Category> categories = new ArrayList<Category>();
+        for (Category root : roots) flatten(root, categories);
+
+        Map<Field, Integer> indexes = new IdentityHashMap<Field, Integer>();
+        for (int i = 0; i < fields.size(); i++) indexes.put(fields.get(i), i);
+
+        MethodSpec.Builder set = MethodSpec.methodBuilder(prefix)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(Object[].class, PropertyBuilder.PARSED_NAME)
+            .addParameter(String.class, CATEGORY_NAME)
+            .addParameter(String.class, NAME_NAME)
+            .addParameter(valueType, valueName)
+            .returns(int.class)
+            .beginControlFlow("switch ($N)", CATEGORY_NAME);
+
+        for (Category category : categories) {
+            List<Field> categoryFields = new ArrayList<Field>();
+            for (Field field : category.fields) {
+                if (field.type != null && field.type.getType()
+                    .isArray() == lists) categoryFields.add(field);
+            }
+            if (categoryFields.isEmpty()) continue;
+
+            String name = getMethodName(prefix + "_", category);
+            int buckets = Integer.highestOneBit(Math.max(1, categoryFields.size() / (Chunker.CHUNK / 2)) * 2 - 1);
+            if (buckets == 1) {
+                Chunker.Holder holder = holders.reserve(categoryFields.size());
+                set.addStatement("case $S: return $L($N, $N, $N)", category.name, holder.qualify(name),
+                    PropertyBuilder.PARSED_NAME, NAME_NAME, valueName);
+                holder.add(generateSetter(holder.method(name), valueType, valueName, categoryFields, indexes));
+                continue;
+            }
+
+            set.addStatement("case $S: return $N($N, $N, $N)", category.name, name, PropertyBuilder.PARSED_NAME,
+                NAME_NAME, valueName);
+
+            List<List<Field>> bucketFields = new ArrayList<List<Field>>(buckets);
+            for (int i = 0; i < buckets; i++) bucketFields.add(new ArrayList<Field>());
+            for (Field field : categoryFields) {
+                bucketFields.get(field.name.hashCode() & (buckets - 1))
+                    .add(field);
+            }
+
+            MethodSpec.Builder bucketSet = MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(Object[].class, PropertyBuilder.PARSED_NAME)
+                .addParameter(String.class, NAME_NAME)
+                .addParameter(valueType, valueName)
+                .returns(int.class)
+                .beginControlFlow("switch ($N.hashCode() & $L)", NAME_NAME, buckets - 1);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                if (bucketFields.get(bucket)
+                    .isEmpty()) continue;
+
+                String bucketName = name + "_" + bucket;
+                Chunker.Holder holder = holders.reserve(
+                    bucketFields.get(bucket)
+                        .size());
+                bucketSet.addStatement("case $L: return $L($N, $N, $N)", bucket, holder.qualify(bucketName),
+                    PropertyBuilder.PARSED_NAME, NAME_NAME, valueName);
+                holder.add(
+                    generateSetter(holder.method(bucketName), valueType, valueName, bucketFields.get(bucket), indexes));
+            }
+            bucketSet.addStatement("default: return -1")
+                .endControlFlow();
+            type.addMethod(bucketSet.build());
+        }
+
+        set.addStatement("default: return -1")
+            .endControlFlow();
+        type.addMethod(set.build());
+    }
+
+    private static MethodSpec.Builder generateSetter(MethodSpec.Builder method, Class<?> valueType, String valueName,
+        List<Field> fields, Map<Field, Integer> indexes) {
+        method.addParameter(Object[].class, PropertyBuilder.PARSED_NAME)
+            .addParameter(String.class, NAME_NAME)
+            .addParameter(valueType, valueName)
+            .returns(int.class)
+            .beginControlFlow("switch ($N)", NAME_NAME);
+        for (Field field : fields) {
+            method.addCode("case $S:\n$>", field.name);
+            method.addStatement("$N[$L] = $L", PropertyBuilder.PARSED_NAME, indexes.get(field), getParser(field));
+            method.addStatement("return $L", indexes.get(field));
+            method.addCode("$<");
+        }
+        method.addStatement("default: return -1")
+            .endControlFlow();
+        return method;
+    }
+
+    private static void flatten(Category category, List<Category> categories) {
+        categories.add(category);
+        for (Category child : category.children) flatten(child, categories);
+    }
+
+    /**
+     * Get the expression which parses the current value for a field
+     *
+     * @return The parsing expression
+     */
+    private static CodeBlock getParser(Field field) {
+        switch (field.type.getType()) {
+            case ARRAY:
+            case GENERIC_ARRAY:
+                return CodeBlock.builder()
+                    .add("$T.$N($N)", ConfigReader.class, "parse" + field.type.accessName(), VALUES_NAME)
+                    .build();
+            case INT:
+                return CodeBlock.builder()
+                    .add("$T.parseInt($N)", Integer.class, VALUE_NAME)
+                    .build();
+            case DOUBLE:
+                return CodeBlock.builder()
+                    .add("$T.parseDouble($N)", Double.class, VALUE_NAME)
+                    .build();
+            case BOOLEAN:
+                return CodeBlock.builder()
+                    .add("$T.parseBoolean($N)", ConfigReader.class, VALUE_NAME)
+                    .build();
+            case STRING:
+            default:
+                return CodeBlock.builder()
+                    .add("$N", VALUE_NAME)
+                    .build();
+        }
+    }
+
+    /**
+     * Generate the method which writes a category and its children. Large categories are split into several methods.
+     *
+     * @param holders The classes to add the methods to
+     * @return The name to call the method by
+     */
+    private static String addWriter(Chunker.Holders holders, Category category) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Field field : category.fields) {
+            if (field.type != null) fields.add(field);
+        }
+        Collections.sort(fields, BY_NAME);
+
+        String name = getMethodName("write_", category);
+        Chunker.Holder holder = holders.reserve(Math.min(fields.size(), Chunker.CHUNK));
+        MethodSpec.Builder write = holder.method(name)
+            .addParameter(ConfigWriter.class, WRITER_NAME)
+            .addStatement(
+                "$N.startCategory($S, $L)",
+                WRITER_NAME,
+                category.unqualifiedName,
+                DescriptionBuilder.get(category.root, category));
+
+        for (int chunk = 0; chunk == 0 || chunk * Chunker.CHUNK < fields.size(); chunk++) {
+            MethodSpec.Builder method = write;
+            if (chunk > 0) {
+                String chunkName = name + "_" + chunk;
+                Chunker.Holder chunkHolder = holders.reserve(Math.min(fields.size() - chunk * Chunker.CHUNK,
+                    Chunker.CHUNK));
+                write.addStatement("$L($N)", chunkHolder.qualify(chunkName), WRITER_NAME);
+                method = chunkHolder.method(chunkName)
+                    .addParameter(ConfigWriter.class, WRITER_NAME);
+                chunkHolder.add(method);
+            }
+
+            int end = Math.min(fields.size(), (chunk + 1) * Chunker.CHUNK);
+            for (int i = chunk * Chunker.CHUNK; i < end; i++) generateWrite(fields.get(i), method);
+        }
+
+        for (Category child : category.children) {
+            write.addStatement("$L($N)", addWriter(holders, child), WRITER_NAME);
+        }
+
+        write.addStatement("$N.endCategory()", WRITER_NAME);
+        holder.add(write);
+        return holder.qualify(name);
+    }
+
+    private static void generateWrite(Field field, MethodSpec.Builder spec) {
+        CodeBlock description = DescriptionBuilder.get(field.category.root, field);
+        switch (field.type.getType()) {
+            case GENERIC_ARRAY:
+                if (field.type.convertsToArray()) {
+                    spec.addStatement(
+                        "$N.list($S, $L, $T.$N.toArray())",
+                        WRITER_NAME,
+                        field.name,
+                        description,
+                        field.category.type,
+                        field.name);
+                    break;
+                }
+
+                spec.addStatement(
+                    "$N.list('$L', $S, $L, $T.$N)",
+                    WRITER_NAME,
+                    getTypeId(
+                        field.type.getComponentType()
+                            .getType()),
+                    field.name,
+                    description,
+                    field.category.type,
+                    field.name);
+                break;
+            case ARRAY:
+                spec.addStatement(
+                    "$N.list($S, $L, $T.$N)",
+                    WRITER_NAME,
+                    field.name,
+                    description,
+                    field.category.type,
+                    field.name);
+                break;
+            default:
+                spec.addStatement(
+                    "$N.property($S, $L, $T.$N)",
+                    WRITER_NAME,
+                    field.name,
+                    description,
+                    field.category.type,
+                    field.name);
+                break;
+        }
+    }
+
+    /**
+     * Get the character Forge uses to mark a property's type
+     */
+    private static char getTypeId(TypeHelpers.Type type) {
+        switch (type) {
+            case INT:
+                return 'I';
+            case DOUBLE:
+                return 'D';
+            case BOOLEAN:
+                return 'B';
+            case STRING:
+            default:
+                return 'S';
+        }
+    }
+}
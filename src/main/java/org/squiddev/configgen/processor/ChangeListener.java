@@ -0,0 +1,101 @@
+package org.squiddev.configgen.processor;
+
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import org.squiddev.configgen.OnChange;
+
+/**
+ * A method which is called when properties change
+ */
+public class ChangeListener {
+
+    public final ExecutableElement method;
+    public final String name;
+
+    /**
+     * If this listener is called for each property, with the old and new values
+     */
+    public final boolean values;
+
+    private final String[] paths;
+
+    public ChangeListener(ExecutableElement method, ProcessingEnvironment env) {
+        this.method = method;
+        this.name = method.getSimpleName()
+            .toString();
+        this.paths = method.getAnnotation(OnChange.class)
+            .value();
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        values = parameters.size() == 3;
+        if (parameters.size() != 0 && !(values && isType(parameters.get(0), String.class, env)
+            && isType(parameters.get(1), Object.class, env)
+            && isType(parameters.get(2), Object.class, env))) {
+            env.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "@OnChange methods must take no arguments, or (String path, Object oldValue, Object newValue)",
+                    method);
+        }
+    }
+
+    /**
+     * Check every path refers to a property or category
+     *
+     * @param categories The root categories
+     * @param env        The environment to produce errors in
+     */
+    public void validate(List<Category> categories, ProcessingEnvironment env) {
+        for (String path : paths) {
+            if (!exists(categories, path)) {
+                env.getMessager()
+                    .printMessage(Diagnostic.Kind.ERROR, "No such property or category " + path, method);
+            }
+        }
+    }
+
+    /**
+     * Check if this listener is interested in a field
+     *
+     * @param field The field to check
+     * @return If this listener should be notified when the field changes
+     */
+    public boolean matches(Field field) {
+        if (paths.length == 0) return true;
+
+        String category = field.category.name;
+        for (String path : paths) {
+            if (path.equals(category + "." + field.name) || path.equals(category)
+                || category.startsWith(path + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean exists(List<Category> categories, String path) {
+        for (Category category : categories) {
+            if (path.equals(category.name)) return true;
+            for (Field field : category.fields) {
+                if (path.equals(category.name + "." + field.name)) return true;
+            }
+            if (exists(category.children, path)) return true;
+        }
+        return false;
+    }
+
+    private static boolean isType(VariableElement element, Class<?> klass, ProcessingEnvironment env) {
+        Types types = env.getTypeUtils();
+        TypeMirror expected = env.getElementUtils()
+            .getTypeElement(klass.getName())
+            .asType();
+        return types.isSameType(element.asType(), expected);
+    }
+}
@@ -0,0 +1,231 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for calling {@link org.squiddev.configgen.OnChange} listeners from loaders other than the Forge loader
+ *
+ * The Forge loader compares each property as it is read. Other loaders instead capture the fields listeners are
+ * interested in before loading, and then compare them against the loaded values, calling listeners for any which
+ * changed.
+ */
+public class ChangesBuilder {
+
+    private static final String VALUES_NAME = "values";
+    private static final String LISTENERS_NAME = "listeners";
+    private static final String LISTENERS_FIELD = "LISTENERS";
+    private static final String LOADED_FIELD = "loaded";
+    private static final String PREVIOUS_NAME = "previous";
+
+    public static ClassName getClassName(ConfigClass klass, ProcessingEnvironment env) {
+        return ClassName.get(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            klass.type.getSimpleName() + "Changes");
+    }
+
+    /**
+     * Generate a local holding the fields' values before a load
+     *
+     * @param spec The loading method
+     */
+    static void generateCapture(ConfigClass klass, MethodSpec.Builder spec, ProcessingEnvironment env) {
+        if (klass.listeners.isEmpty()) return;
+        spec.addStatement("$T[] $N = $T.capture()", Object.class, PREVIOUS_NAME, getClassName(klass, env));
+    }
+
+    /**
+     * Generate a call to any listeners whose fields changed during a load. This should be called after publishing
+     * the snapshot, and before the sync hook.
+     *
+     * @param spec The loading method
+     */
+    static void generateDispatch(ConfigClass klass, MethodSpec.Builder spec, ProcessingEnvironment env) {
+        if (klass.listeners.isEmpty()) return;
+        spec.addStatement("$T.dispatch($N)", getClassName(klass, env), PREVIOUS_NAME);
+    }
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        List<Field> fields = new ArrayList<Field>();
+        for (Category category : klass.categories) collect(klass, category, fields);
+
+        ClassName name = getClassName(klass, env);
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.FINAL)
+            .addField(boolean.class, LOADED_FIELD, Modifier.PRIVATE, Modifier.STATIC);
+
+        int listeners = ForgeBuilder.getListenerCount(klass);
+        if (listeners > 0) {
+            // Dispatching is synchronised, so this is shared between loads rather than allocated each time.
+            type.addField(
+                FieldSpec.builder(boolean[].class, LISTENERS_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new boolean[$L]", listeners)
+                    .build());
+        }
+
+        ParameterSpec values = ParameterSpec.builder(Object[].class, VALUES_NAME)
+            .build();
+        ParameterSpec listenersParam = ParameterSpec.builder(boolean[].class, LISTENERS_NAME)
+            .build();
+
+        Chunker.Holders holders = new Chunker.Holders(type);
+        Chunker captures = new Chunker(holders, "capture", values);
+        Chunker dispatches = listeners > 0 ? new Chunker(holders, "dispatch", values, listenersParam)
+            : new Chunker(holders, "dispatch", values);
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            captures.next()
+                .addStatement("$N[$L] = $T.$N", VALUES_NAME, i, field.category.type, field.name);
+            generateDispatch(field, i, dispatches.next());
+        }
+
+        MethodSpec.Builder capture = MethodSpec.methodBuilder("capture")
+            .addJavadoc("Capture the value of every field which a listener is interested in\n\n")
+            .addJavadoc("@return The captured values, which should be passed to {@link #dispatch(Object[])}\n")
+            .addModifiers(Modifier.STATIC)
+            .returns(Object[].class)
+            .addStatement("$T[] $N = new $T[$L]", Object.class, VALUES_NAME, Object.class, fields.size());
+        captures.call(capture);
+        capture.addStatement("return $N", VALUES_NAME);
+
+        MethodSpec.Builder dispatch = MethodSpec.methodBuilder("dispatch")
+            .addJavadoc("Call the listeners for every field which has changed since it was captured. Listeners\n")
+            .addJavadoc("without arguments are also called on the first load.\n\n")
+            .addJavadoc("@param values The values returned by {@link #capture()}\n")
+            .addModifiers(Modifier.STATIC, Modifier.SYNCHRONIZED)
+            .addParameter(values)
+            .returns(void.class);
+        if (listeners > 0) {
+            dispatch.addStatement("boolean[] $N = $N", LISTENERS_NAME, LISTENERS_FIELD)
+                .addStatement("$T.fill($N, !$N)", Arrays.class, LISTENERS_NAME, LOADED_FIELD);
+        }
+        dispatches.call(dispatch);
+        for (ChangeListener listener : klass.listeners) {
+            if (listener.values) continue;
+            dispatch.addStatement(
+                "if ($N[$L]) $T.$N()",
+                LISTENERS_NAME,
+                ForgeBuilder.getListenerIndex(klass, listener),
+                klass.type,
+                listener.name);
+        }
+        dispatch.addStatement("$N = true", LOADED_FIELD);
+
+        type.addMethod(capture.build())
+            .addMethod(dispatch.build());
+        holders.build();
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    /**
+     * Collect every field which at least one listener is interested in
+     */
+    private static void collect(ConfigClass klass, Category category, List<Field> fields) {
+        for (Field field : category.fields) {
+            if (field.type == null) continue;
+            for (ChangeListener listener : klass.listeners) {
+                if (listener.matches(field)) {
+                    fields.add(field);
+                    break;
+                }
+            }
+        }
+        for (Category child : category.children) collect(klass, child, fields);
+    }
+
+    /**
+     * Generate the comparison of a field against its captured value, calling or marking its listeners if it changed
+     *
+     * @param index The field's index in the captured values
+     * @param spec  The method to write to
+     */
+    private static void generateDispatch(Field field, int index, MethodSpec.Builder spec) {
+        spec.beginControlFlow("if ($L)", getDiffers(field, index));
+
+        ConfigClass klass = field.category.root;
+        for (ChangeListener listener : klass.listeners) {
+            if (!listener.matches(field)) continue;
+
+            if (listener.values) {
+                spec.addStatement(
+                    "$T.$N($S, $N[$L], $T.$N)",
+                    klass.type,
+                    listener.name,
+                    field.category.name + "." + field.name,
+                    VALUES_NAME,
+                    index,
+                    field.category.type,
+                    field.name);
+            } else {
+                spec.addStatement("$N[$L] = true", LISTENERS_NAME, ForgeBuilder.getListenerIndex(klass, listener));
+            }
+        }
+        spec.endControlFlow();
+    }
+
+    /**
+     * Get an expression which checks if a field differs from its captured value. Values are compared in the same way
+     * as the Forge loader.
+     *
+     * @param index The field's index in the captured values
+     * @return The expression
+     */
+    private static CodeBlock getDiffers(Field field, int index) {
+        TypeName fieldType = TypeName.get(field.field.asType());
+        if (field.field.asType()
+            .getKind()
+            .isPrimitive()) {
+            return CodeBlock.builder()
+                .add("!$T.valueOf($T.$N).equals($N[$L])", fieldType.box(), field.category.type, field.name,
+                    VALUES_NAME, index)
+                .build();
+        }
+
+        switch (field.type.getType()) {
+            case ARRAY:
+                return CodeBlock.builder()
+                    .add("!$T.equals(($T) $N[$L], $T.$N)", Arrays.class, fieldType, VALUES_NAME, index,
+                        field.category.type, field.name)
+                    .build();
+            case GENERIC_ARRAY:
+                if (field.type.convertsToArray()) {
+                    // These types do not implement equals, so compare their contents instead. Loaders always assign
+                    // a new instance, so an unchanged reference means the field was not loaded.
+                    return CodeBlock.builder()
+                        .add("$N[$L] != $T.$N && ($N[$L] == null || $T.$N == null\n", VALUES_NAME, index,
+                            field.category.type, field.name, VALUES_NAME, index, field.category.type, field.name)
+                        .add("$>$>|| !$T.equals((($T) $N[$L]).toArray(), $T.$N.toArray()))$<$<", Arrays.class,
+                            fieldType, VALUES_NAME, index, field.category.type, field.name)
+                        .build();
+                }
+                // Fall through
+            default:
+                return CodeBlock.builder()
+                    .add("!$T.equals($N[$L], $T.$N)", Objects.class, VALUES_NAME, index, field.category.type,
+                        field.name)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.squiddev.configgen.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Splits statements across several methods, each handling at most {@link #CHUNK} properties
+ *
+ * Methods are added to the generated class until it handles {@link Holders#CLASS_CHUNK} properties, and then to
+ * nested classes, as each class can only have 65535 constants. Every chunker for a class should share the same
+ * {@link Holders}.
+ */
+final class Chunker {
+
+    /**
+     * The number of properties handled by each generated method
+     */
+    static final int CHUNK = 256;
+
+    private final Holders holders;
+    private final String prefix;
+    private final ParameterSpec[] parameters;
+    private final List<String> names = new ArrayList<String>();
+    private Class<? extends Throwable> exception;
+    private MethodSpec.Builder method;
+    private int count = CHUNK;
+
+    Chunker(Holders holders, String prefix, ParameterSpec... parameters) {
+        this.holders = holders;
+        this.prefix = prefix;
+        this.parameters = parameters;
+    }
+
+    Chunker addException(Class<? extends Throwable> exception) {
+        this.exception = exception;
+        return this;
+    }
+
+    /**
+     * Get the method the next property should be added to
+     */
+    MethodSpec.Builder next() {
+        if (count >= CHUNK) {
+            String name = prefix + names.size();
+            Holder holder = holders.reserve(CHUNK);
+            method = holder.method(name);
+            for (ParameterSpec parameter : parameters) method.addParameter(parameter);
+            if (exception != null) method.addException(exception);
+            holder.add(method);
+            names.add(holder.qualify(name));
+            count = 0;
+        }
+
+        count++;
+        return method;
+    }
+
+    /**
+     * Call every chunk, passing each parameter through
+     *
+     * @param spec The method to call the chunks from
+     */
+    void call(MethodSpec.Builder spec) {
+        StringBuilder arguments = new StringBuilder();
+        for (ParameterSpec parameter : parameters) {
+            if (arguments.length() > 0) arguments.append(", ");
+            arguments.append(parameter.name);
+        }
+
+        for (String name : names) spec.addStatement("$L($L)", name, arguments);
+    }
+
+    /**
+     * The classes which generated methods are placed in
+     */
+    static final class Holders {
+
+        /**
+         * The number of properties handled by each generated class
+         */
+        static final int CLASS_CHUNK = 2048;
+
+        private final TypeSpec.Builder type;
+        private final List<Holder> holders = new ArrayList<Holder>();
+        private int count;
+
+        Holders(TypeSpec.Builder type) {
+            this.type = type;
+            holders.add(new Holder(type, null, Modifier.PRIVATE, Modifier.STATIC));
+        }
+
+        /**
+         * Find the class to add a method to
+         *
+         * @param count The number of properties this method handles
+         * @return The class to add the method to
+         */
+        Holder reserve(int count) {
+            if (this.count > 0 && this.count + count > CLASS_CHUNK) {
+                // Methods in nested classes are package private, to avoid generating accessors.
+                String name = "Chunk" + holders.size();
+                holders.add(
+                    new Holder(
+                        TypeSpec.classBuilder(name)
+                            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL),
+                        name,
+                        Modifier.STATIC));
+                this.count = 0;
+            }
+
+            this.count += count;
+            return holders.get(holders.size() - 1);
+        }
+
+        /**
+         * Add every method and nested class to the generated class
+         */
+        void build() {
+            for (Holder holder : holders) {
+                for (MethodSpec.Builder method : holder.methods) holder.type.addMethod(method.build());
+                if (holder.type != type) type.addType(holder.type.build());
+            }
+        }
+    }
+
+    static final class Holder {
+
+        private final TypeSpec.Builder type;
+        private final String name;
+        private final Modifier[] modifiers;
+        private final List<MethodSpec.Builder> methods = new ArrayList<MethodSpec.Builder>();
+
+        private Holder(TypeSpec.Builder type, String name, Modifier... modifiers) {
+            this.type = type;
+            this.name = name;
+            this.modifiers = modifiers;
+        }
+
+        /**
+         * Get the name to call a method in this class by
+         *
+         * @param method The method's name
+         * @return The qualified method name
+         */
+        String qualify(String method) {
+            return name == null ? method : name + "." + method;
+        }
+
+        /**
+         * Create a static method with this class's visibility
+         *
+         * @param method The method's name
+         * @return The method's builder. This must still be {@linkplain #add(MethodSpec.Builder) added}.
+         */
+        MethodSpec.Builder method(String method) {
+            return MethodSpec.methodBuilder(method)
+                .addModifiers(modifiers)
+                .returns(void.class);
+        }
+
+        /**
+         * Add a method to this class. The method is built once every method has been added.
+         *
+         * @param method The method to add
+         */
+        void add(MethodSpec.Builder method) {
+            methods.add(method);
+        }
+    }
+}
@@ -1,7 +1,15 @@
 package org.squiddev.configgen.processor;
 
+import java.lang.reflect.Array;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Element;
@@ -10,25 +18,55 @@ import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic;
 
 import org.squiddev.configgen.Config;
+import org.squiddev.configgen.OnChange;
 import org.squiddev.configgen.OnSync;
+import org.squiddev.configgen.Range;
 
 /**
  * The root config class
  */
 public class ConfigClass {
 
+    /**
+     * The version of the format {@link SyncBuilder} encodes updates in. This must be increased whenever the format
+     * changes.
+     */
+    private static final int SYNC_VERSION = 2;
+
     public final TypeElement type;
 
+    /**
+     * The name of this config's file within the registry's directory
+     */
+    public final String name;
+
     public final String languagePrefix;
     public final String propertyPrefix;
+    public final boolean trackChanges;
+    public final int saveDelay;
+    public final boolean snapshot;
+    public final boolean cache;
+    public final boolean sharded;
 
     public final List<Category> categories = new ArrayList<Category>();
+    public final List<ChangeListener> listeners = new ArrayList<ChangeListener>();
     public ExecutableElement sync;
 
+    /**
+     * Every distinct category and property description, in the order they are stored in the descriptions resource
+     */
+    public final List<String> descriptions = new ArrayList<String>();
+    private final Map<Object, Integer> descriptionIndices = new IdentityHashMap<Object, Integer>();
+
     public ConfigClass(TypeElement type, ProcessingEnvironment env) {
         this.type = type;
 
         Config config = type.getAnnotation(Config.class);
+        name = config.name()
+            .isEmpty()
+                ? type.getSimpleName()
+                    .toString()
+                : config.name();
         languagePrefix = config.languagePrefix()
             .isEmpty() ? null : config.languagePrefix();
         propertyPrefix = config.propertyPrefix()
@@ -36,6 +74,11 @@ public class ConfigClass {
                 ? type.getSimpleName()
                     .toString()
                 : config.propertyPrefix();
+        trackChanges = config.trackChanges();
+        saveDelay = config.saveDelay();
+        snapshot = config.snapshot();
+        cache = config.cache();
+        sharded = config.sharded();
 
         for (Element element : type.getEnclosedElements()) {
             switch (element.getKind()) {
@@ -52,10 +95,136 @@ public class ConfigClass {
                         }
                         sync = (ExecutableElement) element;
                     }
+                    if (element.getAnnotation(OnChange.class) != null) {
+                        Utils.checkUsable(element, env);
+                        if (!trackChanges) {
+                            env.getMessager()
+                                .printMessage(
+                                    Diagnostic.Kind.ERROR,
+                                    "@OnChange requires @Config(trackChanges = true)",
+                                    element);
+                        }
+                        listeners.add(new ChangeListener((ExecutableElement) element, env));
+                    }
                 default:
                     break;
             }
         }
+
+        Collections.sort(categories, Category.ORDER);
+
+        for (ChangeListener listener : listeners) listener.validate(categories, env);
+
+        Map<String, Integer> distinct = new HashMap<String, Integer>();
+        for (Category category : categories) addDescriptions(category, distinct);
     }
 
+    private void addDescriptions(Category category, Map<String, Integer> distinct) {
+        addDescription(category, category.description == null ? null : category.description.trim(), distinct);
+        for (Field field : category.fields) {
+            if (field.type != null) addDescription(field, field.description, distinct);
+        }
+        for (Category child : category.children) addDescriptions(child, distinct);
+    }
+
+    private void addDescription(Object owner, String description, Map<String, Integer> distinct) {
+        if (description == null) return;
+
+        Integer index = distinct.get(description);
+        if (index == null) {
+            distinct.put(description, index = descriptions.size());
+            descriptions.add(description);
+        }
+        descriptionIndices.put(owner, index);
+    }
+
+    /**
+     * Get the index of a category or property's description
+     *
+     * @param owner The {@link Category} or {@link Field} to look up
+     * @return The index into {@link #descriptions}, or {@code -1} if it has no description.
+     */
+    public int getDescriptionIndex(Object owner) {
+        Integer index = descriptionIndices.get(owner);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Compute a fingerprint of this config's schema: the path, type, default and range of every property.
+     *
+     * Any change to the schema will change the fingerprint, so it can be used to reject data written by a different
+     * version of the config.
+     *
+     * @return The schema's fingerprint
+     */
+    public long getFingerprint() {
+        return getFingerprint(false);
+    }
+
+    /**
+     * Compute a fingerprint of the properties which are synced to clients. This also includes the version of the sync
+     * format, so codecs generated by an older processor are rejected.
+     *
+     * @return The synced schema's fingerprint
+     * @see #getFingerprint()
+     */
+    public long getSyncFingerprint() {
+        return getFingerprint(true);
+    }
+
+    private long getFingerprint(boolean synced) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder schema = new StringBuilder();
+        if (synced) schema.append("sync:")
+            .append(SYNC_VERSION)
+            .append(';');
+        for (Category category : categories) appendSchema(schema, category, synced);
+        byte[] hash = digest.digest(
+            schema.toString()
+                .getBytes(Charset.forName("UTF-8")));
+
+        long fingerprint = 0;
+        for (int i = 0; i < 8; i++) fingerprint = (fingerprint << 8) | (hash[i] & 0xFF);
+        return fingerprint;
+    }
+
+    private static void appendSchema(StringBuilder schema, Category category, boolean synced) {
+        schema.append(category.name)
+            .append('{');
+        for (Field field : category.fields) {
+            if (field.type == null || (synced && !field.synced)) continue;
+
+            schema.append(field.name)
+                .append(':')
+                .append(field.field.asType())
+                .append('=');
+            if (field.defaultValue.getClass()
+                .isArray()) {
+                for (int i = 0; i < Array.getLength(field.defaultValue); i++) {
+                    schema.append(Array.get(field.defaultValue, i))
+                        .append(',');
+                }
+            } else {
+                schema.append(field.defaultValue);
+            }
+
+            Range range = field.field.getAnnotation(Range.class);
+            if (range != null) {
+                schema.append('[')
+                    .append(range.min())
+                    .append(',')
+                    .append(range.max())
+                    .append(']');
+            }
+            schema.append(';');
+        }
+        for (Category child : category.children) appendSchema(schema, child, synced);
+        schema.append('}');
+    }
 }
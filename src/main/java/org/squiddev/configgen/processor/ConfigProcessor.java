@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.annotation.processing.SupportedSourceVersion;
@@ -15,10 +16,20 @@ import javax.tools.Diagnostic;
 
 import org.squiddev.configgen.Config;
 
+/**
+ * Generates loaders for {@link Config} classes.
+ *
+ * Each generated file is derived from a single {@link Config} class, and records it as its originating element. This
+ * allows Gradle to process configs incrementally, as an isolating processor. Generated output must only depend on
+ * the config class and its members, and be deterministic.
+ *
+ * The registry of every config is generated by the separate {@link RegistryProcessor}, from the loaders this
+ * processor generates. This processor then stays isolating even when a registry is generated.
+ */
 @SupportedAnnotationTypes({ "org.squiddev.configgen.Config", "org.squiddev.configgen.DefaultBoolean",
     "org.squiddev.configgen.DefaultDouble", "org.squiddev.configgen.DefaultInt", "org.squiddev.configgen.DefaultString",
-    "org.squiddev.configgen.Exclude", "org.squiddev.configgen.OnSync", "org.squiddev.configgen.Range",
-    "org.squiddev.configgen.RequiresRestart", })
+    "org.squiddev.configgen.Exclude", "org.squiddev.configgen.OnChange", "org.squiddev.configgen.OnSync",
+    "org.squiddev.configgen.Range", "org.squiddev.configgen.RequiresRestart", "org.squiddev.configgen.Synced", })
 @SupportedSourceVersion(SourceVersion.RELEASE_8)
 public class ConfigProcessor extends AbstractProcessor {
 
@@ -32,10 +43,8 @@ public class ConfigProcessor extends AbstractProcessor {
             }
 
             try {
-                ConfigClass config = new ConfigClass((TypeElement) elem, processingEnv);
-                ForgeBuilder.generate(config, processingEnv);
-                PropertyBuilder.generate(config, processingEnv);
-                MetadataBuilder.generate(config, processingEnv);
+                ConfigClass config = parse((TypeElement) elem);
+                for (Step step : Step.values()) generate(step, config);
             } catch (IOException e) {
                 processingEnv.getMessager()
                     .printMessage(Diagnostic.Kind.ERROR, "Error " + e.toString(), elem);
@@ -44,4 +53,119 @@ public class ConfigProcessor extends AbstractProcessor {
 
         return true;
     }
+
+    /**
+     * Read a config class's categories and properties
+     *
+     * @param element The class annotated with {@link Config}
+     * @return The parsed config
+     */
+    protected ConfigClass parse(TypeElement element) {
+        return new ConfigClass(element, processingEnv);
+    }
+
+    /**
+     * Run a single step of generating a config's files. This can be overridden to measure each step.
+     *
+     * @param step   The step to run
+     * @param config The config to generate files for
+     * @throws IOException If a file could not be written
+     */
+    protected void generate(Step step, ConfigClass config) throws IOException {
+        step.generate(config, processingEnv);
+    }
+
+    /**
+     * The builders run for each config, in order
+     */
+    public enum Step {
+
+        DESCRIPTIONS("Descriptions") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                DescriptionBuilder.generate(config, env);
+            }
+        },
+        FORGE("ForgeLoader") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                ForgeBuilder.generate(config, env);
+            }
+        },
+        PROPERTY("PropertyLoader") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                PropertyBuilder.generate(config, env);
+            }
+        },
+        CFG("CfgLoader") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                CfgBuilder.generate(config, env);
+            }
+        },
+        BACKEND("BackendLoader") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                BackendBuilder.generate(config, env);
+            }
+        },
+        SYNC("SyncCodec") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                SyncBuilder.generate(config, env);
+            }
+        },
+        METADATA("Metadata") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                MetadataBuilder.generate(config, env);
+            }
+        },
+        SNAPSHOT("Snapshot") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                if (config.snapshot) SnapshotBuilder.generate(config, env);
+            }
+        },
+        CHANGES("Changes") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                if (!config.listeners.isEmpty()) ChangesBuilder.generate(config, env);
+            }
+        },
+        CONSTANTS("Constants") {
+
+            @Override
+            void generate(ConfigClass config, ProcessingEnvironment env) throws IOException {
+                ConstantsBuilder.generate(config, env);
+            }
+        };
+
+        private final String suffix;
+
+        Step(String suffix) {
+            this.suffix = suffix;
+        }
+
+        /**
+         * Get the suffix of the class this step generates, which is appended to the config's name
+         *
+         * @return The class name's suffix
+         */
+        public String getSuffix() {
+            return suffix;
+        }
+
+        abstract void generate(ConfigClass config, ProcessingEnvironment env) throws IOException;
+    }
 }
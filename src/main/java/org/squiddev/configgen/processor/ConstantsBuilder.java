@@ -0,0 +1,203 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for generating {@code static final} copies of properties which require a restart of the game
+ *
+ * Each category is a nested class, with a field of the same name as the config's field. A category's fields are
+ * copied when its class is first used, which also freezes the config: syncs no longer change any restart-only field,
+ * so the copies always match the config. As the copies are constants, the JIT can fold branches which depend on them.
+ *
+ * Freezing and every change to a restart-only field hold the same lock, so a field cannot change between the config
+ * being frozen and the field being copied.
+ *
+ * Only single values are copied, as the contents of an array cannot be constant.
+ */
+public class ConstantsBuilder {
+
+    private static final String FROZEN_FIELD = "frozen";
+    private static final String LOCK_FIELD = "LOCK";
+    private static final String FREEZE_METHOD = "freeze";
+    private static final String FREEZE_FIELD = "FROZEN";
+
+    /**
+     * Get the name of the constants class for a config
+     *
+     * @param klass The config to get the constants for
+     * @return The constants' class name
+     */
+    public static ClassName getClassName(ConfigClass klass) {
+        return ClassName.get(
+            ClassName.get(klass.type)
+                .packageName(),
+            klass.type.getSimpleName() + "Constants");
+    }
+
+    /**
+     * Whether a field is copied into the constants class
+     *
+     * @param field The field to check
+     * @return If the field is a constant
+     */
+    public static boolean isConstant(Field field) {
+        return field.type != null && field.isRestartOnly()
+            && !field.type.getType()
+                .isArray();
+    }
+
+    /**
+     * Whether a config has any constants, and so a constants class should be generated
+     *
+     * @param klass The config to check
+     * @return If the config has any constants
+     */
+    public static boolean hasConstants(ConfigClass klass) {
+        for (Category category : klass.categories) {
+            if (hasConstants(category)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasConstants(Category category) {
+        for (Field field : category.fields) {
+            if (isConstant(field)) return true;
+        }
+        for (Category child : category.children) {
+            if (hasConstants(child)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Generate the start of a block which holds the constants' lock. Restart-only fields should only be changed within
+     * this block, after checking {@link #isFrozen(ConfigClass)}.
+     *
+     * @param klass The config whose fields are being changed
+     * @param spec  The writer to write to
+     */
+    public static void beginLock(ConfigClass klass, MethodSpec.Builder spec) {
+        spec.beginControlFlow("synchronized ($T.$N)", getClassName(klass), LOCK_FIELD);
+    }
+
+    /**
+     * Generate an expression which checks if the config's constants have been copied, and so restart-only fields
+     * should no longer be changed. This must be checked while holding the lock.
+     *
+     * @param klass The config to check
+     * @return The expression
+     */
+    public static CodeBlock isFrozen(ConfigClass klass) {
+        return CodeBlock.builder()
+            .add("$T.$N", getClassName(klass), FROZEN_FIELD)
+            .build();
+    }
+
+    /**
+     * Generate an assignment to a restart-only field, which is skipped once the config has been frozen
+     *
+     * @param spec  The writer to write to
+     * @param value The expression to assign the field from. This is evaluated while holding the lock, so should be a
+     *              local or a cast.
+     */
+    public static void generateAssign(Field field, MethodSpec.Builder spec, CodeBlock value) {
+        beginLock(field.category.root, spec);
+        spec.addStatement(
+            "if (!$L) $T.$N = $L",
+            isFrozen(field.category.root),
+            field.category.type,
+            field.name,
+            value);
+        spec.endControlFlow();
+    }
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        if (!hasConstants(klass)) return;
+
+        ClassName name = getClassName(klass);
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addJavadoc("Constant copies of the properties in {@link $T} which require a restart.\n", klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addField(
+                FieldSpec.builder(Object.class, LOCK_FIELD, Modifier.STATIC, Modifier.FINAL)
+                    .addJavadoc("Held while freezing the config, and by loaders while changing a restart-only\n")
+                    .addJavadoc("field.\n")
+                    .initializer("new $T()", Object.class)
+                    .build())
+            .addField(
+                FieldSpec.builder(boolean.class, FROZEN_FIELD, Modifier.STATIC)
+                    .addJavadoc("Whether any category has been copied. Loaders no longer change restart-only\n")
+                    .addJavadoc("fields once this is set. Guarded by {@link #$N}.\n", LOCK_FIELD)
+                    .build())
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder(FREEZE_METHOD)
+                    .addModifiers(Modifier.STATIC)
+                    .returns(boolean.class)
+                    .beginControlFlow("synchronized ($N)", LOCK_FIELD)
+                    .addStatement("$N = true", FROZEN_FIELD)
+                    .endControlFlow()
+                    .addStatement("return true")
+                    .build());
+
+        for (Category category : klass.categories) {
+            if (hasConstants(category)) type.addType(build(category, name));
+        }
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    private static TypeSpec build(Category category, ClassName root) {
+        TypeSpec.Builder type = TypeSpec.classBuilder(
+            category.type.getSimpleName()
+                .toString())
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .build());
+
+        boolean first = true;
+        for (Field field : category.fields) {
+            if (!isConstant(field)) continue;
+
+            if (first) {
+                // Fields are initialised in order, so this freezes the config before any field is copied.
+                type.addField(
+                    FieldSpec.builder(boolean.class, FREEZE_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("$T.$N()", root, FREEZE_METHOD)
+                        .build());
+                first = false;
+            }
+
+            type.addField(
+                FieldSpec.builder(TypeName.get(field.field.asType()), field.name, Modifier.PUBLIC, Modifier.STATIC)
+                    .addModifiers(Modifier.FINAL)
+                    .initializer("$T.$N", field.category.type, field.name)
+                    .build());
+        }
+
+        for (Category child : category.children) {
+            if (hasConstants(child)) type.addType(build(child, root));
+        }
+
+        return type.build();
+    }
+}
@@ -0,0 +1,97 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.squiddev.configgen.runtime.ConfigDescriptions;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Writes category and property descriptions to a resource, along with a class to read them.
+ *
+ * Other builders reference descriptions by index using {@link #get(ConfigClass, Object)}, rather than embedding them
+ * as string constants.
+ */
+public class DescriptionBuilder {
+
+    public static ClassName getClassName(ConfigClass klass) {
+        return ClassName.get(
+            ClassName.get(klass.type)
+                .packageName(),
+            klass.type.getSimpleName() + "Descriptions");
+    }
+
+    private static String getResourceName(ConfigClass klass) {
+        return klass.type.getSimpleName() + ".descriptions";
+    }
+
+    /**
+     * Generate an expression which reads a description
+     *
+     * @param klass The config the description belongs to
+     * @param owner The {@link Category} or {@link Field} whose description to read
+     * @return The expression, which is just {@code null} if there is no description.
+     */
+    public static CodeBlock get(ConfigClass klass, Object owner) {
+        int index = klass.getDescriptionIndex(owner);
+        if (index < 0) {
+            return CodeBlock.builder()
+                .add("null")
+                .build();
+        }
+
+        return CodeBlock.builder()
+            .add("$T.get($L)", getClassName(klass), index)
+            .build();
+    }
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        ClassName name = getClassName(klass);
+
+        FileObject resource = env.getFiler()
+            .createResource(StandardLocation.CLASS_OUTPUT, name.packageName(), getResourceName(klass), klass.type);
+        OutputStream out = resource.openOutputStream();
+        try {
+            ConfigDescriptions.write(out, klass.descriptions);
+        } finally {
+            out.close();
+        }
+
+        TypeSpec type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addJavadoc("Reads descriptions from {@code $L}, when first requested.\n", getResourceName(klass))
+            .addModifiers(Modifier.FINAL)
+            .addField(
+                FieldSpec.builder(ConfigDescriptions.class, "DESCRIPTIONS", Modifier.PRIVATE, Modifier.STATIC)
+                    .addModifiers(Modifier.FINAL)
+                    .initializer("new $T($T.class, $S)", ConfigDescriptions.class, name, getResourceName(klass))
+                    .build())
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("get")
+                    .addModifiers(Modifier.STATIC)
+                    .addParameter(int.class, "index")
+                    .returns(String.class)
+                    .addStatement("return $N.get($N)", "DESCRIPTIONS", "index")
+                    .build())
+            .build();
+
+        JavaFile.builder(name.packageName(), type)
+            .build()
+            .writeTo(env.getFiler());
+    }
+}
@@ -19,6 +19,7 @@ public class Field {
     public final TypeMirror baseType;
     public final boolean requiresMcRestart;
     public final boolean requiresWorldRestart;
+    public final boolean synced;
 
     public final Category category;
 
@@ -67,6 +68,22 @@ public class Field {
             requiresMcRestart = false;
             requiresWorldRestart = false;
         }
+
+        synced = category.synced || field.getAnnotation(Synced.class) != null;
+    }
+
+    /**
+     * Whether this field can only change when the game restarts, either through its own {@link RequiresRestart} or
+     * that of a parent category.
+     *
+     * @return If the field requires a restart of the game
+     */
+    public boolean isRestartOnly() {
+        if (requiresMcRestart) return true;
+        for (Category category = this.category; category != null; category = category.parent) {
+            if (category.requiresMcRestart) return true;
+        }
+        return false;
     }
 
     private Object calculateDefault(Object def) {
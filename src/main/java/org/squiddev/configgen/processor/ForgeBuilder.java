@@ -1,8 +1,14 @@
 package org.squiddev.configgen.processor;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
@@ -10,10 +16,19 @@ import javax.lang.model.element.Modifier;
 import net.minecraftforge.common.config.Configuration;
 
 import org.squiddev.configgen.Range;
+import org.squiddev.configgen.runtime.ConfigCache;
+import org.squiddev.configgen.runtime.ConfigMetrics;
+import org.squiddev.configgen.runtime.ConfigSaver;
+import org.squiddev.configgen.runtime.ConfigWatcher;
+import org.squiddev.configgen.runtime.GeneratedLoader;
 
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 
 /**
@@ -24,85 +39,542 @@ public class ForgeBuilder {
     private static final String CONFIG_FIELD = "configuration";
     private static final String CONFIG_NAME = "config";
     private static final String LOOP_NAME = "var";
+    private static final String COLLECTION_SUFFIX = "_collection";
+    private static final String OLD_SUFFIX = "_old";
+    private static final String SET_SUFFIX = "_set";
+    private static final String CHANGED_NAME = "changed";
+    private static final String SYNCED_FIELD = "synced";
+    private static final String LAST_PREFIX = "last_";
+    private static final String SAVER_FIELD = "saver";
+    private static final String WATCH_FIELD = "watch";
+    private static final String LISTENERS_NAME = "listeners";
+    private static final String LISTENERS_FIELD = "LISTENERS";
+    private static final String CONFIG_FILE_FIELD = "configFile";
+    private static final String SCHEMA_FIELD = "SCHEMA";
+    private static final String CACHE_VALUES_FIELD = "CACHE_VALUES";
+    private static final String IN_NAME = "in";
+    private static final String OUT_NAME = "out";
+    private static final String METRICS_NAME = "metrics";
+    private static final String START_NAME = "start";
+    private static final String TIME_NAME = "time";
+    private static final String NOW_NAME = "now";
+    private static final String ELAPSED_NAME = "elapsed";
+    private static final String CHANGES_FIELD = "changes";
+
+    /**
+     * The number of fields read by each generated method. This keeps methods below HotSpot's limit for JIT compilation.
+     */
+    private static final int FIELD_CHUNK = 32;
+
+    /**
+     * The number of fields read by each generated class. Once the loader has read this many fields, further methods
+     * are placed in nested classes, as each class can only have 65535 constants.
+     */
+    private static final int CLASS_CHUNK = 2048;
+
+    public static ClassName getClassName(ConfigClass klass, ProcessingEnvironment env) {
+        return ClassName.get(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            klass.type.getSimpleName() + "ForgeLoader");
+    }
 
     public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        ClassName name = getClassName(klass, env);
         FieldSpec configuration = FieldSpec
             .builder(Configuration.class, CONFIG_FIELD, Modifier.PRIVATE, Modifier.STATIC)
             .build();
 
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addAnnotation(
+                AnnotationSpec.builder(GeneratedLoader.class)
+                    .addMember("name", "$S", klass.name)
+                    .addMember("flush", "$L", klass.saveDelay >= 0)
+                    .build())
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addField(configuration);
+
         MethodSpec.Builder sync = MethodSpec.methodBuilder("doSync")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-            .returns(void.class)
-            .addStatement("$T $N = $N", Configuration.class, CONFIG_NAME, CONFIG_FIELD);
+            .returns(void.class);
+        generateConfigLocal(klass, sync);
 
-        for (Category category : klass.categories) {
-            generate(category, sync);
+        boolean async = klass.saveDelay >= 0;
+
+        // Whether we have synced at least once: the first sync should always call the sync hook.
+        if (klass.trackChanges) type.addField(boolean.class, SYNCED_FIELD, Modifier.PRIVATE, Modifier.STATIC);
+
+        // The number of fields changed by the current sync. This is package private, as nested classes update it.
+        if (klass.trackChanges) type.addField(int.class, CHANGES_FIELD, Modifier.STATIC);
+
+        // Whether each listener without arguments should be called. Syncs are not run concurrently, so this is shared
+        // between them rather than allocated each time.
+        if (klass.trackChanges && getListenerCount(klass) > 0) {
+            type.addField(
+                FieldSpec.builder(boolean[].class, LISTENERS_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new boolean[$L]", getListenerCount(klass))
+                    .build());
         }
 
-        if (klass.sync != null) sync.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+        SyncMethods methods = new SyncMethods(type);
+        generateSync(klass, sync, methods, Pass.SYNC, async, env);
 
-        MethodSpec syncSave = MethodSpec.methodBuilder("sync")
+        MethodSpec.Builder syncSave = MethodSpec.methodBuilder("sync")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .returns(void.class)
-            .addStatement("doSync()")
-            .addStatement("$N.save()", CONFIG_FIELD)
-            .build();
+            .addStatement("doSync()");
+        if (klass.trackChanges) syncSave.beginControlFlow("if ($N.hasChanged())", CONFIG_FIELD);
+        if (async) {
+            // The saver will tell the watcher about the write itself
+            syncSave.addStatement("$N.save()", SAVER_FIELD);
+        } else {
+            generateStart(syncSave);
+            syncSave.addStatement("$N.save()", CONFIG_FIELD)
+                .beginControlFlow("if ($N != null)", METRICS_NAME)
+                .addStatement(
+                    "$N.save($S, $T.nanoTime() - $N, $N.getConfigFile().length())",
+                    METRICS_NAME,
+                    klass.name,
+                    System.class,
+                    START_NAME,
+                    CONFIG_FIELD)
+                .endControlFlow()
+                .beginControlFlow("if ($N != null)", WATCH_FIELD)
+                .addStatement("$N.written()", WATCH_FIELD)
+                .endControlFlow();
+        }
+        if (klass.trackChanges) syncSave.endControlFlow();
 
-        MethodSpec init = MethodSpec.methodBuilder("init")
-            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+        MethodSpec.Builder init = MethodSpec.methodBuilder("load")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
             .addParameter(File.class, "file")
-            .returns(void.class)
-            .addStatement("$N = new $T(file)", CONFIG_FIELD, Configuration.class)
-            .addStatement("$N.load()", CONFIG_FIELD)
-            .addStatement("sync()")
-            .build();
+            .returns(void.class);
+        if (async) generateFlush(init);
+        if (klass.cache) {
+            generateCacheInit(klass, init);
+        } else {
+            init.addStatement("$N = new $T(file)", CONFIG_FIELD, Configuration.class)
+                .addStatement("$N.load()", CONFIG_FIELD);
+            if (async) generateSaver(klass, init);
+            init.addStatement("sync()");
+        }
 
-        MethodSpec initC = MethodSpec.methodBuilder("init")
+        MethodSpec.Builder initC = MethodSpec.methodBuilder("init")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .addParameter(Configuration.class, CONFIG_NAME)
-            .returns(void.class)
-            .addStatement("$N = $N", CONFIG_FIELD, CONFIG_NAME)
-            .addStatement("sync()")
-            .build();
+            .returns(void.class);
+        if (async) generateFlush(initC);
+        if (klass.cache) initC.addStatement("$N = null", CONFIG_FILE_FIELD);
+        initC.addStatement("$N = $N", CONFIG_FIELD, CONFIG_NAME);
+        if (async) generateSaver(klass, initC);
+        initC.addStatement("sync()");
 
-        MethodSpec getConfiguration = MethodSpec.methodBuilder("getConfiguration")
+        MethodSpec.Builder getConfiguration = MethodSpec.methodBuilder("getConfiguration")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-            .returns(Configuration.class)
-            .addStatement("return $N", CONFIG_FIELD)
-            .build();
+            .returns(Configuration.class);
+        if (klass.cache) {
+            // If values were loaded from the cache, the config file is only parsed once it is needed.
+            getConfiguration.beginControlFlow("if ($N == null && $N != null)", CONFIG_FIELD, CONFIG_FILE_FIELD)
+                .addStatement("$N = new $T($N)", CONFIG_FIELD, Configuration.class, CONFIG_FILE_FIELD)
+                .addStatement("$N.load()", CONFIG_FIELD);
+            if (async) generateSaver(klass, getConfiguration);
+            getConfiguration.endControlFlow();
+        }
+        getConfiguration.addStatement("return $N", CONFIG_FIELD);
 
-        TypeSpec type = TypeSpec.classBuilder(klass.type.getSimpleName() + "ForgeLoader")
-            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-            .addField(configuration)
-            .addMethod(sync.build())
-            .addMethod(init)
-            .addMethod(initC)
-            .addMethod(syncSave)
-            .addMethod(getConfiguration)
-            .build();
+        MethodSpec.Builder initTimed = MethodSpec.methodBuilder("init")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(File.class, "file")
+            .returns(void.class);
+        generateStart(initTimed);
+        initTimed.addStatement("load(file)")
+            .beginControlFlow("if ($N != null)", METRICS_NAME)
+            .addStatement("$N.load($S, $T.nanoTime() - $N)", METRICS_NAME, klass.name, System.class, START_NAME)
+            .endControlFlow();
 
-        JavaFile.builder(
-            env.getElementUtils()
-                .getPackageOf(klass.type)
-                .getQualifiedName()
-                .toString(),
-            type)
+        type.addMethod(sync.build())
+            .addMethod(initTimed.build())
+            .addMethod(init.build())
+            .addMethod(initC.build())
+            .addMethod(syncSave.build())
+            .addMethod(getConfiguration.build());
+
+        generateWatch(klass, type);
+        if (klass.cache) generateCache(klass, type, methods, env);
+        methods.build();
+
+        if (async) {
+            type.addField(ConfigSaver.class, SAVER_FIELD, Modifier.PRIVATE, Modifier.STATIC);
+            MethodSpec.Builder flush = MethodSpec.methodBuilder("flush")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(void.class);
+            generateFlush(flush);
+            type.addMethod(flush.build());
+        }
+
+        JavaFile.builder(name.packageName(), type.build())
             .indent("\t")
             .build()
             .writeTo(env.getFiler());
     }
 
-    private static void generate(Category category, MethodSpec.Builder spec) {
-        for (Category child : category.children) {
-            generate(child, spec);
+    /**
+     * Generate methods to reload the configuration and watch it for changes
+     *
+     * @param type The class being generated
+     */
+    private static void generateWatch(ConfigClass klass, TypeSpec.Builder type) {
+        type.addField(ConfigWatcher.Watch.class, WATCH_FIELD, Modifier.PRIVATE, Modifier.STATIC);
+
+        MethodSpec.Builder reloadMethod = MethodSpec.methodBuilder("reload")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .returns(void.class);
+        generateConfigLocal(klass, reloadMethod);
+        reloadMethod.beginControlFlow("synchronized ($N)", CONFIG_NAME)
+            .addStatement("$N.load()", CONFIG_NAME)
+            .endControlFlow()
+            .addStatement("doSync()");
+        if (klass.cache) {
+            reloadMethod.beginControlFlow("if ($N != null)", CONFIG_FILE_FIELD)
+                .addStatement(
+                    "$T.write($N, $N, $N)",
+                    ConfigCache.class,
+                    CONFIG_FILE_FIELD,
+                    SCHEMA_FIELD,
+                    CACHE_VALUES_FIELD)
+                .endControlFlow();
+        }
+        type.addMethod(reloadMethod.build());
+
+        TypeSpec reload = TypeSpec.anonymousClassBuilder("")
+            .addSuperinterface(Runnable.class)
+            .addMethod(
+                MethodSpec.methodBuilder("run")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(void.class)
+                    .addStatement("reload()")
+                    .build())
+            .build();
+
+        // Reloads run the sync hook and listeners, so they are queued onto the caller's thread rather than run on
+        // the watcher thread.
+        type.addMethod(
+            MethodSpec.methodBuilder("watch")
+                .addJavadoc("Reload the config whenever its file is modified.\n\n")
+                .addJavadoc("@param executor Runs each reload. This should queue reloads onto the thread which\n")
+                .addJavadoc("                syncs this config, such as the main game thread.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(Executor.class, "executor")
+                .addException(IOException.class)
+                .returns(void.class)
+                .addStatement("unwatch()")
+                .addStatement(
+                    klass.cache ? "$N = $T.watch($N != null ? $N : $N.getConfigFile(), $L, $N)"
+                        : "$N = $T.watch($N.getConfigFile(), $L, $N)",
+                    klass.cache
+                        ? new Object[] { WATCH_FIELD, ConfigWatcher.class, CONFIG_FILE_FIELD, CONFIG_FILE_FIELD,
+                            CONFIG_FIELD, reload, "executor" }
+                        : new Object[] { WATCH_FIELD, ConfigWatcher.class, CONFIG_FIELD, reload, "executor" })
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("unwatch")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(void.class)
+                .beginControlFlow("if ($N != null)", WATCH_FIELD)
+                .addStatement("$N.cancel()", WATCH_FIELD)
+                .addStatement("$N = null", WATCH_FIELD)
+                .endControlFlow()
+                .build());
+    }
+
+    /**
+     * Generate the body of a method which reads every field, and then calls any listeners and the sync hook
+     *
+     * @param spec    The writer to write to
+     * @param methods The methods reading each category
+     * @param pass    Where fields are read from
+     * @param async   Whether the configuration is saved on another thread
+     */
+    private static void generateSync(ConfigClass klass, MethodSpec.Builder spec, SyncMethods methods, Pass pass,
+        boolean async, ProcessingEnvironment env) {
+        int listeners = getListenerCount(klass);
+        boolean timed = pass == Pass.SYNC;
+        if (timed) {
+            generateStart(spec);
+            spec.addStatement("long $N = $N", TIME_NAME, START_NAME);
+            if (klass.trackChanges) spec.addStatement("$N = 0", CHANGES_FIELD);
+        }
+
+        if (klass.trackChanges) {
+            spec.addStatement("boolean $N = !$N", CHANGED_NAME, SYNCED_FIELD);
+            if (listeners > 0) {
+                spec.addStatement("boolean[] $N = $N", LISTENERS_NAME, LISTENERS_FIELD)
+                    .addStatement("$T.fill($N, !$N)", Arrays.class, LISTENERS_NAME, SYNCED_FIELD);
+            }
+        }
+
+        // The saver reads the configuration from another thread, so we cannot modify it at the same time.
+        boolean lock = async && pass == Pass.SYNC;
+        if (lock) spec.beginControlFlow("synchronized ($N)", CONFIG_NAME);
+        methods.rewind();
+        for (Category category : klass.categories) {
+            addCall(klass, spec, generate(category, methods, pass), pass);
+            if (timed) {
+                generateLap(spec);
+                spec.addStatement(
+                    "$N.syncCategory($S, $S, $N)",
+                    METRICS_NAME,
+                    klass.name,
+                    category.name,
+                    ELAPSED_NAME);
+                spec.endControlFlow();
+            }
+        }
+        if (lock) spec.endControlFlow();
+
+        if (klass.sync != null || klass.snapshot || !klass.listeners.isEmpty()) {
+            if (klass.trackChanges) spec.beginControlFlow("if ($N)", CHANGED_NAME);
+            if (klass.snapshot) spec.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+            for (ChangeListener listener : klass.listeners) {
+                if (listener.values) continue;
+                spec.beginControlFlow("if ($N[$L])", LISTENERS_NAME, getListenerIndex(klass, listener))
+                    .addStatement("$T.$N()", klass.type, listener.name)
+                    .endControlFlow();
+            }
+            if (klass.sync != null) spec.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+            if (timed) {
+                generateLap(spec);
+                spec.addStatement("$N.onSync($S, $N)", METRICS_NAME, klass.name, ELAPSED_NAME)
+                    .endControlFlow();
+            }
+            if (klass.trackChanges) spec.endControlFlow();
         }
+        if (klass.trackChanges) spec.addStatement("$N = true", SYNCED_FIELD);
+
+        if (timed) {
+            spec.beginControlFlow("if ($N != null)", METRICS_NAME)
+                .addStatement(
+                    "$N.sync($S, $T.nanoTime() - $N, $L)",
+                    METRICS_NAME,
+                    klass.name,
+                    System.class,
+                    START_NAME,
+                    klass.trackChanges ? CHANGES_FIELD : "-1")
+                .endControlFlow();
+        }
+    }
+
+    /**
+     * Generate locals holding the current {@link ConfigMetrics} and, if it is set, the current time
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateStart(MethodSpec.Builder spec) {
+        spec.addStatement("$T $N = $T.get()", ConfigMetrics.class, METRICS_NAME, ConfigMetrics.class)
+            .addStatement(
+                "long $N = $N == null ? 0 : $T.nanoTime()",
+                START_NAME,
+                METRICS_NAME,
+                System.class);
+    }
+
+    /**
+     * Generate the start of a block which is only run when recording metrics. Within the block, {@link #ELAPSED_NAME}
+     * holds the time since the previous lap.
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateLap(MethodSpec.Builder spec) {
+        spec.beginControlFlow("if ($N != null)", METRICS_NAME)
+            .addStatement("long $N = $T.nanoTime()", NOW_NAME, System.class)
+            .addStatement("long $N = $N - $N", ELAPSED_NAME, NOW_NAME, TIME_NAME)
+            .addStatement("$N = $N", TIME_NAME, NOW_NAME);
+    }
+
+    /**
+     * Generate {@code init(File)} for a config with a binary cache.
+     *
+     * Values are loaded from the cache if it is valid. Otherwise the file is parsed and synced as normal, and the cache
+     * is rewritten.
+     *
+     * @param init The {@code init(File)} method
+     */
+    private static void generateCacheInit(ConfigClass klass, MethodSpec.Builder init) {
+        init.addStatement("$N = null", CONFIG_FIELD)
+            .addStatement("$N = file", CONFIG_FILE_FIELD)
+            .addStatement("$T cache = $T.open(file, $N)", DataInputStream.class, ConfigCache.class, SCHEMA_FIELD)
+            .beginControlFlow("if (cache != null)")
+            .beginControlFlow("try")
+            .addStatement("readCache(cache)")
+            .addStatement("return")
+            .nextControlFlow("catch ($T e)", IOException.class)
+            .addCode("// The cache was not written in the format we expected, so parse the file instead.\n")
+            .nextControlFlow("catch ($T e)", RuntimeException.class)
+            .addCode("// Any other error reading the cache can also be recovered from by parsing the file.\n")
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("sync()");
+        // Make sure the file has been written, so the cache holds its current hash.
+        if (klass.saveDelay >= 0) generateFlush(init);
+        init.addStatement("$T.write(file, $N, $N)", ConfigCache.class, SCHEMA_FIELD, CACHE_VALUES_FIELD);
+    }
+
+    /**
+     * Generate the fields and methods which read and write the binary cache
+     *
+     * @param type    The class being generated
+     * @param methods The methods reading each category
+     */
+    private static void generateCache(ConfigClass klass, TypeSpec.Builder type, SyncMethods methods,
+        ProcessingEnvironment env) {
+        MethodSpec.Builder read = MethodSpec.methodBuilder("readCache")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(DataInputStream.class, IN_NAME)
+            .addException(IOException.class)
+            .returns(void.class);
+        generateSync(klass, read, methods, Pass.READ, false, env);
+
+        MethodSpec.Builder write = MethodSpec.methodBuilder("writeCache")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(DataOutputStream.class, OUT_NAME)
+            .addException(IOException.class)
+            .returns(void.class);
+        methods.rewind();
+        for (Category category : klass.categories) {
+            addCall(klass, write, generate(category, methods, Pass.WRITE), Pass.WRITE);
+        }
+
+        TypeSpec values = TypeSpec.anonymousClassBuilder("")
+            .addSuperinterface(ConfigCache.Values.class)
+            .addMethod(
+                MethodSpec.methodBuilder("write")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(DataOutputStream.class, OUT_NAME)
+                    .addException(IOException.class)
+                    .returns(void.class)
+                    .addStatement("writeCache($N)", OUT_NAME)
+                    .build())
+            .build();
+
+        type.addField(
+            FieldSpec.builder(long.class, SCHEMA_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc("The fingerprint of this config's schema, used to reject caches from other versions\n")
+                .initializer("$LL", klass.getFingerprint())
+                .build())
+            .addField(
+                FieldSpec
+                    .builder(ConfigCache.Values.class, CACHE_VALUES_FIELD, Modifier.PRIVATE, Modifier.STATIC,
+                        Modifier.FINAL)
+                    .initializer("$L", values)
+                    .build())
+            .addField(File.class, CONFIG_FILE_FIELD, Modifier.PRIVATE, Modifier.STATIC)
+            .addMethod(read.build())
+            .addMethod(write.build());
+    }
+
+    /**
+     * Generate a local holding the configuration. When using a cache, this parses the config file if needed.
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateConfigLocal(ConfigClass klass, MethodSpec.Builder spec) {
+        if (klass.cache) {
+            spec.addStatement("$T $N = getConfiguration()", Configuration.class, CONFIG_NAME);
+        } else {
+            spec.addStatement("$T $N = $N", Configuration.class, CONFIG_NAME, CONFIG_FIELD);
+        }
+    }
+
+    /**
+     * Generate the creation of the background saver
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateSaver(ConfigClass klass, MethodSpec.Builder spec) {
+        spec.addStatement(
+            "$N = new $T($S, $N, $L)",
+            SAVER_FIELD,
+            ConfigSaver.class,
+            klass.name,
+            CONFIG_FIELD,
+            klass.saveDelay);
+    }
+
+    /**
+     * Generate a flush of any pending background saves
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateFlush(MethodSpec.Builder spec) {
+        spec.beginControlFlow("if ($N != null)", SAVER_FIELD)
+            .addStatement("$N.flush()", SAVER_FIELD)
+            .endControlFlow();
+    }
+
+    /**
+     * Generate the methods which sync a category. Each category has its own method, with large categories being split
+     * across several, so no single method grows with the size of the config.
+     *
+     * @param methods The generated methods
+     * @param pass    Where fields are read from or written to
+     * @return The method which syncs this category, qualified with its class if needed.
+     */
+    private static String generate(Category category, SyncMethods methods, Pass pass) {
+        ConfigClass klass = category.root;
+        String name = pass.prefix + category.name.replace('.', '_');
+
+        List<Field> fields = new ArrayList<Field>();
         for (Field field : category.fields) {
-            generate(field, spec);
+            if (field.type != null) fields.add(field);
+        }
+
+        MethodSpec.Builder spec = null;
+        String qualifiedName = null;
+        SyncMethods.Holder holder = null;
+        for (int chunk = 0; chunk == 0 || chunk * FIELD_CHUNK < fields.size(); chunk++) {
+            int end = Math.min(fields.size(), (chunk + 1) * FIELD_CHUNK);
+            String chunkName = chunk == 0 ? name : name + "_" + chunk;
+            SyncMethods.Holder chunkHolder = methods.reserve(end - chunk * FIELD_CHUNK);
+
+            MethodSpec.Builder method = MethodSpec.methodBuilder(chunkName)
+                .addModifiers(chunkHolder.modifiers)
+                .addParameter(pass.type, pass.parameter);
+            if (pass != Pass.SYNC) method.addException(IOException.class);
+            if (pass.isTracked(klass)) {
+                method.returns(boolean.class)
+                    .addStatement("boolean $N = false", CHANGED_NAME);
+                if (getListenerCount(klass) > 0) method.addParameter(boolean[].class, LISTENERS_NAME);
+            } else {
+                method.returns(void.class);
+            }
+
+            if (chunk == 0) {
+                spec = method;
+                holder = chunkHolder;
+                qualifiedName = chunkHolder.qualify(chunkName);
+                for (Category child : category.children) {
+                    addCall(klass, spec, generate(child, methods, pass), pass);
+                }
+            } else {
+                addCall(klass, spec, chunkHolder.qualify(chunkName), pass);
+            }
+
+            for (int i = chunk * FIELD_CHUNK; i < end; i++) {
+                generate(fields.get(i), method, chunkHolder.type, pass);
+            }
+
+            if (chunk != 0) chunkHolder.add(klass, method, pass);
         }
 
-        if (category.description != null || category.root.languagePrefix != null
+        if (pass == Pass.SYNC && (category.description != null || category.root.languagePrefix != null
             || category.requiresMcRestart
-            || category.requiresWorldRestart) {
+            || category.requiresWorldRestart)) {
             spec.addCode("$[");
             spec.addCode("$N.getCategory($S)", CONFIG_NAME, category.name);
 
@@ -113,35 +585,394 @@ public class ForgeBuilder {
             if (category.requiresMcRestart) spec.addCode("\n.setRequiresMcRestart($L)", true);
 
             // This doesn't return a ConfigCategory so has to be last
-            if (category.description != null) spec.addCode("\n.setComment($S)", category.description.trim());
+            if (category.description != null) {
+                spec.addCode("\n.setComment($L)", DescriptionBuilder.get(category.root, category));
+            }
 
             spec.addCode(";\n$]");
         }
+
+        holder.add(klass, spec, pass);
+        return qualifiedName;
+    }
+
+    /**
+     * Generate a call to a method which syncs part of the config. When tracking changes, these return whether any
+     * field changed.
+     *
+     * @param spec The writer to write to
+     * @param name The method to call
+     * @param pass The pass the method belongs to
+     */
+    private static void addCall(ConfigClass klass, MethodSpec.Builder spec, String name, Pass pass) {
+        if (!pass.isTracked(klass)) {
+            spec.addStatement("$L($N)", name, pass.parameter);
+        } else if (getListenerCount(klass) > 0) {
+            spec.addStatement("$N |= $L($N, $N)", CHANGED_NAME, name, pass.parameter, LISTENERS_NAME);
+        } else {
+            spec.addStatement("$N |= $L($N)", CHANGED_NAME, name, pass.parameter);
+        }
+    }
+
+    /**
+     * A traversal over every field of the config. Each pass visits categories and fields in the same order, and places
+     * methods in the same classes, so a cache written by one pass can be read by another.
+     */
+    private enum Pass {
+
+        /**
+         * Read fields from the {@link Configuration}
+         */
+        SYNC("sync_", Configuration.class, CONFIG_NAME),
+
+        /**
+         * Read fields from the binary cache
+         */
+        READ("read_", DataInputStream.class, IN_NAME),
+
+        /**
+         * Write fields to the binary cache
+         */
+        WRITE("write_", DataOutputStream.class, OUT_NAME);
+
+        final String prefix;
+        final Class<?> type;
+        final String parameter;
+
+        Pass(String prefix, Class<?> type, String parameter) {
+            this.prefix = prefix;
+            this.type = type;
+            this.parameter = parameter;
+        }
+
+        boolean isTracked(ConfigClass klass) {
+            return klass.trackChanges && this != WRITE;
+        }
+    }
+
+    /**
+     * The classes which hold the methods syncing each category.
+     *
+     * Methods are added to the loader until it has read {@link #CLASS_CHUNK} fields, and then to nested classes.
+     */
+    private static final class SyncMethods {
+
+        private final TypeSpec.Builder loader;
+        private final List<Holder> holders = new ArrayList<Holder>();
+        private int index;
+        private int fields;
+
+        private SyncMethods(TypeSpec.Builder loader) {
+            this.loader = loader;
+            holders.add(new Holder(loader, null, Modifier.PRIVATE, Modifier.STATIC));
+        }
+
+        /**
+         * Start another pass over the config, placing methods in the same classes as the previous pass.
+         */
+        void rewind() {
+            index = 0;
+            fields = 0;
+        }
+
+        /**
+         * Find the class to add a method to
+         *
+         * @param count The number of fields this method reads
+         * @return The class to add the method to
+         */
+        Holder reserve(int count) {
+            if (fields > 0 && fields + count > CLASS_CHUNK) {
+                index++;
+                fields = 0;
+                if (index == holders.size()) {
+                    // Methods in nested classes are package private, to avoid generating accessors.
+                    String name = "Sync" + index;
+                    holders.add(
+                        new Holder(
+                            TypeSpec.classBuilder(name)
+                                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL),
+                            name,
+                            Modifier.STATIC));
+                }
+            }
+
+            fields += count;
+            return holders.get(index);
+        }
+
+        /**
+         * Add every method and nested class to the loader
+         */
+        void build() {
+            for (Holder holder : holders) {
+                for (MethodSpec method : holder.methods) holder.type.addMethod(method);
+                if (holder.type != loader) loader.addType(holder.type.build());
+            }
+        }
+
+        static final class Holder {
+
+            final TypeSpec.Builder type;
+            final String name;
+            final Modifier[] modifiers;
+            final List<MethodSpec> methods = new ArrayList<MethodSpec>();
+
+            private Holder(TypeSpec.Builder type, String name, Modifier... modifiers) {
+                this.type = type;
+                this.name = name;
+                this.modifiers = modifiers;
+            }
+
+            String qualify(String method) {
+                return name == null ? method : name + "." + method;
+            }
+
+            void add(ConfigClass klass, MethodSpec.Builder method, Pass pass) {
+                if (pass.isTracked(klass)) method.addStatement("return $N", CHANGED_NAME);
+                methods.add(method.build());
+            }
+        }
     }
 
     /**
      * Generate field access
      *
      * @param spec The writer to write to
+     * @param type The class being generated
      */
-    private static void generate(Field field, MethodSpec.Builder spec) {
+    private static void generate(Field field, MethodSpec.Builder spec, TypeSpec.Builder type, Pass pass) {
         if (field.type == null) return;
 
+        if (pass == Pass.WRITE) {
+            generateWrite(field, spec);
+            return;
+        }
+
+        if (field.category.root.trackChanges) {
+            generateTracked(field, spec, type, pass);
+            return;
+        }
+
+        if (ConstantsBuilder.isConstant(field)) {
+            // Once the constants have been copied, the field must keep its value.
+            String propName = getLocalName(field);
+            spec.addCode("$[");
+            spec.addCode("$T $N = ", field.baseType, propName);
+            generateGet(field, spec, pass);
+            spec.addCode(";\n$]");
+            ConstantsBuilder.generateAssign(
+                field,
+                spec,
+                CodeBlock.builder()
+                    .add("$N", propName)
+                    .build());
+            return;
+        }
+
         spec.addCode("$[");
         String propName = null;
         if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY) {
             if (field.type.throughConstructor()) {
                 spec.addCode("$T.$N = new $T(", field.category.type, field.name, field.type.getMirror());
             } else {
-                propName = field.category.type.getQualifiedName()
-                    .toString()
-                    .replace('.', '_') + "_" + field.name;
+                propName = getLocalName(field);
                 spec.addCode("$T $N = ", field.baseType, propName);
             }
         } else {
             spec.addCode("$T.$N = ", field.category.type, field.name);
         }
 
+        generateGet(field, spec, pass);
+
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.type.throughConstructor()) {
+            spec.addCode(")");
+        }
+        spec.addCode(";\n$]");
+
+        if (propName != null) generateCollection(field, spec, propName);
+    }
+
+    /**
+     * Generate field access which only assigns the field when its value has changed
+     *
+     * @param spec The writer to write to
+     * @param type The class being generated
+     */
+    private static void generateTracked(Field field, MethodSpec.Builder spec, TypeSpec.Builder type, Pass pass) {
+        String propName = getLocalName(field);
+
+        spec.addCode("$[");
+        spec.addCode("$T $N = ", field.baseType, propName);
+        generateGet(field, spec, pass);
+        spec.addCode(";\n$]");
+
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY) {
+            // We cannot compare against the collection, so compare against the last array we read instead. Every pass
+            // places this field's methods in the same class, so the field only needs adding once.
+            String lastName = LAST_PREFIX + propName;
+            if (pass == Pass.SYNC) {
+                type.addField(TypeName.get(field.baseType), lastName, Modifier.PRIVATE, Modifier.STATIC);
+            }
+
+            spec.beginControlFlow("if (!$T.equals($N, $N))", Arrays.class, propName, lastName);
+            spec.addStatement("$N = $N", lastName, propName);
+            generateOld(field, spec, propName);
+            if (field.type.throughConstructor()) {
+                spec.addStatement(
+                    "$T.$N = new $T($N)",
+                    field.category.type,
+                    field.name,
+                    field.type.getMirror(),
+                    propName);
+            } else {
+                generateCollection(field, spec, propName);
+            }
+        } else if (ConstantsBuilder.isConstant(field)) {
+            // Once the constants have been copied, the field must keep its value. Listeners are called after
+            // releasing the lock, as they may copy the constants themselves.
+            String setName = propName + SET_SUFFIX;
+            generateOld(field, spec, propName);
+            spec.addStatement("boolean $N", setName);
+            ConstantsBuilder.beginLock(field.category.root, spec);
+            spec.addStatement(
+                "$N = !$L && $L",
+                setName,
+                ConstantsBuilder.isFrozen(field.category.root),
+                getDiffers(field, propName))
+                .addStatement("if ($N) $T.$N = $N", setName, field.category.type, field.name, propName)
+                .endControlFlow()
+                .beginControlFlow("if ($N)", setName);
+        } else {
+            spec.beginControlFlow("if ($L)", getDiffers(field, propName));
+            generateOld(field, spec, propName);
+            spec.addStatement("$T.$N = $N", field.category.type, field.name, propName);
+        }
+
+        spec.addStatement("$N = true", CHANGED_NAME);
+        if (pass == Pass.SYNC) spec.addStatement("$N++", CHANGES_FIELD);
+        for (ChangeListener listener : field.category.root.listeners) {
+            if (!listener.matches(field)) continue;
+
+            if (listener.values) {
+                spec.addStatement(
+                    "$T.$N($S, $N, $T.$N)",
+                    field.category.root.type,
+                    listener.name,
+                    field.category.name + "." + field.name,
+                    propName + OLD_SUFFIX,
+                    field.category.type,
+                    field.name);
+            } else {
+                spec.addStatement("$N[$L] = true", LISTENERS_NAME, getListenerIndex(field.category.root, listener));
+            }
+        }
+        spec.endControlFlow();
+    }
+
+    /**
+     * Generate an expression which checks if a single valued field differs from a local
+     *
+     * @param propName The local holding the new value
+     * @return The expression
+     */
+    private static CodeBlock getDiffers(Field field, String propName) {
+        CodeBlock.Builder differs = CodeBlock.builder();
+        switch (field.type.getType()) {
+            case ARRAY:
+                differs.add("!$T.equals($N, $T.$N)", Arrays.class, propName, field.category.type, field.name);
+                break;
+            case STRING:
+                differs.add("!$N.equals($T.$N)", propName, field.category.type, field.name);
+                break;
+            default:
+                if (!field.field.asType()
+                    .getKind()
+                    .isPrimitive()) {
+                    // Boxed fields may be null, so we compare them as objects
+                    differs.add(
+                        "!$T.valueOf($N).equals($T.$N)",
+                        TypeName.get(field.baseType)
+                            .box(),
+                        propName,
+                        field.category.type,
+                        field.name);
+                } else if (field.type.getType() == TypeHelpers.Type.DOUBLE) {
+                    differs.add(
+                        "$T.compare($N, $T.$N) != 0",
+                        Double.class,
+                        propName,
+                        field.category.type,
+                        field.name);
+                } else {
+                    differs.add("$N != $T.$N", propName, field.category.type, field.name);
+                }
+                break;
+        }
+        return differs.build();
+    }
+
+    /**
+     * Generate a local holding the field's current value, if any listener needs it
+     *
+     * @param spec     The writer to write to
+     * @param propName The name of the field's local
+     */
+    private static void generateOld(Field field, MethodSpec.Builder spec, String propName) {
+        for (ChangeListener listener : field.category.root.listeners) {
+            if (listener.values && listener.matches(field)) {
+                spec.addStatement(
+                    "$T $N = $T.$N",
+                    field.field.asType(),
+                    propName + OLD_SUFFIX,
+                    field.category.type,
+                    field.name);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the number of listeners which take no arguments, and so are called after syncing.
+     *
+     * @return The number of listeners
+     */
+    static int getListenerCount(ConfigClass klass) {
+        int count = 0;
+        for (ChangeListener listener : klass.listeners) {
+            if (!listener.values) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the position of a listener without arguments in the {@code listeners} array
+     *
+     * @param klass    The config the listener belongs to
+     * @param listener The listener
+     * @return The listener's index
+     */
+    static int getListenerIndex(ConfigClass klass, ChangeListener listener) {
+        int index = 0;
+        for (ChangeListener other : klass.listeners) {
+            if (other == listener) return index;
+            if (!other.values) index++;
+        }
+        throw new IllegalArgumentException("Unknown listener " + listener.name);
+    }
+
+    /**
+     * Generate the expression which reads a field from the configuration
+     *
+     * @param spec The writer to write to
+     * @param pass Where the field is read from
+     */
+    private static void generateGet(Field field, MethodSpec.Builder spec, Pass pass) {
+        if (pass == Pass.READ) {
+            spec.addCode("$T.read$L($N)", ConfigCache.class, field.type.accessName(), IN_NAME);
+            return;
+        }
+
         spec.addCode("$N.get($S, $S, ", CONFIG_NAME, field.category.name, field.name);
 
         if (field.type.getType()
@@ -162,7 +993,7 @@ public class ForgeBuilder {
         } else {
             spec.addCode(field.type.getType() == TypeHelpers.Type.STRING ? "$S" : "$L", field.defaultValue);
         }
-        spec.addCode(", $S)\n", field.description);
+        spec.addCode(", $L)\n", DescriptionBuilder.get(field.category.root, field));
 
         if (field.requiresWorldRestart) spec.addCode(".setRequiresWorldRestart($L)\n", true);
         if (field.requiresMcRestart) spec.addCode(".setRequiresMcRestart($L)\n", true);
@@ -186,21 +1017,84 @@ public class ForgeBuilder {
         }
 
         spec.addCode(".$N()", "get" + field.type.accessName());
-        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.type.throughConstructor()) {
-            spec.addCode(")");
-        }
-        spec.addCode(";\n$]");
+    }
+
+    /**
+     * Generate the loop which fills a {@link TypeHelpers.Type#GENERIC_ARRAY} from an array.
+     *
+     * The collection is filled before being assigned, so other threads never see a partially filled collection.
+     *
+     * @param spec     The writer to write to
+     * @param propName The name of the array to read from
+     */
+    private static void generateCollection(Field field, MethodSpec.Builder spec, String propName) {
+        String collectionName = propName + COLLECTION_SUFFIX;
+        spec.addStatement("$T $N = new $T()", field.type.getMirror(), collectionName, field.type.getMirror());
+        spec.beginControlFlow(
+            "for($T $N : $N)",
+            field.type.getComponentType()
+                .getMirror(),
+            LOOP_NAME,
+            propName);
+        spec.addStatement("$N.add($N)", collectionName, LOOP_NAME);
+        spec.endControlFlow();
+        spec.addStatement("$T.$N = $N", field.category.type, field.name, collectionName);
+    }
 
-        if (propName != null) {
-            spec.addStatement("$T.$N = new $T()", field.category.type, field.name, field.type.getMirror());
+    /**
+     * Generate a write of a field's current value to the binary cache
+     *
+     * @param spec The writer to write to
+     */
+    private static void generateWrite(Field field, MethodSpec.Builder spec) {
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.category.root.trackChanges) {
+            // Write the array the collection was built from, which keeps its original order.
+            spec.addStatement(
+                "$T.write$L($N, $N)",
+                ConfigCache.class,
+                field.type.accessName(),
+                OUT_NAME,
+                LAST_PREFIX + getLocalName(field));
+        } else if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.type.convertsToArray()) {
+            spec.addStatement(
+                "$T.write$L($N, $T.$N.toArray())",
+                ConfigCache.class,
+                field.type.accessName(),
+                OUT_NAME,
+                field.category.type,
+                field.name);
+        } else if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY) {
+            // Written in the same format as an array, so it can be read back as one.
+            spec.addStatement("$N.writeInt($T.$N.size())", OUT_NAME, field.category.type, field.name);
             spec.beginControlFlow(
-                "for($T $N : $N)",
+                "for ($T $N : $T.$N)",
                 field.type.getComponentType()
                     .getMirror(),
                 LOOP_NAME,
-                propName);
-            spec.addStatement("$T.$N.add($N)", field.category.type, field.name, LOOP_NAME);
+                field.category.type,
+                field.name);
+            spec.addStatement(
+                "$T.write$L($N, $N)",
+                ConfigCache.class,
+                field.type.getComponentType()
+                    .accessName(),
+                OUT_NAME,
+                LOOP_NAME);
             spec.endControlFlow();
+        } else {
+            spec.addStatement(
+                "$T.write$L($N, $T.$N)",
+                ConfigCache.class,
+                field.type.accessName(),
+                OUT_NAME,
+                field.category.type,
+                field.name);
         }
     }
+
+    private static String getLocalName(Field field) {
+        return field.category.type.getQualifiedName()
+            .toString()
+            .replace('.', '_') + "_" + field.name;
+    }
 }
@@ -6,10 +6,14 @@ import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 
@@ -19,18 +23,51 @@ import com.squareup.javapoet.*;
 
 public class MetadataBuilder {
 
+    private static final String SETTER_NAME = "setField";
+    private static final String GETTER_NAME = "getField";
+
+    /**
+     * The number of properties handled by each setter or getter method.
+     */
+    private static final int SWITCH_CHUNK = 256;
+
     private final String className;
     private final String packageName;
     private final ClassName propertyName;
     private final ClassName categoryName;
+    private final ClassName intPropertyName;
+    private final ClassName doublePropertyName;
+    private final ClassName booleanPropertyName;
 
+    private final TypeElement element;
+    private final ConfigClass klass;
     private final List<Category> categories;
 
     private final List<TypeConverter> converters = new ArrayList<TypeConverter>();
 
+    /**
+     * Every property, sorted by path. The position in this list is the property's index.
+     */
+    private final List<Field> properties = new ArrayList<Field>();
+    private final Map<Field, Integer> indices = new IdentityHashMap<Field, Integer>();
+
+    /**
+     * Every category, in depth first order. Each category is created lazily by its own holder class, named after its
+     * position in this list.
+     */
+    private final List<Category> allCategories = new ArrayList<Category>();
+    private final Map<Category, Integer> categoryIndices = new IdentityHashMap<Category, Integer>();
+
+    /**
+     * The position of each property within its category
+     */
+    private final Map<Field, Integer> positions = new IdentityHashMap<Field, Integer>();
+
     private final Types types;
 
     private MetadataBuilder(ConfigClass klass, ProcessingEnvironment env) {
+        this.element = klass.type;
+        this.klass = klass;
         this.categories = klass.categories;
         String className = this.className = klass.type.getSimpleName() + "Metadata";
         String packageName = this.packageName = env.getElementUtils()
@@ -40,8 +77,39 @@ public class MetadataBuilder {
 
         this.propertyName = ClassName.get(packageName, className, "Property");
         this.categoryName = ClassName.get(packageName, className, "Category");
+        this.intPropertyName = ClassName.get(packageName, className, "IntProperty");
+        this.doublePropertyName = ClassName.get(packageName, className, "DoubleProperty");
+        this.booleanPropertyName = ClassName.get(packageName, className, "BooleanProperty");
 
         this.types = env.getTypeUtils();
+
+        for (Category category : categories) addProperties(category);
+        Collections.sort(properties, new Comparator<Field>() {
+
+            @Override
+            public int compare(Field a, Field b) {
+                return getPath(a).compareTo(getPath(b));
+            }
+        });
+        for (int i = 0; i < properties.size(); i++) indices.put(properties.get(i), i);
+    }
+
+    private void addProperties(Category category) {
+        categoryIndices.put(category, allCategories.size());
+        allCategories.add(category);
+
+        int position = 0;
+        for (Field field : category.fields) {
+            if (field.type != null) {
+                positions.put(field, position++);
+                properties.add(field);
+            }
+        }
+        for (Category child : category.children) addProperties(child);
+    }
+
+    private static String getPath(Field field) {
+        return field.category.name + "." + field.name;
     }
 
     private JavaFile build() {
@@ -55,7 +123,7 @@ public class MetadataBuilder {
                 FieldSpec.builder(String.class, "name", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
-                FieldSpec.builder(String.class, "description", Modifier.PRIVATE, Modifier.FINAL)
+                FieldSpec.builder(int.class, "descriptionIndex", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
                 FieldSpec.builder(propertyCRep, "type", Modifier.PRIVATE, Modifier.FINAL)
@@ -64,29 +132,26 @@ public class MetadataBuilder {
                 FieldSpec.builder(propertyVRep, "defaultValue", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
-                FieldSpec.builder(java.lang.reflect.Field.class, "field", Modifier.PRIVATE, Modifier.FINAL)
+                FieldSpec.builder(int.class, "index", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addMethod(
                 MethodSpec.constructorBuilder()
                     .addParameter(propertyCRep, "type")
                     .addParameter(String.class, "name")
-                    .addParameter(String.class, "description")
-                    .addParameter(Class.class, "category")
+                    .addParameter(int.class, "descriptionIndex")
+                    .addParameter(int.class, "index")
                     .addParameter(propertyVRep, "defaultValue")
                     .addStatement("this.$N = $N", "type", "type")
                     .addStatement("this.$N = $N", "name", "name")
-                    .addStatement("this.$N = $N", "description", "description")
+                    .addStatement("this.$N = $N", "descriptionIndex", "descriptionIndex")
+                    .addStatement("this.$N = $N", "index", "index")
                     .addStatement("this.$N = $N", "defaultValue", "defaultValue")
-                    .beginControlFlow("try")
-                    .addStatement("this.$N = $N.getField($N)", "field", "category", "name")
-                    .nextControlFlow("catch($T $N)", Exception.class, "e")
-                    .addStatement("throw new $T($N)", RuntimeException.class, "e")
-                    .endControlFlow()
                     .build())
             .addMethod(getter(String.class, "name"))
-            .addMethod(getter(String.class, "description"))
+            .addMethod(descriptionGetter())
             .addMethod(getter(propertyVRep, "defaultValue"))
             .addMethod(getter(propertyCRep, "type"))
+            .addMethod(getter(TypeName.INT, "index"))
             .addMethod(
                 MethodSpec.methodBuilder("convert")
                     .addModifiers(Modifier.PUBLIC)
@@ -99,11 +164,22 @@ public class MetadataBuilder {
                     .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
                     .addParameter(propertyVRep, "value")
                     .returns(TypeName.VOID)
-                    .beginControlFlow("try")
-                    .addStatement("$N.set(null, convert($N))", "field", "value")
-                    .nextControlFlow("catch($T $N)", Exception.class, "e")
-                    .addStatement("throw new $T($N)", RuntimeException.class, "e")
-                    .endControlFlow()
+                    .addStatement("$N($N, convert($N))", SETTER_NAME, "index", "value")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("convertBack")
+                    .addJavadoc("Convert a field's value to this property's type. This is the inverse of\n")
+                    .addJavadoc("{@link #convert}.\n")
+                    .addModifiers(Modifier.PUBLIC)
+                    .addParameter(Object.class, "value")
+                    .returns(propertyVRep)
+                    .addStatement("return ($T) $N", propertyVRep, "value")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("get")
+                    .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                    .returns(propertyVRep)
+                    .addStatement("return convertBack($N($N))", GETTER_NAME, "index")
                     .build())
             .addMethod(
                 MethodSpec.methodBuilder("toString")
@@ -114,54 +190,65 @@ public class MetadataBuilder {
                     .build())
             .build();
 
+        TypeName propertyList = ParameterizedTypeName.get(ClassName.get(List.class), propertyName);
+        TypeName categoryList = ParameterizedTypeName.get(ClassName.get(List.class), categoryName);
+
         TypeSpec categoryTy = TypeSpec.classBuilder("Category")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
             .addField(
                 FieldSpec.builder(String.class, "name", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
-                FieldSpec.builder(String.class, "description", Modifier.PRIVATE, Modifier.FINAL)
+                FieldSpec.builder(int.class, "descriptionIndex", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
-                FieldSpec.builder(ArrayTypeName.of(propertyName), "properties", Modifier.PRIVATE, Modifier.FINAL)
+                FieldSpec.builder(propertyList, "properties", Modifier.PRIVATE, Modifier.FINAL)
                     .build())
             .addField(
-                FieldSpec.builder(ArrayTypeName.of(categoryName), "children", Modifier.PRIVATE, Modifier.FINAL)
+                FieldSpec.builder(int[].class, "childIndices", Modifier.PRIVATE, Modifier.FINAL)
+                    .build())
+            .addField(
+                FieldSpec.builder(categoryList, "children", Modifier.PRIVATE)
                     .build())
             .addMethod(
                 MethodSpec.constructorBuilder()
                     .addParameter(String.class, "name")
-                    .addParameter(String.class, "description")
+                    .addParameter(int.class, "descriptionIndex")
                     .addParameter(ArrayTypeName.of(propertyName), "properties")
-                    .addParameter(ArrayTypeName.of(categoryName), "children")
+                    .addParameter(int[].class, "childIndices")
                     .addStatement("this.$N = $N", "name", "name")
-                    .addStatement("this.$N = $N", "description", "description")
-                    .addStatement("this.$N = $N", "properties", "properties")
-                    .addStatement("this.$N = $N", "children", "children")
-                    .build())
-            .addMethod(getter(String.class, "name"))
-            .addMethod(getter(String.class, "description"))
-            .addMethod(
-                MethodSpec.methodBuilder("properties")
-                    .addModifiers(Modifier.PUBLIC)
-                    .returns(ParameterizedTypeName.get(ClassName.get(List.class), propertyName))
+                    .addStatement("this.$N = $N", "descriptionIndex", "descriptionIndex")
                     .addStatement(
-                        "return properties == null ? $T.<$T>emptyList() : $T.unmodifiableList($T.asList(properties))",
-                        Collections.class,
-                        propertyName,
+                        "this.$N = $T.unmodifiableList($T.asList($N))",
+                        "properties",
                         Collections.class,
-                        Arrays.class)
+                        Arrays.class,
+                        "properties")
+                    .addStatement("this.$N = $N", "childIndices", "childIndices")
                     .build())
+            .addMethod(getter(String.class, "name"))
+            .addMethod(descriptionGetter())
+            .addMethod(getter(propertyList, "properties"))
             .addMethod(
                 MethodSpec.methodBuilder("children")
+                    .addJavadoc("Get this category's children. These are created on first access.\n")
                     .addModifiers(Modifier.PUBLIC)
-                    .returns(ParameterizedTypeName.get(ClassName.get(List.class), categoryName))
+                    .returns(categoryList)
+                    .addStatement("$T $N = this.$N", categoryList, "children", "children")
+                    .beginControlFlow("if ($N == null)", "children")
+                    .addStatement("$T[] $N = new $T[$N.length]", categoryName, "created", categoryName, "childIndices")
+                    .beginControlFlow("for (int i = 0; i < $N.length; i++)", "created")
+                    .addStatement("$N[i] = category($N[i])", "created", "childIndices")
+                    .endControlFlow()
                     .addStatement(
-                        "return children == null ? $T.<$T>emptyList() : $T.unmodifiableList($T.asList(children))",
-                        Collections.class,
-                        categoryName,
+                        "this.$N = $N = $T.unmodifiableList($T.asList($N))",
+                        "children",
+                        "children",
                         Collections.class,
-                        Arrays.class)
+                        Arrays.class,
+                        "created")
+                    .endControlFlow()
+                    .addStatement("return $N", "children")
                     .build())
             .addMethod(
                 MethodSpec.methodBuilder("toString")
@@ -172,26 +259,35 @@ public class MetadataBuilder {
                     .build())
             .build();
 
-        CodeBlock.Builder intermediate = CodeBlock.builder();
-        intermediate.add("new $T[] {\n$>", categoryName);
-        for (Category category : categories) {
-            generate(category, intermediate);
-            intermediate.add(",\n");
-        }
-        intermediate.add("$<}");
+        CodeBlock.Builder roots = CodeBlock.builder();
+        roots.add("new $T[] {", categoryName);
+        for (Category category : categories) roots.add("category($L), ", categoryIndices.get(category));
+        roots.add("}");
 
         TypeSpec.Builder type = TypeSpec.classBuilder(className)
+            .addOriginatingElement(element)
             .addAnnotation(
                 AnnotationSpec.builder(SuppressWarnings.class)
                     .addMember("value", "{ $S, $S }", "unchecked", "rawtypes")
                     .build())
             .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
             .addType(propertyTy)
+            .addType(primitiveProperty("IntProperty", TypeName.INT, "getInt", "getIntField"))
+            .addType(primitiveProperty("DoubleProperty", TypeName.DOUBLE, "getDouble", "getDoubleField"))
+            .addType(primitiveProperty("BooleanProperty", TypeName.BOOLEAN, "getBoolean", "getBooleanField"))
             .addType(categoryTy)
-            .addField(
-                FieldSpec.builder(ArrayTypeName.of(categoryName), "categories")
+            .addType(
+                TypeSpec.classBuilder("Categories")
                     .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
-                    .initializer(intermediate.build())
+                    .addField(
+                        FieldSpec.builder(categoryList, "INSTANCE")
+                            .addModifiers(Modifier.STATIC, Modifier.FINAL)
+                            .initializer(
+                                "$T.unmodifiableList($T.asList($L))",
+                                Collections.class,
+                                Arrays.class,
+                                roots.build())
+                            .build())
                     .build())
             .addMethod(
                 MethodSpec.constructorBuilder()
@@ -200,15 +296,21 @@ public class MetadataBuilder {
             .addMethod(
                 MethodSpec.methodBuilder("categories")
                     .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-                    .returns(ParameterizedTypeName.get(ClassName.get(List.class), categoryName))
-                    .addStatement(
-                        "return $T.unmodifiableList($T.asList($N))",
-                        Collections.class,
-                        Arrays.class,
-                        "categories")
+                    .returns(categoryList)
+                    .addStatement("return $N.INSTANCE", "Categories")
                     .build());
 
+        Chunker.Holders holders = new Chunker.Holders(type);
+        addCategories(type, holders);
+        addPathIndex(type, holders);
+
         for (TypeConverter converter : converters) type.addType(converter.spec);
+        addFieldSwitch(type, holders, SETTER_NAME, TypeName.VOID, null);
+        addFieldSwitch(type, holders, GETTER_NAME, TypeName.OBJECT, null);
+        addFieldSwitch(type, holders, "getIntField", TypeName.INT, TypeHelpers.Type.INT);
+        addFieldSwitch(type, holders, "getDoubleField", TypeName.DOUBLE, TypeHelpers.Type.DOUBLE);
+        addFieldSwitch(type, holders, "getBooleanField", TypeName.BOOLEAN, TypeHelpers.Type.BOOLEAN);
+        holders.build();
 
         return JavaFile.builder(packageName, type.build())
             .build();
@@ -220,35 +322,103 @@ public class MetadataBuilder {
 
     }
 
-    private void generate(Category category, CodeBlock.Builder block) {
-        block.add("new $T($S, $S, ", categoryName, category.unqualifiedName, category.description);
-        if (category.fields.size() == 0) {
-            block.add("null");
-        } else {
-            block.add("new $T[] {\n$>", propertyName);
+    /**
+     * Generate a holder class for each category, which creates the category and its properties when first accessed.
+     * Categories are accessed through {@code category(int)} and properties through {@code getProperty(int)}.
+     *
+     * @param type    The metadata class
+     * @param holders The classes to add {@code getProperty}'s chunks to
+     */
+    private void addCategories(TypeSpec.Builder type, Chunker.Holders holders) {
+        MethodSpec.Builder dispatch = MethodSpec.methodBuilder("category")
+            .addModifiers(Modifier.STATIC)
+            .addParameter(int.class, "index")
+            .returns(categoryName)
+            .beginControlFlow("switch ($N)", "index");
+
+        for (int index = 0; index < allCategories.size(); index++) {
+            Category category = allCategories.get(index);
+            List<Field> fields = new ArrayList<Field>();
             for (Field field : category.fields) {
-                if (field.type != null) {
-                    generate(field, block);
-                    block.add(",\n");
-                }
+                if (field.type != null) fields.add(field);
             }
-            block.add("$<}");
-        }
 
-        block.add(", ");
+            TypeSpec.Builder holder = TypeSpec.classBuilder(getHolderName(index))
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addField(
+                    FieldSpec.builder(categoryName, "INSTANCE", Modifier.STATIC, Modifier.FINAL)
+                        .initializer("create()")
+                        .build());
+
+            MethodSpec.Builder create = MethodSpec.methodBuilder("create")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .returns(categoryName)
+                .addStatement("$T[] $N = new $T[$L]", propertyName, "properties", propertyName, fields.size());
+
+            // Large categories are split into several methods, to keep each one JIT compilable.
+            for (int chunk = 0; chunk * SWITCH_CHUNK < fields.size(); chunk++) {
+                MethodSpec.Builder fill = create;
+                if (fields.size() > SWITCH_CHUNK) {
+                    fill = MethodSpec.methodBuilder("fill" + chunk)
+                        .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                        .addParameter(ArrayTypeName.of(propertyName), "properties")
+                        .returns(void.class);
+                    create.addStatement("fill$L($N)", chunk, "properties");
+                }
 
-        if (category.children.size() == 0) {
-            block.add("null");
-        } else {
-            block.add("new $T[] {\n$>", categoryName);
-            for (Category child : category.children) {
-                generate(child, block);
-                block.add(",\n");
+                int end = Math.min(fields.size(), (chunk + 1) * SWITCH_CHUNK);
+                for (int i = chunk * SWITCH_CHUNK; i < end; i++) {
+                    CodeBlock.Builder property = CodeBlock.builder();
+                    generate(fields.get(i), property);
+                    fill.addStatement("$N[$L] = $L", "properties", i, property.build());
+                }
+
+                if (fill != create) holder.addMethod(fill.build());
             }
-            block.add("$<}");
+
+            CodeBlock.Builder children = CodeBlock.builder();
+            children.add("new int[] {");
+            for (Category child : category.children) children.add("$L, ", categoryIndices.get(child));
+            children.add("}");
+
+            create.addStatement(
+                "return new $T($S, $L, $N, $L)",
+                categoryName,
+                category.unqualifiedName,
+                klass.getDescriptionIndex(category),
+                "properties",
+                children.build());
+
+            type.addType(
+                holder.addMethod(create.build())
+                    .build());
+            dispatch.addStatement("case $L: return $N.INSTANCE", index, getHolderName(index));
         }
 
-        block.add(")");
+        dispatch.addStatement(
+            "default: throw new $T($S + $N)",
+            IllegalArgumentException.class,
+            "No such category ",
+            "index");
+        dispatch.endControlFlow();
+        type.addMethod(dispatch.build());
+
+        addSwitch(type, holders, "getProperty", propertyName, new CaseWriter() {
+
+            @Override
+            public boolean write(MethodSpec.Builder method, int index, Field field) {
+                method.addStatement(
+                    "case $L: return $N.INSTANCE.properties.get($L)",
+                    index,
+                    getHolderName(categoryIndices.get(field.category)),
+                    positions.get(field));
+                return true;
+            }
+        });
+    }
+
+    private static String getHolderName(int index) {
+        return "CategoryHolder" + index;
     }
 
     /**
@@ -257,17 +427,20 @@ public class MetadataBuilder {
      * @param block The writer to write to
      */
     private void generate(Field field, CodeBlock.Builder block) {
-        if (field.baseType.equals(field.type.getMirror())) {
-            block.add(
-                "new $T<$T>($T.class, ",
-                propertyName,
-                TypeName.get(field.baseType)
-                    .box(),
-                field.baseType);
+        // Boxed fields may be null, so only primitive fields have a primitive property.
+        ClassName primitive = field.field.asType()
+            .getKind()
+            .isPrimitive() ? getPrimitiveProperty(field.type.getType()) : null;
+        if (primitive != null) {
+            block.add("new $T(", primitive);
+        } else if (field.baseType.equals(field.type.getMirror())) {
+            TypeName boxed = TypeName.get(field.baseType)
+                .box();
+            block.add("new $T<$T>($T.class, ", propertyName, boxed, boxed);
         } else {
             block.add("new $T(", getConverter(field.baseType, field.type));
         }
-        block.add("$S, $S, $T.class, ", field.name, field.description, field.category.type);
+        block.add("$S, $L, $L, ", field.name, klass.getDescriptionIndex(field), indices.get(field));
 
         if (field.type.getType()
             .isArray()) {
@@ -290,6 +463,361 @@ public class MetadataBuilder {
         block.add(")");
     }
 
+    /**
+     * Generate the path index: lookups from a property's path ({@code category.child.field}) to its index, and queries
+     * over the sorted list of paths.
+     *
+     * As properties are sorted by path, a property's index is also its position in the sorted list.
+     *
+     * @param type    The metadata class
+     * @param holders The classes to add the lookup methods to
+     */
+    private void addPathIndex(TypeSpec.Builder type, Chunker.Holders holders) {
+        // Lookup paths by splitting them into buckets by hash, with a string switch for each bucket.
+        int buckets = Integer.highestOneBit(Math.max(1, properties.size() / (SWITCH_CHUNK / 2)) * 2 - 1);
+        List<List<Field>> bucketFields = new ArrayList<List<Field>>(buckets);
+        for (int i = 0; i < buckets; i++) bucketFields.add(new ArrayList<Field>());
+        for (Field field : properties) {
+            bucketFields.get(
+                getPath(field).hashCode() & (buckets - 1))
+                .add(field);
+        }
+
+        MethodSpec.Builder find = MethodSpec.methodBuilder("indexOf")
+            .addJavadoc("Find the index of a property\n\n")
+            .addJavadoc("@param path The property's path, such as {@code category.child.field}\n")
+            .addJavadoc("@return The property's index, or {@code -1} if there is no such property.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(String.class, "path")
+            .returns(int.class);
+        if (buckets == 1) {
+            // Small configs only have one bucket, so can switch on the path directly.
+            addLookup(find, bucketFields.get(0));
+        } else {
+            find.beginControlFlow("switch ($N.hashCode() & $L)", "path", buckets - 1);
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                List<Field> fields = bucketFields.get(bucket);
+                if (fields.isEmpty()) continue;
+
+                String name = "indexOf" + bucket;
+                Chunker.Holder holder = holders.reserve(fields.size());
+                find.addStatement("case $L: return $L($N)", bucket, holder.qualify(name), "path");
+
+                MethodSpec.Builder method = holder.method(name)
+                    .addParameter(String.class, "path")
+                    .returns(int.class);
+                addLookup(method, fields);
+                holder.add(method);
+            }
+            find.addStatement("default: return -1")
+                .endControlFlow();
+        }
+        type.addMethod(find.build());
+
+        addSwitch(type, holders, "getPath", ClassName.get(String.class), new CaseWriter() {
+
+            @Override
+            public boolean write(MethodSpec.Builder method, int index, Field field) {
+                method.addStatement("case $L: return $S", index, getPath(field));
+                return true;
+            }
+        });
+
+        type.addMethod(
+            MethodSpec.methodBuilder("path")
+                .addJavadoc("Get the path of a property from its index\n\n")
+                .addJavadoc("@param index The property's index\n")
+                .addJavadoc("@return The property's path, such as {@code category.child.field}\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "index")
+                .returns(String.class)
+                .addStatement("return getPath($N)", "index")
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("size")
+                .addJavadoc("Get the number of properties\n\n")
+                .addJavadoc("@return The number of properties\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(int.class)
+                .addStatement("return $L", properties.size())
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("property")
+                .addJavadoc("Get a property from its index\n\n")
+                .addJavadoc("@param index The property's index\n")
+                .addJavadoc("@return The property at this index\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int.class, "index")
+                .returns(propertyName)
+                .addStatement("return getProperty($N)", "index")
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("property")
+                .addJavadoc("Find a property from its path\n\n")
+                .addJavadoc("@param path The property's path, such as {@code category.child.field}\n")
+                .addJavadoc("@return The property, or {@code null} if there is no such property.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "path")
+                .returns(propertyName)
+                .addStatement("int $N = indexOf($N)", "index", "path")
+                .addStatement("return $N < 0 ? null : getProperty($N)", "index", "index")
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("lowerBound")
+                .addJavadoc("Find the index of the first property whose path is not less than {@code key}.\n\n")
+                .addJavadoc("@param key The key to search for\n")
+                .addJavadoc("@return The first index whose path is {@code >= key}, or {@link #size()} if none are.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "key")
+                .returns(int.class)
+                .addStatement("int $N = 0, $N = $L", "low", "high", properties.size())
+                .beginControlFlow("while ($N < $N)", "low", "high")
+                .addStatement("int $N = ($N + $N) >>> 1", "mid", "low", "high")
+                .beginControlFlow("if (getPath($N).compareTo($N) < 0)", "mid", "key")
+                .addStatement("$N = $N + 1", "low", "mid")
+                .nextControlFlow("else")
+                .addStatement("$N = $N", "high", "mid")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return $N", "low")
+                .build());
+
+        type.addMethod(
+            MethodSpec.methodBuilder("prefixEnd")
+                .addJavadoc("Find the end of the range of properties whose path starts with {@code prefix}.\n")
+                .addJavadoc("The range starts at {@link #lowerBound(String)}, so properties can be visited with:\n\n")
+                .addJavadoc("<pre>\n")
+                .addJavadoc("for (int i = lowerBound(prefix), end = prefixEnd(prefix); i < end; i++) property(i);\n")
+                .addJavadoc("</pre>\n\n")
+                .addJavadoc("@param prefix The prefix to search for, such as {@code category.}\n")
+                .addJavadoc("@return The index after the last property starting with {@code prefix}.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(String.class, "prefix")
+                .returns(int.class)
+                .addStatement("int $N = lowerBound($N), $N = $L", "low", "prefix", "high", properties.size())
+                .beginControlFlow("while ($N < $N)", "low", "high")
+                .addStatement("int $N = ($N + $N) >>> 1", "mid", "low", "high")
+                .beginControlFlow("if (getPath($N).startsWith($N))", "mid", "prefix")
+                .addStatement("$N = $N + 1", "low", "mid")
+                .nextControlFlow("else")
+                .addStatement("$N = $N", "high", "mid")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return $N", "low")
+                .build());
+    }
+
+    /**
+     * Generate a string switch which finds the index of a property from its path
+     *
+     * @param method The method to write to
+     * @param fields The properties to look up
+     */
+    private void addLookup(MethodSpec.Builder method, List<Field> fields) {
+        method.beginControlFlow("switch ($N)", "path");
+        for (Field field : fields) method.addStatement("case $S: return $L", getPath(field), indices.get(field));
+        method.addStatement("default: return -1")
+            .endControlFlow();
+    }
+
+    /**
+     * Writes a single case of a switch generated by
+     * {@link #addSwitch(TypeSpec.Builder, Chunker.Holders, String, TypeName, CaseWriter)}
+     */
+    private interface CaseWriter {
+
+        /**
+         * Write the case for a property
+         *
+         * @param method The method to write to
+         * @param index  The property's index
+         * @param field  The property's field
+         * @return If a case was written, or {@code false} if this property is not handled.
+         */
+        boolean write(MethodSpec.Builder method, int index, Field field);
+    }
+
+    /**
+     * Generate a method which sets or gets a field from its property index.
+     *
+     * @param type    The metadata class
+     * @param holders The classes to add the chunks to
+     * @param name    The name of the method to generate
+     * @param returns The type to return, or {@link TypeName#VOID} to generate a setter.
+     * @param kind    The kind of property to include, or {@code null} to include all properties.
+     */
+    private void addFieldSwitch(TypeSpec.Builder type, Chunker.Holders holders, String name, TypeName returns,
+        final TypeHelpers.Type kind) {
+        if (returns == TypeName.VOID) {
+            addSwitch(type, holders, name, returns, new CaseWriter() {
+
+                @Override
+                public boolean write(MethodSpec.Builder method, int index, Field field) {
+                    TypeName boxed = TypeName.get(field.field.asType())
+                        .box();
+                    if (!ConstantsBuilder.isConstant(field)) {
+                        method.addStatement(
+                            "case $L: $T.$N = ($T) $N; break",
+                            index,
+                            field.category.type,
+                            field.name,
+                            boxed,
+                            "value");
+                        return true;
+                    }
+
+                    // Once the constants have been copied, the field must keep its value.
+                    method.addCode("case $L:\n$>", index);
+                    ConstantsBuilder.generateAssign(
+                        field,
+                        method,
+                        CodeBlock.builder()
+                            .add("($T) $N", boxed, "value")
+                            .build());
+                    method.addStatement("break");
+                    method.addCode("$<");
+                    return true;
+                }
+            });
+        } else {
+            addSwitch(type, holders, name, returns, new CaseWriter() {
+
+                @Override
+                public boolean write(MethodSpec.Builder method, int index, Field field) {
+                    if (kind != null && (field.type.getType() != kind || !field.field.asType()
+                        .getKind()
+                        .isPrimitive())) return false;
+                    method.addStatement("case $L: return $T.$N", index, field.category.type, field.name);
+                    return true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Generate a method which switches over the property index. Properties are split into chunks, each with their own
+     * method, with the method called {@code name} dispatching to the appropriate one. This keeps the methods small
+     * enough to be JIT compiled.
+     *
+     * @param type    The metadata class
+     * @param holders The classes to add the chunks to
+     * @param name    The name of the method to generate
+     * @param returns The type to return, or {@link TypeName#VOID} to generate a setter taking a value.
+     * @param writer  Writes the case for each property
+     */
+    private void addSwitch(TypeSpec.Builder type, Chunker.Holders holders, String name, TypeName returns,
+        CaseWriter writer) {
+        boolean setter = returns == TypeName.VOID;
+
+        MethodSpec.Builder dispatch = MethodSpec.methodBuilder(name)
+            .addModifiers(Modifier.STATIC)
+            .addParameter(int.class, "index")
+            .returns(returns);
+        if (setter) dispatch.addParameter(Object.class, "value");
+        dispatch.beginControlFlow("switch ($N / $L)", "index", SWITCH_CHUNK);
+
+        for (int chunk = 0; chunk * SWITCH_CHUNK < properties.size(); chunk++) {
+            String chunkName = name + chunk;
+            MethodSpec.Builder body = MethodSpec.methodBuilder(chunkName)
+                .beginControlFlow("switch ($N)", "index");
+
+            int count = 0;
+            int end = Math.min(properties.size(), (chunk + 1) * SWITCH_CHUNK);
+            for (int i = chunk * SWITCH_CHUNK; i < end; i++) {
+                if (writer.write(body, i, properties.get(i))) count++;
+            }
+            if (count == 0) continue;
+
+            body.addStatement(
+                "default: throw new $T($S + $N)",
+                IllegalArgumentException.class,
+                "No such property ",
+                "index");
+            body.endControlFlow();
+
+            // The holder is only picked once the cases are known, so skipped properties do not fill up a class.
+            Chunker.Holder holder = holders.reserve(count);
+            MethodSpec.Builder method = holder.method(chunkName)
+                .addParameter(int.class, "index")
+                .returns(returns);
+            if (setter) method.addParameter(Object.class, "value");
+            method.addCode(body.build().code);
+            holder.add(method);
+
+            if (setter) {
+                dispatch.addStatement(
+                    "case $L: $L($N, $N); break",
+                    chunk,
+                    holder.qualify(chunkName),
+                    "index",
+                    "value");
+            } else {
+                dispatch.addStatement("case $L: return $L($N)", chunk, holder.qualify(chunkName), "index");
+            }
+        }
+
+        dispatch.addStatement(
+            "default: throw new $T($S + $N)",
+            IllegalArgumentException.class,
+            "No such property ",
+            "index");
+        dispatch.endControlFlow();
+        type.addMethod(dispatch.build());
+    }
+
+    /**
+     * Create a property subclass for a primitive type, which reads the field without boxing.
+     *
+     * @param name    The name of the class to create
+     * @param type    The primitive type of this property
+     * @param getter  The name of the getter to generate.
+     * @param feature The name of the method to read the field with
+     * @return The created class
+     */
+    private TypeSpec primitiveProperty(String name, TypeName type, String getter, String feature) {
+        return TypeSpec.classBuilder(name)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .superclass(ParameterizedTypeName.get(propertyName, type.box()))
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addParameter(String.class, "name")
+                    .addParameter(int.class, "descriptionIndex")
+                    .addParameter(int.class, "index")
+                    .addParameter(type.box(), "defaultValue")
+                    .addStatement(
+                        "super($T.class, $N, $N, $N, $N)",
+                        type,
+                        "name",
+                        "descriptionIndex",
+                        "index",
+                        "defaultValue")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder(getter)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(type)
+                    .addStatement("return $N(index())", feature)
+                    .build())
+            .build();
+    }
+
+    private ClassName getPrimitiveProperty(TypeHelpers.Type type) {
+        switch (type) {
+            case INT:
+                return intPropertyName;
+            case DOUBLE:
+                return doublePropertyName;
+            case BOOLEAN:
+                return booleanPropertyName;
+            default:
+                return null;
+        }
+    }
+
     private TypeName getConverter(TypeMirror repType, IType fieldType) {
         TypeMirror fieldMirror = fieldType.getMirror();
         for (TypeConverter converter : converters) {
@@ -305,15 +833,15 @@ public class MetadataBuilder {
             .addMethod(
                 MethodSpec.constructorBuilder()
                     .addParameter(String.class, "name")
-                    .addParameter(String.class, "description")
-                    .addParameter(Class.class, "category")
+                    .addParameter(int.class, "descriptionIndex")
+                    .addParameter(int.class, "index")
                     .addParameter(TypeName.get(repType), "defaultValue")
                     .addStatement(
                         "super($T.class, $N, $N, $N, $N)",
                         repType,
                         "name",
-                        "description",
-                        "category",
+                        "descriptionIndex",
+                        "index",
                         "defaultValue")
                     .build());
 
@@ -342,11 +870,38 @@ public class MetadataBuilder {
             convert.addCode("return ($T)$N", fieldMirror, "value");
         }
 
+        MethodSpec.Builder convertBack = MethodSpec.methodBuilder("convertBack")
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(Object.class, "value")
+            .returns(TypeName.get(repType))
+            .addStatement("if ($N == null) return null", "value");
+        if (fieldType.getType() != TypeHelpers.Type.GENERIC_ARRAY) {
+            convertBack.addStatement("return ($T) $N", repType, "value");
+        } else if (fieldType.convertsToArray()) {
+            convertBack.addStatement("return (($T) $N).toArray()", fieldMirror, "value");
+        } else if (fieldType.throughConstructor()) {
+            convertBack.addStatement(
+                "throw new $T($S)",
+                UnsupportedOperationException.class,
+                "Cannot convert " + fieldMirror + " back to an array");
+        } else {
+            TypeMirror component = fieldType.getComponentType()
+                .getMirror();
+            convertBack.addStatement("$T $N = ($T) $N", fieldMirror, "collection", fieldMirror, "value")
+                .addStatement("$T[] $N = new $T[$N.size()]", component, "converted", component, "collection")
+                .addStatement("int $N = 0", "i")
+                .addStatement("for ($T $N : $N) $N[$N++] = $N", component, "child", "collection", "converted", "i",
+                    "child")
+                .addStatement("return $N", "converted");
+        }
+
         ClassName fullName = ClassName.get(packageName, className, name);
         converters.add(
             new TypeConverter(
                 fieldMirror,
                 builder.addMethod(convert.build())
+                    .addMethod(convertBack.build())
                     .build(),
                 fullName));
         return fullName;
@@ -365,6 +920,21 @@ public class MetadataBuilder {
         }
     }
 
+    /**
+     * Create a getter for a description, which reads it from the descriptions resource on first use
+     */
+    private MethodSpec descriptionGetter() {
+        return MethodSpec.methodBuilder("description")
+            .addModifiers(Modifier.PUBLIC)
+            .returns(String.class)
+            .addStatement(
+                "return $N < 0 ? null : $T.get($N)",
+                "descriptionIndex",
+                DescriptionBuilder.getClassName(klass),
+                "descriptionIndex")
+            .build();
+    }
+
     private static MethodSpec getter(TypeName type, String name) {
         return MethodSpec.methodBuilder(name)
             .addModifiers(Modifier.PUBLIC)
@@ -1,40 +1,139 @@
 package org.squiddev.configgen.processor;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Modifier;
 
+import org.squiddev.configgen.runtime.ConfigMetrics;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
 
 /**
  * Builder for generating builders for default files
+ *
+ * Properties are read from a single source (system properties, environment variables or a properties file) in one
+ * pass: each entry of the source is parsed and dispatched to its field's slot through a string switch. Once every
+ * entry has been parsed, each field is assigned from its slot, or reset to its default if the source did not have it.
  */
 public class PropertyBuilder {
 
     private static final String LOOP_NAME = "var";
+    private static final String KEY_NAME = "key";
+    private static final String VALUE_NAME = "value";
+    static final String PARSED_NAME = "parsed";
 
     public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        List<Field> fields = new ArrayList<Field>();
+        List<String> keys = new ArrayList<String>();
+        for (Category category : klass.categories) {
+            collect(category, klass.propertyPrefix, fields, keys);
+        }
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(klass.type.getSimpleName() + "PropertyLoader")
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
         MethodSpec.Builder init = MethodSpec.methodBuilder("init")
+            .addJavadoc("Load properties from a map of keys to values, such as a {@link $T}.\n", Properties.class)
+            .addJavadoc("Properties missing from the map are reset to their default value. Every property is\n")
+            .addJavadoc("parsed before any field is assigned, so fields are left unchanged if one cannot be\n")
+            .addJavadoc("parsed.\n\n")
+            .addJavadoc("@param source The properties to load. Entries which are not strings are ignored.\n")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
-            .returns(void.class);
+            .addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Map.class),
+                    WildcardTypeName.subtypeOf(Object.class),
+                    WildcardTypeName.subtypeOf(Object.class)),
+                "source")
+            .returns(void.class)
+            .addStatement("$T $N = $T.get()", ConfigMetrics.class, "metrics", ConfigMetrics.class)
+            .addStatement("long $N = $N == null ? 0 : $T.nanoTime()", "start", "metrics", System.class);
 
-        for (Category category : klass.categories) {
-            generate(category, init, klass.propertyPrefix);
-        }
+        Chunker.Holders holders = new Chunker.Holders(type);
+        ChangesBuilder.generateCapture(klass, init, env);
+
+        init.addStatement("$T[] $N = new $T[$L]", Object.class, PARSED_NAME, Object.class, fields.size())
+            .beginControlFlow("for ($T.Entry<?, ?> $N : $N.entrySet())", Map.class, "entry", "source")
+            .addStatement("$T $N = $N.getKey(), $N = $N.getValue()", Object.class, KEY_NAME, "entry", VALUE_NAME,
+                "entry")
+            .beginControlFlow("if ($N instanceof String && $N instanceof String)", KEY_NAME, VALUE_NAME)
+            .addStatement("set($N, (String) $N, (String) $N)", PARSED_NAME, KEY_NAME, VALUE_NAME)
+            .endControlFlow()
+            .endControlFlow();
+        addApply(holders, "apply", fields, 0, fields.size()).call(init);
+
+        if (klass.snapshot) init.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+        ChangesBuilder.generateDispatch(klass, init, env);
         if (klass.sync != null) init.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+        init.beginControlFlow("if ($N != null)", "metrics")
+            .addStatement("$N.load($S, $T.nanoTime() - $N)", "metrics", klass.name, System.class, "start")
+            .endControlFlow();
 
-        TypeSpec.Builder type = TypeSpec.classBuilder(klass.type.getSimpleName() + "PropertyLoader")
-            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+        type.addMethod(
+            MethodSpec.methodBuilder("init")
+                .addJavadoc("Load properties from the system properties\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(void.class)
+                .addCode("// Copy the properties, so they cannot be modified while we read them.\n")
+                .addStatement("init(($T<?, ?>) $T.getProperties().clone())", Map.class, System.class)
+                .build())
+            .addMethod(
+                MethodSpec.methodBuilder("initFromEnvironment")
+                    .addJavadoc("Load properties from environment variables. Variable names are the property's key\n")
+                    .addJavadoc("in upper case, with {@code .} replaced by {@code _}.\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(void.class)
+                    .addStatement("init($T.getenv())", System.class)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("init")
+                    .addJavadoc("Load properties from a {@code .properties} file\n\n")
+                    .addJavadoc("@param file The file to load\n")
+                    .addJavadoc("@throws IOException If the file could not be read\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(File.class, "file")
+                    .addException(IOException.class)
+                    .returns(void.class)
+                    .addStatement("$T $N = new $T()", Properties.class, "properties", Properties.class)
+                    .addStatement("$T $N = new $T($N)", InputStream.class, "stream", FileInputStream.class, "file")
+                    .beginControlFlow("try")
+                    .addStatement("$N.load($N)", "properties", "stream")
+                    .nextControlFlow("finally")
+                    .addStatement("$N.close()", "stream")
+                    .endControlFlow()
+                    .addStatement("init($N)", "properties")
+                    .build())
             .addMethod(init.build());
 
-        addTypeParser(type, "String", String.class, null, null);
-        addTypeParser(type, "Int", int.class, Integer.class, "parseInt");
-        addTypeParser(type, "Double", double.class, Double.class, "parseDouble");
-        addTypeParser(type, "Boolean", boolean.class, Boolean.class, "parseBoolean");
+        addSetter(type, holders, fields, keys);
+        holders.build();
+
+        addListParser(type, "String", String.class, null, null);
+        addListParser(type, "Int", int.class, Integer.class, "parseInt");
+        addListParser(type, "Double", double.class, Double.class, "parseDouble");
+        addListParser(type, "Boolean", boolean.class, Boolean.class, "parseBoolean");
+        addSplit(type);
 
         JavaFile.builder(
             env.getElementUtils()
@@ -46,122 +145,328 @@ public class PropertyBuilder {
             .writeTo(env.getFiler());
     }
 
-    private static void generate(Category category, MethodSpec.Builder spec, String root) {
+    private static void collect(Category category, String root, List<Field> fields, List<String> keys) {
         root += "." + category.type.getSimpleName();
         for (Category child : category.children) {
-            generate(child, spec, root);
+            collect(child, root, fields, keys);
         }
         for (Field field : category.fields) {
-            generate(field, spec, root);
+            if (field.type == null) continue;
+            fields.add(field);
+            keys.add(root + "." + field.field.getSimpleName());
         }
     }
 
     /**
-     * Generate field access
+     * Generate methods which assign fields from the values parsed by a loader, or reset them to their default value
+     * if they were not parsed. These are split into chunks to keep each method small.
      *
-     * @param spec The writer to write to
+     * @param holders The classes to add the generated methods to
+     * @param prefix  The prefix of each generated method's name
+     * @param fields  Every field, in index order
+     * @param start   The index of the first field to assign
+     * @param end     The index after the last field to assign
+     * @return The generated methods, which take the parsed values and should be
+     *         {@linkplain Chunker#call(MethodSpec.Builder) called} by the loading method.
      */
-    private static void generate(Field field, MethodSpec.Builder spec, String root) {
-        if (field.type == null) return;
-
-        spec.addCode("$[");
-        String propName = null;
-        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY) {
-            if (field.type.throughConstructor()) {
-                spec.addCode("$T.$N = new $T(", field.category.type, field.name, field.type.getMirror());
-            } else {
-                propName = field.category.type.getQualifiedName()
-                    .toString()
-                    .replace('.', '_') + "_" + field.name;
-                spec.addCode("$T $N = ", field.baseType, propName);
-            }
-        } else {
-            spec.addCode("$T.$N = ", field.category.type, field.name);
+    static Chunker addApply(Chunker.Holders holders, String prefix, List<Field> fields, int start, int end) {
+        ParameterSpec parsed = ParameterSpec.builder(Object[].class, PARSED_NAME)
+            .build();
+        Chunker apply = new Chunker(holders, prefix, parsed);
+        for (int i = start; i < end; i++) {
+            Field field = fields.get(i);
+            generate(
+                field,
+                apply.next(),
+                CodeBlock.builder()
+                    .add("$N[$L] != null ? ($T) $N[$L] : $L", PARSED_NAME, i, TypeName.get(field.baseType)
+                        .box(), PARSED_NAME, i, getDefault(field))
+                    .build());
         }
+        return apply;
+    }
 
-        spec.addCode("$N($S, ", "get" + field.type.accessName(), root + "." + field.field.getSimpleName());
-
+    /**
+     * Get the expression for a field's default value. Arrays are created as an array, even for collection fields.
+     *
+     * @return The default value's expression
+     */
+    static CodeBlock getDefault(Field field) {
+        CodeBlock.Builder value = CodeBlock.builder();
         if (field.type.getType()
             .isArray()) {
             // A horrible method to get the default
             String format = (field.type.getComponentType()
                 .getType() == TypeHelpers.Type.STRING ? "$S" : "$L") + ", ";
 
-            spec.addCode(
+            value.add(
                 "new $T[]{",
                 field.type.getComponentType()
                     .getMirror());
             int length = Array.getLength(field.defaultValue);
-            for (int i = 0; i < length; i++) {
-                spec.addCode(format, Array.get(field.defaultValue, i));
+            for (int j = 0; j < length; j++) {
+                value.add(format, Array.get(field.defaultValue, j));
             }
-            spec.addCode("}");
+            value.add("}");
         } else {
-            spec.addCode(field.type.getType() == TypeHelpers.Type.STRING ? "$S" : "$L", field.defaultValue);
+            value.add(field.type.getType() == TypeHelpers.Type.STRING ? "$S" : "$L", field.defaultValue);
+        }
+        return value.build();
+    }
+
+    /**
+     * Generate the method which sets a single property from its key. Keys are split into buckets by their hash, each
+     * bucket being a string switch in its own method.
+     *
+     * @param type    The class being generated
+     * @param holders The classes to add each bucket's method to
+     */
+    private static void addSetter(TypeSpec.Builder type, Chunker.Holders holders, List<Field> fields,
+        List<String> keys) {
+        // Each field can be set by its key or its environment variable name. Environment names which are shared by
+        // several fields are skipped, as we cannot tell which field they refer to.
+        Map<String, Integer> names = new HashMap<String, Integer>();
+        for (String key : keys) {
+            names.put(key, 2);
+            String envName = getEnvName(key);
+            Integer count = names.get(envName);
+            names.put(envName, count == null ? 1 : count + 1);
+        }
+
+        List<String> labels = new ArrayList<String>();
+        List<Field> labelFields = new ArrayList<Field>();
+        for (int i = 0; i < fields.size(); i++) {
+            String key = keys.get(i), envName = getEnvName(key);
+            labels.add(key);
+            labelFields.add(fields.get(i));
+            if (names.get(envName) == 1) {
+                labels.add(envName);
+                labelFields.add(fields.get(i));
+            }
+        }
+
+        int buckets = Integer.highestOneBit(Math.max(1, labels.size() / (Chunker.CHUNK / 2)) * 2 - 1);
+        List<List<Integer>> bucketLabels = new ArrayList<List<Integer>>(buckets);
+        for (int i = 0; i < buckets; i++) bucketLabels.add(new ArrayList<Integer>());
+        for (int i = 0; i < labels.size(); i++) {
+            bucketLabels.get(
+                labels.get(i)
+                    .hashCode() & (buckets - 1))
+                .add(i);
+        }
+
+        Map<Field, Integer> indexes = new IdentityHashMap<Field, Integer>();
+        for (int i = 0; i < fields.size(); i++) indexes.put(fields.get(i), i);
+
+        MethodSpec.Builder set = MethodSpec.methodBuilder("set")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(Object[].class, PARSED_NAME)
+            .addParameter(String.class, KEY_NAME)
+            .addParameter(String.class, VALUE_NAME)
+            .returns(void.class);
+
+        // Small configs only have one bucket, so can switch on the key directly.
+        if (buckets == 1) {
+            addCases(set, labels, labelFields, bucketLabels.get(0), indexes);
+            type.addMethod(set.build());
+            return;
         }
 
-        spec.addCode(")");
+        set.beginControlFlow("switch ($N.hashCode() & $L)", KEY_NAME, buckets - 1);
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            List<Integer> contents = bucketLabels.get(bucket);
+            if (contents.isEmpty()) continue;
 
-        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY && field.type.throughConstructor()) {
-            spec.addCode(")");
+            String name = "set" + bucket;
+            Chunker.Holder holder = holders.reserve(contents.size());
+            set.addStatement("case $L: $L($N, $N, $N); break", bucket, holder.qualify(name), PARSED_NAME, KEY_NAME,
+                VALUE_NAME);
+
+            MethodSpec.Builder method = holder.method(name)
+                .addParameter(Object[].class, PARSED_NAME)
+                .addParameter(String.class, KEY_NAME)
+                .addParameter(String.class, VALUE_NAME);
+            addCases(method, labels, labelFields, contents, indexes);
+            holder.add(method);
         }
-        spec.addCode(";\n$]");
 
-        if (propName != null) {
-            spec.addStatement("$T.$N = new $T()", field.category.type, field.name, field.type.getMirror());
+        set.addStatement("default: break")
+            .endControlFlow();
+        type.addMethod(set.build());
+    }
+
+    /**
+     * Generate a switch over the key, parsing the value of each label in a bucket into its field's slot
+     *
+     * @param method      The method to write to
+     * @param labels      Every key and environment name
+     * @param labelFields The field each label sets
+     * @param contents    The indices of the labels in this bucket
+     * @param indexes     The index of each field's slot
+     */
+    private static void addCases(MethodSpec.Builder method, List<String> labels, List<Field> labelFields,
+        List<Integer> contents, Map<Field, Integer> indexes) {
+        method.beginControlFlow("switch ($N)", KEY_NAME);
+        for (int i = 0; i < contents.size(); i++) {
+            int label = contents.get(i);
+            Field field = labelFields.get(label);
+
+            // Merge a key and environment name which fall in the same bucket into one case.
+            method.addCode("case $S:\n", labels.get(label));
+            if (i + 1 < contents.size() && labelFields.get(contents.get(i + 1)) == field) {
+                method.addCode("case $S:\n", labels.get(contents.get(++i)));
+            }
+
+            method.addCode("$>");
+            method.addStatement("$N[$L] = $L", PARSED_NAME, indexes.get(field), getParser(field));
+            method.addStatement("break");
+            method.addCode("$<");
+        }
+        method.addStatement("default: break")
+            .endControlFlow();
+    }
+
+    private static String getEnvName(String key) {
+        return key.toUpperCase(Locale.ENGLISH)
+            .replace('.', '_');
+    }
+
+    /**
+     * Get the expression which parses the current value for a field
+     *
+     * @return The parsing expression
+     */
+    private static CodeBlock getParser(Field field) {
+        switch (field.type.getType()) {
+            case ARRAY:
+            case GENERIC_ARRAY:
+                return CodeBlock.builder()
+                    .add("$N($N)", "parse" + field.type.accessName(), VALUE_NAME)
+                    .build();
+            case INT:
+                return CodeBlock.builder()
+                    .add("$T.parseInt($N)", Integer.class, VALUE_NAME)
+                    .build();
+            case DOUBLE:
+                return CodeBlock.builder()
+                    .add("$T.parseDouble($N)", Double.class, VALUE_NAME)
+                    .build();
+            case BOOLEAN:
+                return CodeBlock.builder()
+                    .add("$T.parseBoolean($N)", Boolean.class, VALUE_NAME)
+                    .build();
+            case STRING:
+            default:
+                return CodeBlock.builder()
+                    .add("$N", VALUE_NAME)
+                    .build();
+        }
+    }
+
+    /**
+     * Generate field assignment
+     *
+     * @param spec  The writer to write to
+     * @param value The expression to assign the field from
+     */
+    static void generate(Field field, MethodSpec.Builder spec, CodeBlock value) {
+        if (ConstantsBuilder.isConstant(field)) {
+            // Once the constants have been copied, the field must keep its value. The value is still evaluated, as it
+            // may be read from a stream.
+            String propName = field.category.type.getQualifiedName()
+                .toString()
+                .replace('.', '_') + "_" + field.name;
+            spec.addStatement("$T $N = $L", field.baseType, propName, value);
+            ConstantsBuilder.generateAssign(
+                field,
+                spec,
+                CodeBlock.builder()
+                    .add("$N", propName)
+                    .build());
+        } else if (field.type.getType() != TypeHelpers.Type.GENERIC_ARRAY) {
+            spec.addStatement("$T.$N = $L", field.category.type, field.name, value);
+        } else if (field.type.throughConstructor()) {
+            spec.addStatement("$T.$N = new $T($L)", field.category.type, field.name, field.type.getMirror(), value);
+        } else {
+            String propName = field.category.type.getQualifiedName()
+                .toString()
+                .replace('.', '_') + "_" + field.name;
+            spec.addStatement("$T $N = $L", field.baseType, propName, value);
+
+            // Fill the collection before assigning it, so other threads never see a partially filled collection.
+            String collectionName = propName + "_collection";
+            spec.addStatement("$T $N = new $T()", field.type.getMirror(), collectionName, field.type.getMirror());
             spec.beginControlFlow(
                 "for($T $N : $N)",
                 field.type.getComponentType()
                     .getMirror(),
                 LOOP_NAME,
                 propName);
-            spec.addStatement("$T.$N.add($N)", field.category.type, field.name, LOOP_NAME);
+            spec.addStatement("$N.add($N)", collectionName, LOOP_NAME);
             spec.endControlFlow();
+            spec.addStatement("$T.$N = $N", field.category.type, field.name, collectionName);
         }
     }
 
-    private static void addTypeParser(TypeSpec.Builder builder, String name, Class<?> klass, Class<?> parserClass,
+    private static void addListParser(TypeSpec.Builder builder, String name, Class<?> klass, Class<?> parserClass,
         String parserMethod) {
-        MethodSpec.Builder getter = MethodSpec.methodBuilder("get" + name)
-            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
-            .addParameter(String.class, "name")
-            .addParameter(klass, "def")
-            .returns(klass)
-            .addStatement("String value = System.getProperty(name)");
-        if (parserClass == null) {
-            getter.addStatement("return value == null ? def : value");
-        } else {
-            getter.addStatement("return value == null ? def : $T.$N(value)", parserClass, parserMethod);
-        }
-
-        builder.addMethod(getter.build());
-
         Class<?> arrayKlass = Array.newInstance(klass, 0)
             .getClass();
-        MethodSpec.Builder listGetter = MethodSpec.methodBuilder("get" + name + "List")
-            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
-            .addParameter(String.class, "name")
-            .addParameter(arrayKlass, "def")
+        // Parsers are called from nested classes, so are package private to avoid generating accessors.
+        MethodSpec.Builder listParser = MethodSpec.methodBuilder("parse" + name + "List")
+            .addModifiers(Modifier.STATIC)
+            .addParameter(String.class, VALUE_NAME)
             .returns(arrayKlass)
-            .addStatement("String value = System.getProperty(name)")
-            .beginControlFlow("if (value == null)")
-            .addStatement("return def")
-            .nextControlFlow("else if (value.isEmpty())")
-            .addStatement("return new $T[0]", klass)
-            .nextControlFlow("else")
-            .addStatement("String[] values = value.split(\",\")");
+            .addStatement("String[] values = split($N)", VALUE_NAME);
 
         if (parserClass == null) {
-            listGetter.addStatement("return values");
+            listParser.addStatement("return values");
         } else {
-            listGetter.addStatement("$T[] outs = new $T[values.length];", klass, klass);
-            listGetter.beginControlFlow("for (int i = 0; i < values.length; i++)");
-            listGetter.addStatement("outs[i] = $T.$N(values[i])", parserClass, parserMethod);
-            listGetter.endControlFlow();
-            listGetter.addStatement("return outs");
+            listParser.addStatement("$T[] outs = new $T[values.length]", klass, klass);
+            listParser.beginControlFlow("for (int i = 0; i < values.length; i++)");
+            listParser.addStatement("outs[i] = $T.$N(values[i])", parserClass, parserMethod);
+            listParser.endControlFlow();
+            listParser.addStatement("return outs");
         }
 
-        listGetter.endControlFlow();
-        builder.addMethod(listGetter.build());
+        builder.addMethod(listParser.build());
+    }
+
+    /**
+     * Generate a method which splits a comma separated list. This behaves like {@code value.split(",")}, but without
+     * compiling a pattern or building an intermediate list.
+     *
+     * @param builder The class being generated
+     */
+    private static void addSplit(TypeSpec.Builder builder) {
+        builder.addMethod(
+            MethodSpec.methodBuilder("split")
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                .addParameter(String.class, VALUE_NAME)
+                .returns(String[].class)
+                .beginControlFlow("if ($N.isEmpty())", VALUE_NAME)
+                .addStatement("return new String[0]")
+                .endControlFlow()
+                .addCode("\n")
+                .addCode("// Trailing empty strings are removed, as with String.split.\n")
+                .addStatement("int end = $N.length()", VALUE_NAME)
+                .beginControlFlow("while (end > 0 && $N.charAt(end - 1) == ',')", VALUE_NAME)
+                .addStatement("end--")
+                .endControlFlow()
+                .addCode("\n")
+                .addStatement("int count = 1")
+                .beginControlFlow("for (int i = 0; i < end; i++)")
+                .addStatement("if ($N.charAt(i) == ',') count++", VALUE_NAME)
+                .endControlFlow()
+                .addCode("\n")
+                .addStatement("String[] values = new String[end == 0 ? 0 : count]")
+                .addStatement("int start = 0")
+                .beginControlFlow("for (int i = 0; i < values.length; i++)")
+                .addStatement("int next = i == values.length - 1 ? end : $N.indexOf(',', start)", VALUE_NAME)
+                .addStatement("values[i] = $N.substring(start, next)", VALUE_NAME)
+                .addStatement("start = next + 1")
+                .endControlFlow()
+                .addStatement("return values")
+                .build());
     }
 }
@@ -0,0 +1,169 @@
+package org.squiddev.configgen.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import org.squiddev.configgen.runtime.ConfigGroup;
+import org.squiddev.configgen.runtime.GeneratedLoader;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Generates a registry of every config in the compilation, which loads and saves them all using a
+ * {@link ConfigGroup}.
+ *
+ * The registry depends on every config, so it is only generated when the {@link #OPTION} processor option is set. It
+ * is generated from each config's Forge loader, using the {@link GeneratedLoader} annotation.
+ *
+ * @see RegistryProcessor
+ */
+public class RegistryBuilder {
+
+    /**
+     * The processor option holding the qualified name of the registry class
+     */
+    public static final String OPTION = "configgen.registry";
+
+    private static final String GROUP_FIELD = "CONFIGS";
+
+    public static void generate(String qualifiedName, List<TypeElement> loaders, ProcessingEnvironment env)
+        throws IOException {
+        int split = qualifiedName.lastIndexOf('.');
+        ClassName name = ClassName.get(
+            split < 0 ? "" : qualifiedName.substring(0, split),
+            qualifiedName.substring(split + 1));
+
+        loaders = new ArrayList<TypeElement>(loaders);
+        Collections.sort(loaders, new Comparator<TypeElement>() {
+
+            @Override
+            public int compare(TypeElement a, TypeElement b) {
+                return a.getAnnotation(GeneratedLoader.class)
+                    .name()
+                    .compareTo(
+                        b.getAnnotation(GeneratedLoader.class)
+                            .name());
+            }
+        });
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addJavadoc("Every config in this project, which can be loaded and saved together.\n\n")
+            .addJavadoc("Configs are loaded and saved in parallel, so their {@code @OnSync} and {@code @OnChange}\n")
+            .addJavadoc("hooks may be called on other threads, at the same time as other configs' hooks. A single\n")
+            .addJavadoc("config's hooks are never called concurrently. Pass an {@link $T} which runs tasks\n",
+                Executor.class)
+            .addJavadoc("immediately to call every hook on the calling thread.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL);
+
+        CodeBlock.Builder group = CodeBlock.builder()
+            .add("new $T(", ConfigGroup.class);
+        for (int i = 0; i < loaders.size(); i++) {
+            TypeElement element = loaders.get(i);
+            GeneratedLoader config = element.getAnnotation(GeneratedLoader.class);
+            if (i > 0 && config.name()
+                .equals(
+                    loaders.get(i - 1)
+                        .getAnnotation(GeneratedLoader.class)
+                        .name())) {
+                env.getMessager()
+                    .printMessage(
+                        Diagnostic.Kind.ERROR,
+                        "Another config is also called '" + config.name() + "'. Set a different @Config(name)",
+                        element);
+            }
+
+            type.addOriginatingElement(element);
+
+            ClassName loader = ClassName.get(element);
+            MethodSpec.Builder save = MethodSpec.methodBuilder("save")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(void.class)
+                .addStatement("$T.sync()", loader);
+            if (config.flush()) save.addStatement("$T.flush()", loader);
+
+            TypeSpec entry = TypeSpec.anonymousClassBuilder("$S", config.name())
+                .superclass(ConfigGroup.Entry.class)
+                .addMethod(
+                    MethodSpec.methodBuilder("init")
+                        .addAnnotation(Override.class)
+                        .addModifiers(Modifier.PROTECTED)
+                        .addParameter(File.class, "file")
+                        .returns(void.class)
+                        .addStatement("$T.init($N)", loader, "file")
+                        .build())
+                .addMethod(save.build())
+                .build();
+            group.add(i == 0 ? "\n$>$>$L" : ",\n$L", entry);
+        }
+        group.add(loaders.isEmpty() ? ")" : "$<$<)");
+
+        type.addField(
+            FieldSpec.builder(ConfigGroup.class, GROUP_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer(group.build())
+                .build())
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("initAll")
+                    .addJavadoc("Load every config from a directory, in parallel on the common fork-join pool. Each\n")
+                    .addJavadoc("config is read from {@code <name>.cfg}.\n\n")
+                    .addJavadoc("@param directory The directory to load from\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(File.class, "directory")
+                    .returns(void.class)
+                    .addStatement("$N.init($N)", GROUP_FIELD, "directory")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("initAll")
+                    .addJavadoc("Load every config from a directory, in parallel. Each config is read from\n")
+                    .addJavadoc("{@code <name>.cfg}.\n\n")
+                    .addJavadoc("@param directory The directory to load from\n")
+                    .addJavadoc("@param executor  The executor to load configs on\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(File.class, "directory")
+                    .addParameter(Executor.class, "executor")
+                    .returns(void.class)
+                    .addStatement("$N.init($N, $N)", GROUP_FIELD, "directory", "executor")
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("saveAll")
+                    .addJavadoc("Sync every config and save any changes, in parallel on the common fork-join pool.\n")
+                    .addJavadoc("This blocks until every config has been written.\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(void.class)
+                    .addStatement("$N.save()", GROUP_FIELD)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("saveAll")
+                    .addJavadoc("Sync every config and save any changes, in parallel. This blocks until every config\n")
+                    .addJavadoc("has been written.\n\n")
+                    .addJavadoc("@param executor The executor to save configs on\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addParameter(Executor.class, "executor")
+                    .returns(void.class)
+                    .addStatement("$N.save($N)", GROUP_FIELD, "executor")
+                    .build());
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+}
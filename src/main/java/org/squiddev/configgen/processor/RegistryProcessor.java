@@ -0,0 +1,78 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+
+import org.squiddev.configgen.Config;
+import org.squiddev.configgen.runtime.GeneratedLoader;
+
+/**
+ * Generates a registry of every {@link Config} class, if the {@link RegistryBuilder#OPTION} option is set.
+ *
+ * As the registry depends on every config, this processor is then aggregating. Gradle reprocesses every type an
+ * aggregating processor is interested in, reading unchanged ones from their class files. Class files have no doc
+ * comments, so configs read from them would generate different loaders. Instead, this processor reads the
+ * {@link GeneratedLoader} annotation of each loader {@link ConfigProcessor} generates, and {@link ConfigProcessor}
+ * stays isolating.
+ */
+@SupportedAnnotationTypes("org.squiddev.configgen.runtime.GeneratedLoader")
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class RegistryProcessor extends AbstractProcessor {
+
+    private final List<TypeElement> loaders = new ArrayList<TypeElement>();
+    private boolean registryWritten;
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> options = new HashSet<String>();
+        options.add(RegistryBuilder.OPTION);
+        options.add(
+            getRegistryName() == null ? "org.gradle.annotation.processing.isolating"
+                : "org.gradle.annotation.processing.aggregating");
+        return options;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> set, RoundEnvironment roundEnvironment) {
+        String registry = getRegistryName();
+        if (registry == null || registryWritten) return true;
+
+        for (Element elem : roundEnvironment.getElementsAnnotatedWith(GeneratedLoader.class)) {
+            loaders.add((TypeElement) elem);
+        }
+
+        // Loaders are generated in the round after their config is found, so wait for a round which finds no new
+        // configs. These are only counted, so they are not reprocessed from class files by Gradle.
+        if (roundEnvironment.getElementsAnnotatedWith(Config.class)
+            .isEmpty() || roundEnvironment.processingOver()) {
+            registryWritten = true;
+            try {
+                RegistryBuilder.generate(registry, loaders, processingEnv);
+            } catch (IOException e) {
+                processingEnv.getMessager()
+                    .printMessage(Diagnostic.Kind.ERROR, "Error writing config registry " + e.toString());
+            }
+        }
+
+        return true;
+    }
+
+    private String getRegistryName() {
+        if (processingEnv == null) return null;
+        String name = processingEnv.getOptions()
+            .get(RegistryBuilder.OPTION);
+        return name == null || name.isEmpty() ? null : name;
+    }
+}
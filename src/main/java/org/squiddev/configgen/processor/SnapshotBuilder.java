@@ -0,0 +1,268 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+import org.squiddev.configgen.runtime.DoubleList;
+import org.squiddev.configgen.runtime.DoubleSet;
+import org.squiddev.configgen.runtime.IntList;
+import org.squiddev.configgen.runtime.IntSet;
+import org.squiddev.configgen.runtime.StringMatcher;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for generating immutable snapshots of a config
+ *
+ * Each category is a nested class, with a field of the same name as the category's class. Properties are copied from
+ * the config's fields when the snapshot is created, so the snapshot is not affected by later syncs. Immutable types,
+ * such as {@link IntSet}, are shared rather than copied, as loaders always assign a new instance.
+ */
+public class SnapshotBuilder {
+
+    private static final String CURRENT_FIELD = "current";
+    private static final String GENERATION_FIELD = "generation";
+    private static final String COUNTER_FIELD = "counter";
+
+    /**
+     * Field types which cannot be modified, and so can be shared with the config rather than copied
+     */
+    private static final Set<String> IMMUTABLE = new HashSet<String>(
+        Arrays.asList(
+            IntSet.class.getName(),
+            DoubleSet.class.getName(),
+            StringMatcher.class.getName(),
+            IntList.class.getName(),
+            DoubleList.class.getName()));
+
+    private final ProcessingEnvironment env;
+    private final Types types;
+
+    private SnapshotBuilder(ProcessingEnvironment env) {
+        this.env = env;
+        this.types = env.getTypeUtils();
+    }
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        new SnapshotBuilder(env).build(klass);
+    }
+
+    /**
+     * Get the name of the snapshot class for a config
+     *
+     * @param klass The config to get the snapshot for
+     * @param env   The current environment
+     * @return The snapshot's class name
+     */
+    public static ClassName getClassName(ConfigClass klass, ProcessingEnvironment env) {
+        return ClassName.get(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            klass.type.getSimpleName() + "Snapshot");
+    }
+
+    private void build(ConfigClass klass) throws IOException {
+        ClassName name = getClassName(klass, env);
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addField(
+                FieldSpec.builder(name, CURRENT_FIELD, Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE)
+                    .initializer("new $T(0)", name)
+                    .build())
+            .addField(long.class, COUNTER_FIELD, Modifier.PRIVATE, Modifier.STATIC)
+            .addField(
+                FieldSpec.builder(long.class, GENERATION_FIELD, Modifier.PUBLIC, Modifier.FINAL)
+                    .addJavadoc("The number of times the config had been synced when this snapshot was taken\n")
+                    .build());
+
+        MethodSpec.Builder constructor = MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE)
+            .addParameter(long.class, GENERATION_FIELD)
+            .addStatement("this.$N = $N", GENERATION_FIELD, GENERATION_FIELD);
+
+        for (Category category : klass.categories) addCategory(category, name, type, constructor);
+
+        type.addMethod(constructor.build())
+            .addMethod(
+                MethodSpec.methodBuilder("get")
+                    .addJavadoc("Get the latest snapshot. This will never be {@code null}, though it will not\n")
+                    .addJavadoc("contain the config's values until the config is first synced.\n\n")
+                    .addJavadoc("@return The latest snapshot\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(name)
+                    .addStatement("return $N", CURRENT_FIELD)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("generation")
+                    .addJavadoc("Get the generation of the latest snapshot. This can be compared against a cached\n")
+                    .addJavadoc("snapshot's {@link #generation} to check whether it is still current.\n\n")
+                    .addJavadoc("@return The latest generation\n")
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .returns(long.class)
+                    .addStatement("return $N.$N", CURRENT_FIELD, GENERATION_FIELD)
+                    .build())
+            .addMethod(
+                MethodSpec.methodBuilder("publish")
+                    .addJavadoc("Take a new snapshot of the config's fields, and make it visible to other threads.\n")
+                    .addModifiers(Modifier.STATIC, Modifier.SYNCHRONIZED)
+                    .returns(void.class)
+                    .addStatement("$N = new $T(++$N)", CURRENT_FIELD, name, COUNTER_FIELD)
+                    .build());
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    /**
+     * Add a category's class and field to its parent
+     *
+     * @param category    The category to add
+     * @param parentName  The name of the parent class
+     * @param parent      The parent class
+     * @param constructor The parent's constructor
+     */
+    private void addCategory(Category category, ClassName parentName, TypeSpec.Builder parent,
+        MethodSpec.Builder constructor) {
+        String simpleName = category.type.getSimpleName()
+            .toString();
+        ClassName name = parentName.nestedClass(simpleName);
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(simpleName)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
+        if (category.description != null) type.addJavadoc("$L\n", category.description.trim());
+
+        MethodSpec.Builder childConstructor = MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE);
+
+        for (Field field : category.fields) addField(field, type, childConstructor);
+        for (Category child : category.children) addCategory(child, name, type, childConstructor);
+
+        parent.addType(
+            type.addMethod(childConstructor.build())
+                .build());
+        parent.addField(name, simpleName, Modifier.PUBLIC, Modifier.FINAL);
+        constructor.addStatement("this.$N = new $T()", simpleName, name);
+    }
+
+    /**
+     * Add a property's field, copying it from the config
+     *
+     * @param field       The property to add
+     * @param type        The category's class
+     * @param constructor The category's constructor
+     */
+    private void addField(Field field, TypeSpec.Builder type, MethodSpec.Builder constructor) {
+        if (field.type == null) return;
+
+        TypeName fieldType;
+        switch (field.type.getType()) {
+            case GENERIC_ARRAY: {
+                if (IMMUTABLE.contains(
+                    types.erasure(field.type.getMirror())
+                        .toString())) {
+                    fieldType = TypeName.get(field.field.asType());
+                    constructor.addStatement("this.$N = $T.$N", field.name, field.category.type, field.name);
+                    break;
+                }
+
+                if (field.type.convertsToArray()) {
+                    fieldType = TypeName.get(field.field.asType());
+                    constructor.addStatement(
+                        "this.$N = $T.$N == null ? null : new $T($T.$N.toArray())",
+                        field.name,
+                        field.category.type,
+                        field.name,
+                        field.type.getMirror(),
+                        field.category.type,
+                        field.name);
+                    break;
+                }
+
+                // Copy into a new collection, so later syncs or changes to the original do not affect us. Fields are
+                // null if the snapshot is taken before the first sync.
+                TypeName component = TypeName.get(
+                    field.type.getComponentType()
+                        .getMirror())
+                    .box();
+                Class<?> kind = getCollectionKind(field.type.getMirror());
+                fieldType = ParameterizedTypeName.get(ClassName.get(kind), component);
+                constructor.addStatement(
+                    "this.$N = $T.$N == null ? null : $T.$N(new $T<$T>($T.$N))",
+                    field.name,
+                    field.category.type,
+                    field.name,
+                    Collections.class,
+                    "unmodifiable" + kind.getSimpleName(),
+                    kind == Set.class ? HashSet.class : ArrayList.class,
+                    component,
+                    field.category.type,
+                    field.name);
+                break;
+            }
+            case ARRAY:
+                fieldType = TypeName.get(field.field.asType());
+                constructor.addStatement(
+                    "this.$N = $T.$N == null ? null : $T.$N.clone()",
+                    field.name,
+                    field.category.type,
+                    field.name,
+                    field.category.type,
+                    field.name);
+                break;
+            default:
+                fieldType = TypeName.get(field.field.asType());
+                constructor.addStatement("this.$N = $T.$N", field.name, field.category.type, field.name);
+                break;
+        }
+
+        FieldSpec.Builder spec = FieldSpec.builder(fieldType, field.name, Modifier.PUBLIC, Modifier.FINAL);
+        if (field.description != null) spec.addJavadoc("$L\n", field.description);
+        if (field.type.getType() == TypeHelpers.Type.ARRAY) {
+            if (field.description != null) spec.addJavadoc("\n");
+            spec.addJavadoc("This array is shared between all readers of the snapshot, so must not be modified.\n");
+        }
+        type.addField(spec.build());
+    }
+
+    /**
+     * Find the most specific collection interface a type implements
+     *
+     * @param mirror The collection type
+     * @return One of {@link List}, {@link Set} or {@link Collection}.
+     */
+    private Class<?> getCollectionKind(TypeMirror mirror) {
+        TypeMirror erased = types.erasure(mirror);
+        if (types.isAssignable(erased, getErasure(List.class))) return List.class;
+        if (types.isAssignable(erased, getErasure(Set.class))) return Set.class;
+        return Collection.class;
+    }
+
+    private TypeMirror getErasure(Class<?> klass) {
+        return types.erasure(
+            env.getElementUtils()
+                .getTypeElement(klass.getName())
+                .asType());
+    }
+}
@@ -0,0 +1,383 @@
+package org.squiddev.configgen.processor;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.type.TypeMirror;
+
+import org.squiddev.configgen.Synced;
+import org.squiddev.configgen.runtime.SyncReader;
+import org.squiddev.configgen.runtime.SyncWriter;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterSpec;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+/**
+ * Builder for codecs which sync {@link Synced} properties from the server to clients
+ *
+ * Each update starts with the fingerprint of the synced schema, so a client with a different version of the config
+ * can reject it without reading any further. This is followed by a bit mask of which properties are included, the
+ * values of any boolean properties packed into bits, and then the remaining values.
+ *
+ * The server keeps a {@code State} for each client, holding the values the client has acknowledged. Only properties
+ * which differ from those values are sent.
+ */
+public class SyncBuilder {
+
+    private static final String LOOP_NAME = "var";
+    private static final String STATE_NAME = "state";
+    private static final String CHANGED_NAME = "changed";
+    private static final String WRITER_NAME = "out";
+    private static final String READER_NAME = "in";
+
+    public static void generate(ConfigClass klass, ProcessingEnvironment env) throws IOException {
+        List<Field> fields = new ArrayList<Field>();
+        for (Category category : klass.categories) collect(category, fields);
+        if (fields.isEmpty()) return;
+
+        ClassName name = ClassName.get(
+            env.getElementUtils()
+                .getPackageOf(klass.type)
+                .getQualifiedName()
+                .toString(),
+            klass.type.getSimpleName() + "SyncCodec");
+        ClassName state = name.nestedClass("State");
+
+        TypeSpec.Builder type = TypeSpec.classBuilder(name.simpleName())
+            .addOriginatingElement(klass.type)
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addField(
+                FieldSpec.builder(long.class, "SCHEMA", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+                    .addJavadoc("The fingerprint of the synced properties. Updates are only accepted by a codec with\n")
+                    .addJavadoc("the same fingerprint.\n")
+                    .initializer("$LL", klass.getSyncFingerprint())
+                    .build());
+
+        ParameterSpec stateParam = ParameterSpec.builder(state, STATE_NAME)
+            .build();
+        ParameterSpec changedParam = ParameterSpec.builder(boolean[].class, CHANGED_NAME)
+            .build();
+        ParameterSpec writerParam = ParameterSpec.builder(SyncWriter.class, WRITER_NAME)
+            .build();
+        ParameterSpec readerParam = ParameterSpec.builder(SyncReader.class, READER_NAME)
+            .build();
+
+        MethodSpec.Builder encode = MethodSpec.methodBuilder("encode")
+            .addJavadoc("Encode the synced properties which have changed since the client last acknowledged an\n")
+            .addJavadoc("update.\n\n")
+            .addJavadoc("@param state The client's state\n")
+            .addJavadoc("@return The update, or {@code null} if the client is already up to date.\n")
+            .addJavadoc("@see #ack(State, int)\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(stateParam)
+            .returns(ByteBuffer.class)
+            .addStatement("boolean[] $N = new boolean[$L]", CHANGED_NAME, fields.size());
+        Chunker.Holders holders = new Chunker.Holders(type);
+        Chunker compare = new Chunker(holders, "compare", stateParam, changedParam);
+        // Values are written from those captured by compare, so a field changing while encoding cannot corrupt the
+        // update or the client's state.
+        Chunker encodeBits = new Chunker(holders, "writeBits", stateParam, changedParam, writerParam);
+        Chunker encodeValues = new Chunker(holders, "writeValues", stateParam, changedParam, writerParam);
+
+        MethodSpec.Builder decode = MethodSpec.methodBuilder("decode")
+            .addJavadoc("Apply an update from the server\n\n")
+            .addJavadoc("@param buffer The update to apply\n")
+            .addJavadoc("@return The update's sequence number, which should be acknowledged to the server.\n")
+            .addJavadoc("@throws IOException If the update is for a different schema or is malformed. Malformed\n")
+            .addJavadoc("updates may have been partially applied.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ByteBuffer.class, "buffer")
+            .addException(IOException.class)
+            .returns(int.class);
+        Chunker decodeBits = new Chunker(holders, "readBits", changedParam, readerParam);
+        Chunker decodeValues = new Chunker(holders, "readValues", changedParam, readerParam)
+            .addException(IOException.class);
+
+        MethodSpec.Builder accept = MethodSpec.methodBuilder("ack")
+            .addJavadoc("Record that a client has applied an update. Acknowledgements for anything but the latest\n")
+            .addJavadoc("update are ignored, so the next update is computed from older values.\n\n")
+            .addJavadoc("@param state    The client's state\n")
+            .addJavadoc("@param sequence The sequence number returned by {@link #decode(ByteBuffer)}\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(stateParam)
+            .addParameter(int.class, "sequence")
+            .returns(void.class)
+            .addStatement("if ($N != $N.sentSequence) return", "sequence", STATE_NAME)
+            .addStatement("$N.known = true", STATE_NAME);
+        Chunker acks = new Chunker(holders, "accept", stateParam);
+
+        TypeSpec.Builder stateType = TypeSpec.classBuilder(state.simpleName())
+            .addJavadoc("The values a client has acknowledged, and those which have been sent to it since. Each\n")
+            .addJavadoc("client should have its own state.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addField(int.class, "sequence")
+            .addField(int.class, "sentSequence")
+            .addField(boolean.class, "known");
+
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            TypeName stored = getStoredType(field);
+            stateType.addField(stored, "acked" + i)
+                .addField(stored, "sent" + i);
+
+            generateCompare(field, i, compare.next());
+            acks.next()
+                .addStatement("$N.$N = $N.$N", STATE_NAME, "acked" + i, STATE_NAME, "sent" + i);
+
+            if (isBoxed(field)) {
+                // Boxed fields may be null, so whether they have a value is sent before the value itself.
+                generateWritePresent(i, encodeBits.next());
+                generateReadPresent(field, i, decodeBits.next());
+            }
+
+            boolean bit = field.type.getType() == TypeHelpers.Type.BOOLEAN;
+            generateWrite(field, i, (bit ? encodeBits : encodeValues).next());
+            generateRead(field, i, (bit ? decodeBits : decodeValues).next());
+        }
+
+        compare.call(encode);
+        encode.beginControlFlow("for (boolean $N : $N)", LOOP_NAME, CHANGED_NAME)
+            .addStatement("if ($N) return encodeChanged($N, $N)", LOOP_NAME, STATE_NAME, CHANGED_NAME)
+            .endControlFlow()
+            .addStatement("return null");
+
+        acks.call(accept);
+
+        MethodSpec.Builder write = MethodSpec.methodBuilder("encodeChanged")
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(stateParam)
+            .addParameter(changedParam)
+            .returns(ByteBuffer.class)
+            .addStatement("$N.sentSequence = ++$N.sequence", STATE_NAME, STATE_NAME)
+            .addStatement("$T $N = new $T()", SyncWriter.class, WRITER_NAME, SyncWriter.class)
+            .addStatement("$N.writeLong(SCHEMA)", WRITER_NAME)
+            .addStatement("$N.writeInt($N.sentSequence)", WRITER_NAME, STATE_NAME)
+            .addStatement("for (boolean $N : $N) $N.writeBit($N)", LOOP_NAME, CHANGED_NAME, WRITER_NAME, LOOP_NAME)
+            .addStatement("$N.align()", WRITER_NAME);
+        encodeBits.call(write);
+        write.addStatement("$N.align()", WRITER_NAME);
+        encodeValues.call(write);
+        write.addStatement("return $N.toBuffer()", WRITER_NAME);
+
+        decode.beginControlFlow("if (!isCompatible($N))", "buffer")
+            .addStatement("throw new $T($S)", IOException.class, "Config sync schema does not match")
+            .endControlFlow()
+            .addCode("\n")
+            .beginControlFlow("try")
+            .addStatement("$T $N = new $T($N)", SyncReader.class, READER_NAME, SyncReader.class, "buffer")
+            .addStatement("$N.readLong()", READER_NAME)
+            .addStatement("int $N = $N.readInt()", "sequence", READER_NAME)
+            .addStatement("boolean[] $N = new boolean[$L]", CHANGED_NAME, fields.size())
+            .addStatement("for (int i = 0; i < $N.length; i++) $N[i] = $N.readBit()", CHANGED_NAME, CHANGED_NAME,
+                READER_NAME)
+            .addStatement("$N.align()", READER_NAME);
+        ChangesBuilder.generateCapture(klass, decode, env);
+        decodeBits.call(decode);
+        decode.addStatement("$N.align()", READER_NAME);
+        decodeValues.call(decode);
+        if (klass.snapshot) decode.addStatement("$T.publish()", SnapshotBuilder.getClassName(klass, env));
+        ChangesBuilder.generateDispatch(klass, decode, env);
+        if (klass.sync != null) decode.addStatement("$T.$N()", klass.type, klass.sync.getSimpleName());
+        decode.addStatement("return $N", "sequence")
+            .nextControlFlow("catch ($T e)", BufferUnderflowException.class)
+            .addStatement("throw new $T($S, e)", IOException.class, "Truncated config sync")
+            .endControlFlow();
+
+        type.addMethod(
+            MethodSpec.methodBuilder("isCompatible")
+                .addJavadoc("Check if an update was encoded with the same schema as this codec\n\n")
+                .addJavadoc("@param buffer The update to check. Its position is not changed.\n")
+                .addJavadoc("@return If the update can be decoded\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(ByteBuffer.class, "buffer")
+                .returns(boolean.class)
+                .addStatement("return $N.remaining() >= 8 && $N.getLong($N.position()) == SCHEMA", "buffer", "buffer",
+                    "buffer")
+                .build())
+            .addMethod(encode.build())
+            .addMethod(accept.build())
+            .addMethod(decode.build())
+            .addMethod(write.build());
+
+        holders.build();
+
+        type.addType(stateType.build());
+
+        JavaFile.builder(name.packageName(), type.build())
+            .build()
+            .writeTo(env.getFiler());
+    }
+
+    private static void collect(Category category, List<Field> fields) {
+        for (Field field : category.fields) {
+            if (field.type != null && field.synced) fields.add(field);
+        }
+        for (Category child : category.children) collect(child, fields);
+    }
+
+    /**
+     * Get the type a field's value is stored as in the client's state. Collections are stored as an array, so they
+     * cannot be modified after being sent.
+     */
+    private static TypeName getStoredType(Field field) {
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY) {
+            return field.type.convertsToArray() ? TypeName.get(field.baseType) : TypeName.get(Object[].class);
+        }
+        return TypeName.get(field.field.asType());
+    }
+
+    /**
+     * Whether a field is a boxed {@link Integer}, {@link Double} or {@link Boolean}, and so may be null
+     */
+    private static boolean isBoxed(Field field) {
+        return !field.field.asType()
+            .getKind()
+            .isPrimitive()
+            && field.type.getMirror()
+                .getKind()
+                .isPrimitive();
+    }
+
+    private static void generateCompare(Field field, int index, MethodSpec.Builder spec) {
+        String acked = "acked" + index, sent = "sent" + index;
+        TypeMirror mirror = field.field.asType();
+
+        CodeBlock differs, value;
+        switch (field.type.getType()) {
+            case ARRAY:
+                differs = CodeBlock.builder()
+                    .add("!$T.equals($T.$N, $N.$N)", Arrays.class, field.category.type, field.name, STATE_NAME, acked)
+                    .build();
+                value = CodeBlock.builder()
+                    .add("$T.$N.clone()", field.category.type, field.name)
+                    .build();
+                break;
+            case GENERIC_ARRAY:
+                differs = CodeBlock.builder()
+                    .add("!$T.equals($T.$N.toArray(), $N.$N)", Arrays.class, field.category.type, field.name,
+                        STATE_NAME, acked)
+                    .build();
+                value = CodeBlock.builder()
+                    .add("$T.$N.toArray()", field.category.type, field.name)
+                    .build();
+                break;
+            default:
+                if (!mirror.getKind()
+                    .isPrimitive()) {
+                    differs = CodeBlock.builder()
+                        .add("!$T.equals($T.$N, $N.$N)", Objects.class, field.category.type, field.name, STATE_NAME,
+                            acked)
+                        .build();
+                } else if (field.type.getType() == TypeHelpers.Type.DOUBLE) {
+                    // Compare the bits, so NaN is equal to itself.
+                    differs = CodeBlock.builder()
+                        .add("$T.doubleToLongBits($T.$N) != $T.doubleToLongBits($N.$N)", Double.class,
+                            field.category.type, field.name, Double.class, STATE_NAME, acked)
+                        .build();
+                } else {
+                    differs = CodeBlock.builder()
+                        .add("$T.$N != $N.$N", field.category.type, field.name, STATE_NAME, acked)
+                        .build();
+                }
+                value = CodeBlock.builder()
+                    .add("$T.$N", field.category.type, field.name)
+                    .build();
+                break;
+        }
+
+        spec.beginControlFlow("if (!$N.known || $L)", STATE_NAME, differs)
+            .addStatement("$N[$L] = true", CHANGED_NAME, index)
+            .addStatement("$N.$N = $L", STATE_NAME, sent, value)
+            .nextControlFlow("else")
+            .addStatement("$N.$N = $N.$N", STATE_NAME, sent, STATE_NAME, acked)
+            .endControlFlow();
+    }
+
+    private static void generateWritePresent(int index, MethodSpec.Builder spec) {
+        spec.addStatement("if ($N[$L]) $N.writeBit($N.$N != null)", CHANGED_NAME, index, WRITER_NAME, STATE_NAME,
+            "sent" + index);
+    }
+
+    private static void generateReadPresent(Field field, int index, MethodSpec.Builder spec) {
+        // Fields without a value are marked as unchanged, so their value is not read.
+        spec.beginControlFlow("if ($N[$L] && !$N.readBit())", CHANGED_NAME, index, READER_NAME)
+            .addStatement("$N[$L] = false", CHANGED_NAME, index);
+        if (ConstantsBuilder.isConstant(field)) {
+            ConstantsBuilder.generateAssign(
+                field,
+                spec,
+                CodeBlock.builder()
+                    .add("null")
+                    .build());
+        } else {
+            spec.addStatement("$T.$N = null", field.category.type, field.name);
+        }
+        spec.endControlFlow();
+    }
+
+    private static void generateWrite(Field field, int index, MethodSpec.Builder spec) {
+        String sent = "sent" + index;
+        CodeBlock.Builder condition = CodeBlock.builder()
+            .add("$N[$L]", CHANGED_NAME, index);
+        if (isBoxed(field)) condition.add(" && $N.$N != null", STATE_NAME, sent);
+
+        switch (field.type.getType()) {
+            case BOOLEAN:
+                spec.addStatement("if ($L) $N.writeBit($N.$N)", condition.build(), WRITER_NAME, STATE_NAME, sent);
+                break;
+            case GENERIC_ARRAY: {
+                if (field.type.convertsToArray()) {
+                    spec.addStatement("if ($N[$L]) $N.$N($N.$N)", CHANGED_NAME, index, WRITER_NAME,
+                        "write" + field.type.accessName(), STATE_NAME, sent);
+                    break;
+                }
+
+                // The collection was stored as an Object[], so each element must be cast back.
+                TypeHelpers.IType component = field.type.getComponentType();
+                String writer = component.getType() == TypeHelpers.Type.BOOLEAN ? "writeBit"
+                    : "write" + component.accessName();
+                spec.beginControlFlow("if ($N[$L])", CHANGED_NAME, index)
+                    .addStatement("$N.writeLength($N.$N.length)", WRITER_NAME, STATE_NAME, sent)
+                    .addStatement("for ($T $N : $N.$N) $N.$N(($T) $N)", Object.class, LOOP_NAME, STATE_NAME, sent,
+                        WRITER_NAME, writer, TypeName.get(component.getMirror())
+                            .box(),
+                        LOOP_NAME);
+                if (component.getType() == TypeHelpers.Type.BOOLEAN) spec.addStatement("$N.align()", WRITER_NAME);
+                spec.endControlFlow();
+                break;
+            }
+            default:
+                spec.addStatement("if ($L) $N.$N($N.$N)", condition.build(), WRITER_NAME,
+                    "write" + field.type.accessName(), STATE_NAME, sent);
+                break;
+        }
+    }
+
+    private static void generateRead(Field field, int index, MethodSpec.Builder spec) {
+        CodeBlock value = CodeBlock.builder()
+            .add("$N.$N()", READER_NAME,
+                field.type.getType() == TypeHelpers.Type.BOOLEAN ? "readBit" : "read" + field.type.accessName())
+            .build();
+
+        if (field.type.getType() == TypeHelpers.Type.GENERIC_ARRAY || ConstantsBuilder.isConstant(field)) {
+            spec.beginControlFlow("if ($N[$L])", CHANGED_NAME, index);
+            PropertyBuilder.generate(field, spec, value);
+            spec.endControlFlow();
+        } else {
+            spec.addStatement("if ($N[$L]) $T.$N = $L", CHANGED_NAME, index, field.category.type, field.name, value);
+        }
+    }
+}
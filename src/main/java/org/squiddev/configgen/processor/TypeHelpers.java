@@ -78,6 +78,14 @@ public final class TypeHelpers {
          */
         boolean throughConstructor();
 
+        /**
+         * Convert the type back to an array with its {@code toArray()} method. Only applies to types initialised
+         * {@link #throughConstructor() through a constructor}, such as {@link org.squiddev.configgen.runtime.IntSet}.
+         *
+         * @return If the type has a {@code toArray()} method returning an array of its component type.
+         */
+        boolean convertsToArray();
+
         /**
          * Get the default value
          *
@@ -141,6 +149,11 @@ public final class TypeHelpers {
             return false;
         }
 
+        @Override
+        public boolean convertsToArray() {
+            return false;
+        }
+
         @Override
         public String toString() {
             return "ArrayPropertyType{" + "component=" + component + ", mirror=" + mirror + '}';
@@ -198,6 +211,11 @@ public final class TypeHelpers {
             return false;
         }
 
+        @Override
+        public boolean convertsToArray() {
+            return false;
+        }
+
         @Override
         public String toString() {
             return type.toString()
@@ -226,6 +244,7 @@ public final class TypeHelpers {
         private final TypeMirror mirror;
         private final IType child;
         private final boolean ctor;
+        private final boolean toArray;
 
         private GenericArray(DeclaredType mirror, Types types) {
             this.mirror = mirror;
@@ -252,10 +271,12 @@ public final class TypeHelpers {
                     }
 
                     this.child = child;
+                    this.toArray = hasToArray(element, child, types);
                     break;
                 }
                 case 1:
                     ctor = false;
+                    toArray = false;
                     child = TypeHelpers.getType(
                         mirror.getTypeArguments()
                             .get(0),
@@ -263,6 +284,7 @@ public final class TypeHelpers {
                     break;
                 default:
                     ctor = false;
+                    toArray = false;
                     child = new BasicType(Type.UNKNOWN, null);
             }
         }
@@ -304,6 +326,33 @@ public final class TypeHelpers {
             return ctor;
         }
 
+        @Override
+        public boolean convertsToArray() {
+            return toArray;
+        }
+
+        private static boolean hasToArray(TypeElement element, IType child, Types types) {
+            if (child.getMirror() == null) return false;
+
+            for (Element childElement : element.getEnclosedElements()) {
+                if (childElement.getKind() != ElementKind.METHOD || !childElement.getSimpleName()
+                    .contentEquals("toArray")) continue;
+
+                ExecutableElement method = (ExecutableElement) childElement;
+                TypeMirror result = method.getReturnType();
+                if (method.getParameters()
+                    .isEmpty()
+                    && method.getModifiers()
+                        .contains(Modifier.PUBLIC)
+                    && result.getKind() == TypeKind.ARRAY
+                    && types.isSameType(((ArrayType) result).getComponentType(), child.getMirror())) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
         @Override
         public Object getDefault() {
             return Array.newInstance(
@@ -0,0 +1,367 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A {@link ConfigBackend} which stores values in memory, and optionally in a {@code .cfg} file, without Forge.
+ *
+ * Values are kept as the strings they are stored as in the file, and looked up by hash rather than through Forge's
+ * property objects. The file is read with {@link ConfigReader} and written with {@link ConfigWriter}, so it can be
+ * shared with Forge.
+ *
+ * This class is not thread safe.
+ */
+public class CfgBackend implements ConfigBackend {
+
+    private final File file;
+    private final Map<String, Category> categories = new HashMap<String, Category>();
+    private final List<Category> roots = new ArrayList<Category>();
+    private boolean changed = false;
+
+    /**
+     * Create a backend which is only stored in memory
+     */
+    public CfgBackend() {
+        this(null);
+    }
+
+    /**
+     * Create a backend stored in a file. Call {@link #load()} to read the file's current contents.
+     *
+     * @param file The file to store values in
+     */
+    public CfgBackend(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Replace the current values with the file's contents. Nothing is loaded if the file does not exist.
+     *
+     * @throws IOException If the file could not be read or is malformed
+     */
+    public void load() throws IOException {
+        categories.clear();
+        roots.clear();
+        changed = false;
+        if (file == null || !file.exists()) return;
+
+        ConfigReader.read(file, new ConfigReader.Handler() {
+
+            @Override
+            public void value(String category, String name, String value) {
+                getCategory(category).properties.put(name, new Entry(value, null));
+            }
+
+            @Override
+            public void list(String category, String name, String[] values) {
+                getCategory(category).properties.put(name, new Entry(null, values));
+            }
+        });
+
+        changed = false;
+    }
+
+    /**
+     * Check if any values have changed since they were last loaded or committed
+     *
+     * @return If there are unsaved changes
+     */
+    public boolean hasChanged() {
+        return changed;
+    }
+
+    @Override
+    public void category(String category, String comment) {
+        Category cat = getCategory(category);
+        if (comment != null && !comment.equals(cat.comment)) {
+            cat.comment = comment;
+            changed = true;
+        }
+    }
+
+    @Override
+    public int getInt(String category, String name, int defaultValue, String comment) {
+        Entry entry = get(category, name, 'I', comment);
+        if (entry != null && entry.value != null) {
+            try {
+                return Integer.parseInt(entry.value);
+            } catch (NumberFormatException ignored) {}
+        }
+        set(category, name, 'I', Integer.toString(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public double getDouble(String category, String name, double defaultValue, String comment) {
+        Entry entry = get(category, name, 'D', comment);
+        if (entry != null && entry.value != null) {
+            try {
+                return Double.parseDouble(entry.value);
+            } catch (NumberFormatException ignored) {}
+        }
+        set(category, name, 'D', Double.toString(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public boolean getBoolean(String category, String name, boolean defaultValue, String comment) {
+        Entry entry = get(category, name, 'B', comment);
+        if (entry != null && entry.value != null) {
+            try {
+                return ConfigReader.parseBoolean(entry.value);
+            } catch (IllegalArgumentException ignored) {}
+        }
+        set(category, name, 'B', Boolean.toString(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public String getString(String category, String name, String defaultValue, String comment) {
+        Entry entry = get(category, name, 'S', comment);
+        if (entry != null && entry.value != null) return entry.value;
+        set(category, name, 'S', defaultValue).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public int[] getIntList(String category, String name, int[] defaultValue, String comment) {
+        Entry entry = get(category, name, 'I', comment);
+        if (entry != null && entry.values != null) return ConfigReader.parseIntList(entry.values);
+        set(category, name, 'I', toStrings(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public double[] getDoubleList(String category, String name, double[] defaultValue, String comment) {
+        Entry entry = get(category, name, 'D', comment);
+        if (entry != null && entry.values != null) return ConfigReader.parseDoubleList(entry.values);
+        set(category, name, 'D', toStrings(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public boolean[] getBooleanList(String category, String name, boolean[] defaultValue, String comment) {
+        Entry entry = get(category, name, 'B', comment);
+        if (entry != null && entry.values != null) return ConfigReader.parseBooleanList(entry.values);
+        set(category, name, 'B', toStrings(defaultValue)).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public String[] getStringList(String category, String name, String[] defaultValue, String comment) {
+        Entry entry = get(category, name, 'S', comment);
+        if (entry != null && entry.values != null) return entry.values.clone();
+        set(category, name, 'S', defaultValue.clone()).comment = comment;
+        return defaultValue;
+    }
+
+    @Override
+    public void setInt(String category, String name, int value) {
+        set(category, name, 'I', Integer.toString(value));
+    }
+
+    @Override
+    public void setDouble(String category, String name, double value) {
+        set(category, name, 'D', Double.toString(value));
+    }
+
+    @Override
+    public void setBoolean(String category, String name, boolean value) {
+        set(category, name, 'B', Boolean.toString(value));
+    }
+
+    @Override
+    public void setString(String category, String name, String value) {
+        set(category, name, 'S', value);
+    }
+
+    @Override
+    public void setIntList(String category, String name, int[] value) {
+        set(category, name, 'I', toStrings(value));
+    }
+
+    @Override
+    public void setDoubleList(String category, String name, double[] value) {
+        set(category, name, 'D', toStrings(value));
+    }
+
+    @Override
+    public void setBooleanList(String category, String name, boolean[] value) {
+        set(category, name, 'B', toStrings(value));
+    }
+
+    @Override
+    public void setStringList(String category, String name, String[] value) {
+        set(category, name, 'S', value.clone());
+    }
+
+    /**
+     * Write the values to the file if they have changed. In-memory backends just discard the changed flag.
+     *
+     * @throws IOException If the file could not be written
+     */
+    @Override
+    public void commit() throws IOException {
+        if (!changed) return;
+        if (file != null) write().writeTo(file);
+        changed = false;
+    }
+
+    /**
+     * Write the values in the same layout as Forge
+     *
+     * @return The writer containing the values
+     */
+    public ConfigWriter write() {
+        ConfigWriter out = new ConfigWriter();
+
+        // Forge sorts root categories by name, and properties within a category by name.
+        Category[] sorted = roots.toArray(new Category[roots.size()]);
+        Arrays.sort(sorted);
+        for (Category category : sorted) write(out, category);
+        return out;
+    }
+
+    private static void write(ConfigWriter out, Category category) {
+        out.startCategory(category.name, category.comment);
+        for (Map.Entry<String, Entry> property : new TreeMap<String, Entry>(category.properties).entrySet()) {
+            Entry entry = property.getValue();
+            if (entry.values != null) {
+                out.list(entry.type, property.getKey(), entry.comment, Arrays.asList(entry.values));
+            } else {
+                out.property(entry.type, property.getKey(), entry.comment, entry.value);
+            }
+        }
+        for (Category child : category.children) write(out, child);
+        out.endCategory();
+    }
+
+    private Entry get(String category, String name, char type, String comment) {
+        Category cat = categories.get(category);
+        if (cat == null) return null;
+
+        Entry entry = cat.properties.get(name);
+        if (entry == null) return null;
+
+        entry.type = type;
+        if (comment != null && !comment.equals(entry.comment)) {
+            entry.comment = comment;
+            changed = true;
+        }
+        return entry;
+    }
+
+    private Entry set(String category, String name, char type, String value) {
+        Map<String, Entry> properties = getCategory(category).properties;
+        Entry entry = properties.get(name);
+        if (entry == null) {
+            entry = new Entry(value, null);
+            properties.put(name, entry);
+            changed = true;
+        } else if (entry.values != null || !value.equals(entry.value)) {
+            entry.value = value;
+            entry.values = null;
+            changed = true;
+        }
+        entry.type = type;
+        return entry;
+    }
+
+    private Entry set(String category, String name, char type, String[] values) {
+        Map<String, Entry> properties = getCategory(category).properties;
+        Entry entry = properties.get(name);
+        if (entry == null) {
+            entry = new Entry(null, values);
+            properties.put(name, entry);
+            changed = true;
+        } else if (!Arrays.equals(values, entry.values)) {
+            entry.value = null;
+            entry.values = values;
+            changed = true;
+        }
+        entry.type = type;
+        return entry;
+    }
+
+    private static String[] toStrings(int[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Integer.toString(values[i]);
+        return strings;
+    }
+
+    private static String[] toStrings(double[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Double.toString(values[i]);
+        return strings;
+    }
+
+    private static String[] toStrings(boolean[] values) {
+        String[] strings = new String[values.length];
+        for (int i = 0; i < values.length; i++) strings[i] = Boolean.toString(values[i]);
+        return strings;
+    }
+
+    private Category getCategory(String name) {
+        Category category = categories.get(name);
+        if (category != null) return category;
+
+        int split = name.lastIndexOf('.');
+        if (split >= 0) {
+            Category parent = getCategory(name.substring(0, split));
+            category = new Category(name.substring(split + 1));
+            parent.children.add(category);
+        } else {
+            category = new Category(name);
+            roots.add(category);
+        }
+
+        categories.put(name, category);
+        changed = true;
+        return category;
+    }
+
+    private static final class Category implements Comparable<Category> {
+
+        final String name;
+        final Map<String, Entry> properties = new HashMap<String, Entry>();
+        final List<Category> children = new ArrayList<Category>();
+        String comment;
+
+        Category(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Category other) {
+            return name.compareTo(other.name);
+        }
+    }
+
+    private static final class Entry {
+
+        String value;
+        String[] values;
+        String comment;
+
+        /**
+         * The type the property was last read or written as. This is only used when writing the file.
+         */
+        char type = 'S';
+
+        Entry(String value, String[] values) {
+            this.value = value;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.IOException;
+
+/**
+ * Stores config values, so generated backend loaders can be used with or without Forge.
+ *
+ * Categories are identified by their qualified name, with nested categories separated by {@code .}. Getters behave
+ * like Forge's: if a property is missing or cannot be parsed, it is set to the default value, which is then returned.
+ * Changes do not need to be persisted until {@link #commit()} is called.
+ *
+ * @see ForgeBackend
+ * @see CfgBackend
+ */
+public interface ConfigBackend {
+
+    /**
+     * Describe a category, creating it if it does not exist
+     *
+     * @param category The qualified name of the category
+     * @param comment  The category's comment, or {@code null}
+     */
+    void category(String category, String comment);
+
+    int getInt(String category, String name, int defaultValue, String comment);
+
+    double getDouble(String category, String name, double defaultValue, String comment);
+
+    boolean getBoolean(String category, String name, boolean defaultValue, String comment);
+
+    String getString(String category, String name, String defaultValue, String comment);
+
+    int[] getIntList(String category, String name, int[] defaultValue, String comment);
+
+    double[] getDoubleList(String category, String name, double[] defaultValue, String comment);
+
+    boolean[] getBooleanList(String category, String name, boolean[] defaultValue, String comment);
+
+    String[] getStringList(String category, String name, String[] defaultValue, String comment);
+
+    void setInt(String category, String name, int value);
+
+    void setDouble(String category, String name, double value);
+
+    void setBoolean(String category, String name, boolean value);
+
+    void setString(String category, String name, String value);
+
+    void setIntList(String category, String name, int[] value);
+
+    void setDoubleList(String category, String name, double[] value);
+
+    void setBooleanList(String category, String name, boolean[] value);
+
+    void setStringList(String category, String name, String[] value);
+
+    /**
+     * Persist any changes made since the last commit
+     *
+     * @throws IOException If the changes could not be saved
+     */
+    void commit() throws IOException;
+}
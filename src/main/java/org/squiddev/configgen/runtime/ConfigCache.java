@@ -0,0 +1,252 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A binary cache of a config's synced values, stored next to the config file.
+ *
+ * The cache is only used if it was written by a config with the same schema, and the config file has the same size,
+ * modification time and hash as when the cache was written. Otherwise the config file must be parsed as normal.
+ *
+ * The whole cache is read and checksummed before any values are returned, so a truncated or corrupt cache is never
+ * partially applied.
+ */
+public final class ConfigCache {
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0x43474331; // CGC1
+
+    private ConfigCache() {}
+
+    /**
+     * Get the file a config's cache is stored in
+     *
+     * @param config The config file
+     * @return The cache file
+     */
+    public static File getFile(File config) {
+        return new File(config.getPath() + ".cache");
+    }
+
+    /**
+     * Open a config's cache, if it is still valid
+     *
+     * @param config The config file
+     * @param schema The fingerprint of the config's schema
+     * @return A stream of the cached values, or {@code null} if there is no valid cache.
+     */
+    public static DataInputStream open(File config, long schema) {
+        File file = getFile(config);
+        if (!file.isFile() || !config.isFile()) return null;
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+            if (in.readInt() != MAGIC || in.readLong() != schema) return null;
+            if (in.readLong() != config.length() || in.readLong() != config.lastModified()) return null;
+            if (in.readLong() != hash(config)) return null;
+
+            long checksum = in.readLong();
+            byte[] contents = new byte[readLength(in, 1)];
+            in.readFully(contents);
+
+            CRC32 crc = new CRC32();
+            crc.update(contents, 0, contents.length);
+            if (crc.getValue() != checksum) return null;
+
+            return new DataInputStream(new ByteArrayInputStream(contents));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read config cache " + file, e);
+            return null;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot read config cache " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write a config's cache. Errors are logged rather than thrown, as the config can always be read without one.
+     *
+     * @param config The config file, which should already have been saved
+     * @param schema The fingerprint of the config's schema
+     * @param values Writes the config's values
+     */
+    public static void write(File config, long schema, Values values) {
+        File file = getFile(config);
+        try {
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            DataOutputStream contentsOut = new DataOutputStream(contents);
+            values.write(contentsOut);
+            contentsOut.flush();
+
+            CRC32 crc = new CRC32();
+            crc.update(contents.toByteArray(), 0, contents.size());
+
+            File temp = new File(file.getPath() + ".tmp");
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(temp));
+            try {
+                out.writeInt(MAGIC);
+                out.writeLong(schema);
+                out.writeLong(config.length());
+                out.writeLong(config.lastModified());
+                out.writeLong(hash(config));
+                out.writeLong(crc.getValue());
+                out.writeInt(contents.size());
+                contents.writeTo(out);
+            } finally {
+                out.close();
+            }
+
+            try {
+                Files.move(
+                    temp.toPath(),
+                    file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write config cache " + file, e);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cannot write config cache " + file, e);
+        }
+    }
+
+    private static long hash(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        InputStream in = new FileInputStream(file);
+        try {
+            int read;
+            while ((read = in.read(buffer)) > 0) crc.update(buffer, 0, read);
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a config's values to the cache
+     */
+    public interface Values {
+
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Read the length of an array, checking it fits in the rest of the cache. This stops a corrupt length from
+     * allocating a huge or negative array.
+     *
+     * @param in      The stream to read from, which must be backed by a byte array
+     * @param minSize The smallest number of bytes each element can take
+     * @return The array's length
+     * @throws IOException If the length is negative or longer than the remaining data
+     */
+    private static int readLength(DataInputStream in, int minSize) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available() / minSize) {
+            throw new IOException("Length " + length + " does not fit in the remaining data");
+        }
+        return length;
+    }
+
+    public static int readInt(DataInputStream in) throws IOException {
+        return in.readInt();
+    }
+
+    public static double readDouble(DataInputStream in) throws IOException {
+        return in.readDouble();
+    }
+
+    public static boolean readBoolean(DataInputStream in) throws IOException {
+        return in.readBoolean();
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in, 1)];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static int[] readIntList(DataInputStream in) throws IOException {
+        int[] values = new int[readLength(in, 4)];
+        for (int i = 0; i < values.length; i++) values[i] = in.readInt();
+        return values;
+    }
+
+    public static double[] readDoubleList(DataInputStream in) throws IOException {
+        double[] values = new double[readLength(in, 8)];
+        for (int i = 0; i < values.length; i++) values[i] = in.readDouble();
+        return values;
+    }
+
+    public static boolean[] readBooleanList(DataInputStream in) throws IOException {
+        boolean[] values = new boolean[readLength(in, 1)];
+        for (int i = 0; i < values.length; i++) values[i] = in.readBoolean();
+        return values;
+    }
+
+    public static String[] readStringList(DataInputStream in) throws IOException {
+        // Each string is prefixed by its length.
+        String[] values = new String[readLength(in, 4)];
+        for (int i = 0; i < values.length; i++) values[i] = readString(in);
+        return values;
+    }
+
+    public static void writeInt(DataOutputStream out, int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public static void writeDouble(DataOutputStream out, double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    public static void writeBoolean(DataOutputStream out, boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        // Unlike writeUTF, this is not limited to 64KB.
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static void writeIntList(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) out.writeInt(value);
+    }
+
+    public static void writeDoubleList(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) out.writeDouble(value);
+    }
+
+    public static void writeBooleanList(DataOutputStream out, boolean[] values) throws IOException {
+        out.writeInt(values.length);
+        for (boolean value : values) out.writeBoolean(value);
+    }
+
+    public static void writeStringList(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) writeString(out, value);
+    }
+}
@@ -0,0 +1,105 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The descriptions of a config's categories and properties, stored in a resource rather than as string constants.
+ *
+ * The resource is only read the first time a description is requested, so configs which never write comments or show
+ * a GUI do not need to load them at all.
+ */
+public final class ConfigDescriptions {
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0x43474431; // CGD1
+
+    private final Class<?> owner;
+    private final String resource;
+    private volatile String[] descriptions;
+
+    /**
+     * @param owner    The class to load the resource relative to
+     * @param resource The name of the resource
+     */
+    public ConfigDescriptions(Class<?> owner, String resource) {
+        this.owner = owner;
+        this.resource = resource;
+    }
+
+    /**
+     * Get a description, loading the resource if needed
+     *
+     * @param index The index of the description
+     * @return The description, or {@code null} if the resource could not be read.
+     */
+    public String get(int index) {
+        String[] descriptions = this.descriptions;
+        if (descriptions == null) descriptions = load();
+        return index < descriptions.length ? descriptions[index] : null;
+    }
+
+    private synchronized String[] load() {
+        String[] descriptions = this.descriptions;
+        if (descriptions != null) return descriptions;
+
+        try {
+            descriptions = read();
+        } catch (IOException e) {
+            LOGGER.error("Cannot read config descriptions " + resource, e);
+            descriptions = new String[0];
+        }
+
+        return this.descriptions = descriptions;
+    }
+
+    private String[] read() throws IOException {
+        InputStream stream = owner.getResourceAsStream(resource);
+        if (stream == null) throw new IOException("No such resource");
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        try {
+            if (in.readInt() != MAGIC) throw new IOException("Invalid header");
+
+            String[] descriptions = new String[in.readInt()];
+            for (int i = 0; i < descriptions.length; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                descriptions[i] = new String(bytes, UTF_8);
+            }
+            return descriptions;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Write descriptions in the format read by this class
+     *
+     * @param stream       The stream to write to. This is not closed.
+     * @param descriptions The descriptions to write
+     * @throws IOException If the stream could not be written to
+     */
+    public static void write(OutputStream stream, List<String> descriptions) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(descriptions.size());
+        for (String description : descriptions) {
+            byte[] bytes = description.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+}
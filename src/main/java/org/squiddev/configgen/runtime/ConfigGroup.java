@@ -0,0 +1,187 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A fixed set of configs which are loaded and saved together. This is used by the generated registry, which lists
+ * every {@code @Config} class in a project.
+ *
+ * Configs are independent of each other, so they are loaded and saved in parallel, on the common fork-join pool
+ * unless another executor is given. This means a config's {@code @OnSync} and {@code @OnChange} hooks may be called
+ * on the executor's threads, at the same time as other configs' hooks. A single config's hooks are never called
+ * concurrently by the group. Pass an executor which runs tasks immediately to call every hook on the calling thread.
+ */
+public final class ConfigGroup {
+
+    /**
+     * A single config within the group
+     */
+    public abstract static class Entry {
+
+        private final String name;
+
+        protected Entry(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Load this config from its file and sync it
+         *
+         * @param file The file to load from
+         */
+        protected abstract void init(File file);
+
+        /**
+         * Sync this config and write any changes to disk, blocking until they have been written
+         */
+        protected abstract void save();
+    }
+
+    private final Entry[] entries;
+
+    public ConfigGroup(Entry... entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Get the file a config is stored in
+     *
+     * @param directory The directory containing every config
+     * @param name      The name of the config
+     * @return The config's file
+     */
+    public static File getFile(File directory, String name) {
+        return new File(directory, name + ".cfg");
+    }
+
+    /**
+     * Load every config from a directory on the common fork-join pool
+     *
+     * @param directory The directory to load from
+     */
+    public void init(File directory) {
+        init(directory, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Load every config from a directory
+     *
+     * @param directory The directory to load from
+     * @param executor  The executor to load configs on
+     */
+    public void init(final File directory, Executor executor) {
+        List<Task> tasks = new ArrayList<Task>(entries.length);
+        for (final Entry entry : entries) {
+            tasks.add(new Task() {
+
+                @Override
+                void perform() {
+                    entry.init(getFile(directory, entry.name));
+                }
+            });
+        }
+        run(tasks, executor);
+    }
+
+    /**
+     * Sync and save every config on the common fork-join pool
+     */
+    public void save() {
+        save(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Sync and save every config
+     *
+     * @param executor The executor to save configs on
+     */
+    public void save(Executor executor) {
+        List<Task> tasks = new ArrayList<Task>(entries.length);
+        for (final Entry entry : entries) {
+            tasks.add(new Task() {
+
+                @Override
+                void perform() {
+                    entry.save();
+                }
+            });
+        }
+        run(tasks, executor);
+    }
+
+    /**
+     * Run tasks in parallel, waiting for all of them to finish. A failing config does not stop the others from being
+     * loaded or saved.
+     *
+     * @param tasks    The tasks to run
+     * @param executor The executor to run them on
+     */
+    private static void run(List<Task> tasks, Executor executor) {
+        if (tasks.size() == 1) {
+            tasks.get(0)
+                .run();
+        } else {
+            CountDownLatch latch = new CountDownLatch(tasks.size());
+            for (Task task : tasks) {
+                task.latch = latch;
+                executor.execute(task);
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    // Configs may still be being written, so keep waiting for them.
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread()
+                .interrupt();
+        }
+
+        RuntimeException error = null;
+        for (Task task : tasks) {
+            if (task.error == null) continue;
+            if (task.error instanceof Error) throw (Error) task.error;
+
+            if (error == null) {
+                error = (RuntimeException) task.error;
+            } else {
+                error.addSuppressed(task.error);
+            }
+        }
+        if (error != null) throw error;
+    }
+
+    /**
+     * A task which loads or saves a single config. Exceptions are stored rather than thrown, so they are rethrown on
+     * the calling thread as they were originally thrown.
+     */
+    private abstract static class Task implements Runnable {
+
+        Throwable error;
+        CountDownLatch latch;
+
+        abstract void perform();
+
+        @Override
+        public final void run() {
+            try {
+                perform();
+            } catch (RuntimeException e) {
+                error = e;
+            } catch (Error e) {
+                error = e;
+            } finally {
+                if (latch != null) latch.countDown();
+            }
+        }
+    }
+}
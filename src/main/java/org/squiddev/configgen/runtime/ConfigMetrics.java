@@ -0,0 +1,108 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Receives timings from generated loaders.
+ *
+ * Loaders call {@link #get()} once per operation, and skip all timing if it returns {@code null}, so an unused hook
+ * costs a single volatile read. Every method does nothing by default, so implementations only need to override the
+ * events they are interested in.
+ *
+ * The hook is either set with {@link #set(ConfigMetrics)}, or found with {@link ServiceLoader}. Otherwise, JDK Flight
+ * Recorder events can be emitted by setting the {@value #JFR_PROPERTY} system property to {@code true}. There is no
+ * hook by default.
+ *
+ * Configs are identified by their name, which defaults to the config class's name. Methods may be called from any
+ * thread, and should return quickly.
+ */
+public abstract class ConfigMetrics {
+
+    /**
+     * The system property which enables Flight Recorder events, if no other hook is provided
+     */
+    public static final String JFR_PROPERTY = "configgen.jfr";
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+
+    private static volatile ConfigMetrics instance = find();
+
+    /**
+     * Get the current hook
+     *
+     * @return The current hook, or {@code null} if timings are not being recorded.
+     */
+    public static ConfigMetrics get() {
+        return instance;
+    }
+
+    /**
+     * Set the current hook
+     *
+     * @param metrics The hook to use, or {@code null} to stop recording timings.
+     */
+    public static void set(ConfigMetrics metrics) {
+        instance = metrics;
+    }
+
+    private static ConfigMetrics find() {
+        try {
+            Iterator<ConfigMetrics> providers = ServiceLoader.load(ConfigMetrics.class)
+                .iterator();
+            if (providers.hasNext()) return providers.next();
+        } catch (ServiceConfigurationError e) {
+            LOGGER.error("Cannot load config metrics", e);
+        }
+
+        return Boolean.getBoolean(JFR_PROPERTY) ? JfrMetrics.create() : null;
+    }
+
+    /**
+     * Called when a config has been loaded from its file or from properties, including the initial sync.
+     *
+     * @param config The config's name
+     * @param nanos  The time taken, in nanoseconds
+     */
+    public void load(String config, long nanos) {}
+
+    /**
+     * Called when a config has been synced
+     *
+     * @param config  The config's name
+     * @param nanos   The time taken, in nanoseconds. This includes the time taken by every category and by the
+     *                {@code @OnSync} method.
+     * @param changed The number of fields which changed, or {@code -1} if the config does not track changes.
+     */
+    public void sync(String config, long nanos, int changed) {}
+
+    /**
+     * Called when a root category has been synced, including any sub-categories
+     *
+     * @param config   The config's name
+     * @param category The category's name
+     * @param nanos    The time taken, in nanoseconds
+     */
+    public void syncCategory(String config, String category, long nanos) {}
+
+    /**
+     * Called when a config's {@code @OnSync} method and change listeners have run
+     *
+     * @param config The config's name
+     * @param nanos  The time taken, in nanoseconds
+     */
+    public void onSync(String config, long nanos) {}
+
+    /**
+     * Called when a config has been written to disk
+     *
+     * @param config The config's name
+     * @param nanos  The time taken, in nanoseconds
+     * @param bytes  The size of the written file
+     */
+    public void save(String config, long nanos, long bytes) {}
+}
@@ -0,0 +1,286 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads Forge's {@code .cfg} format in a single pass, without building a {@code Configuration}.
+ *
+ * The file is read into one buffer (or mapped, if it is large) and parsed in place. Each property is passed to a
+ * {@link Handler} as soon as it has been read, along with the qualified name of its category. Comments, the config
+ * version and property types are skipped, as the handler already knows what type each property should be.
+ */
+public final class ConfigReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Files larger than this are mapped, rather than copied onto the heap
+     */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    private ConfigReader() {}
+
+    /**
+     * Receives properties as they are read
+     */
+    public interface Handler {
+
+        /**
+         * Handle a single valued property
+         *
+         * @param category The qualified name of the property's category
+         * @param name     The name of the property
+         * @param value    The property's value
+         */
+        void value(String category, String name, String value);
+
+        /**
+         * Handle a list property
+         *
+         * @param category The qualified name of the property's category
+         * @param name     The name of the property
+         * @param values   The property's values
+         */
+        void list(String category, String name, String[] values);
+    }
+
+    /**
+     * Read a config file
+     *
+     * @param file    The file to read
+     * @param handler The handler to pass properties to
+     * @throws IOException If the file could not be read or is malformed
+     */
+    public static void read(File file, Handler handler) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Config file " + file + " is too large");
+
+            ByteBuffer buffer;
+            if (size > MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+                buffer.flip();
+            }
+
+            read(buffer, handler);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Read a config file's contents
+     *
+     * @param buffer  The UTF-8 encoded contents, from its position to its limit
+     * @param handler The handler to pass properties to
+     * @throws IOException If the contents are malformed
+     */
+    public static void read(ByteBuffer buffer, Handler handler) throws IOException {
+        List<String> categories = new ArrayList<String>();
+        String category = null;
+
+        String listName = null;
+        List<String> list = null;
+
+        int pos = buffer.position(), limit = buffer.limit(), line = 0;
+
+        // Skip the byte order mark, if present.
+        if (limit - pos >= 3 && (buffer.get(pos) & 0xFF) == 0xEF && (buffer.get(pos + 1) & 0xFF) == 0xBB
+            && (buffer.get(pos + 2) & 0xFF) == 0xBF) {
+            pos += 3;
+        }
+
+        while (pos < limit) {
+            line++;
+            int start = pos, end = pos;
+            while (end < limit && buffer.get(end) != '\n') end++;
+            pos = end + 1;
+
+            // Values are kept as they are, apart from the line ending.
+            int rawEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+
+            while (start < end && isWhitespace(buffer.get(start))) start++;
+            while (end > start && isWhitespace(buffer.get(end - 1))) end--;
+            if (start == end) continue;
+
+            byte first = buffer.get(start);
+            if (list != null) {
+                if (first == '>' && end == start + 1) {
+                    handler.list(category, listName, list.toArray(new String[list.size()]));
+                    listName = null;
+                    list = null;
+                } else {
+                    list.add(decode(buffer, start, end));
+                }
+                continue;
+            }
+
+            if (first == '#' || first == '~') continue;
+
+            if (first == '}') {
+                if (categories.isEmpty()) throw new IOException("Unexpected '}' on line " + line);
+                categories.remove(categories.size() - 1);
+                category = categories.isEmpty() ? null : categories.get(categories.size() - 1);
+                continue;
+            }
+
+            // Values may end with a '{' too, so only treat this as a category if there is no value.
+            if (buffer.get(end - 1) == '{' && indexOf(buffer, start, end, '=') < 0) {
+                int nameEnd = end - 1;
+                while (nameEnd > start && isWhitespace(buffer.get(nameEnd - 1))) nameEnd--;
+                if (nameEnd - start >= 2 && first == '"' && buffer.get(nameEnd - 1) == '"') {
+                    start++;
+                    nameEnd--;
+                }
+
+                String name = decode(buffer, start, nameEnd);
+                category = category == null ? name : category + "." + name;
+                categories.add(category);
+                continue;
+            }
+
+            if (category == null) throw new IOException("Property outside of a category on line " + line);
+
+            // Skip the type prefix
+            if (end - start > 2 && buffer.get(start + 1) == ':') start += 2;
+
+            String name;
+            int index;
+            if (buffer.get(start) == '"') {
+                index = start + 1;
+                while (index < end && buffer.get(index) != '"') index++;
+                if (index == end) throw new IOException("Unterminated name on line " + line);
+                name = decode(buffer, start + 1, index);
+                index++;
+            } else {
+                index = start;
+                while (index < end) {
+                    byte current = buffer.get(index);
+                    if (current == '=' || current == '<' || isWhitespace(current)) break;
+                    index++;
+                }
+                name = decode(buffer, start, index);
+            }
+
+            while (index < end && isWhitespace(buffer.get(index))) index++;
+            if (index < end && buffer.get(index) == '=') {
+                handler.value(category, name, decode(buffer, index + 1, rawEnd));
+            } else if (index < end && buffer.get(index) == '<') {
+                listName = name;
+                list = new ArrayList<String>();
+            } else {
+                throw new IOException("Malformed property on line " + line);
+            }
+        }
+
+        if (list != null) throw new IOException("Unterminated list " + listName);
+        if (!categories.isEmpty()) throw new IOException("Unterminated category " + category);
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
+
+    private static int indexOf(ByteBuffer buffer, int start, int end, char value) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == value) return i;
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        if (buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + start, end - start, UTF_8);
+
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(start + i);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Parse a boolean in the same way as Forge, which only accepts {@code true} and {@code false}.
+     *
+     * @param value The value to parse
+     * @return The parsed value
+     * @throws IllegalArgumentException If the value is not a boolean
+     */
+    public static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) return true;
+        if ("false".equalsIgnoreCase(value)) return false;
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    /**
+     * Parse a list of integers. As with Forge, values which cannot be parsed are skipped.
+     *
+     * @param values The values to parse
+     * @return The parsed values
+     */
+    public static int[] parseIntList(String[] values) {
+        int[] parsed = new int[values.length];
+        int count = 0;
+        for (String value : values) {
+            try {
+                parsed[count] = Integer.parseInt(value);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return count == parsed.length ? parsed : Arrays.copyOf(parsed, count);
+    }
+
+    /**
+     * Parse a list of doubles. As with Forge, values which cannot be parsed are skipped.
+     *
+     * @param values The values to parse
+     * @return The parsed values
+     */
+    public static double[] parseDoubleList(String[] values) {
+        double[] parsed = new double[values.length];
+        int count = 0;
+        for (String value : values) {
+            try {
+                parsed[count] = Double.parseDouble(value);
+                count++;
+            } catch (NumberFormatException ignored) {}
+        }
+        return count == parsed.length ? parsed : Arrays.copyOf(parsed, count);
+    }
+
+    /**
+     * Parse a list of booleans. As with Forge, values which cannot be parsed are skipped.
+     *
+     * @param values The values to parse
+     * @return The parsed values
+     */
+    public static boolean[] parseBooleanList(String[] values) {
+        boolean[] parsed = new boolean[values.length];
+        int count = 0;
+        for (String value : values) {
+            if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+                parsed[count++] = Boolean.parseBoolean(value);
+            }
+        }
+        return count == parsed.length ? parsed : Arrays.copyOf(parsed, count);
+    }
+
+    /**
+     * Parse a list of strings. This is a no-op, but allows every list type to be parsed in the same way.
+     *
+     * @param values The values to parse
+     * @return The same values
+     */
+    public static String[] parseStringList(String[] values) {
+        return values;
+    }
+}
@@ -0,0 +1,237 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.minecraftforge.common.config.ConfigCategory;
+import net.minecraftforge.common.config.Configuration;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Saves a {@link Configuration} on a background thread.
+ *
+ * Saves which occur within the delay of each other are merged into one write. The file is written to a temporary file
+ * and then moved over the original, so a crash part way through a save will not corrupt the config.
+ *
+ * Forge only resets a configuration's changed state when it is saved or loaded on the calling thread, so
+ * {@link Configuration#hasChanged()} stays set after a background save. Instead, the saver keeps the contents it last
+ * wrote, and skips any save which would not change them.
+ *
+ * All savers share a single writer thread. Any pending saves are flushed when the JVM shuts down.
+ */
+public final class ConfigSaver {
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ScheduledExecutorService EXECUTOR = Executors
+        .newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ConfigGen saver");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+    private static final Set<ConfigSaver> SAVERS = Collections
+        .synchronizedSet(Collections.newSetFromMap(new WeakHashMap<ConfigSaver, Boolean>()));
+
+    static {
+        Runtime.getRuntime()
+            .addShutdownHook(new Thread("ConfigGen saver shutdown") {
+
+                @Override
+                public void run() {
+                    ConfigSaver[] savers;
+                    synchronized (SAVERS) {
+                        savers = SAVERS.toArray(new ConfigSaver[0]);
+                    }
+                    for (ConfigSaver saver : savers) saver.flush();
+                }
+            });
+    }
+
+    private final String name;
+    private final Configuration config;
+    private final File file;
+    private final long delay;
+
+    private final Object writeLock = new Object();
+    private final Runnable writer = new Runnable() {
+
+        @Override
+        public void run() {
+            synchronized (ConfigSaver.this) {
+                pending = null;
+            }
+            flush();
+        }
+    };
+
+    private boolean dirty;
+    private ScheduledFuture<?> pending;
+
+    /**
+     * The contents last written to disk, guarded by {@link #writeLock}
+     */
+    private String written;
+
+    /**
+     * Create a new saver
+     *
+     * @param config The configuration to save. Any changes to it should be synchronised on the configuration.
+     * @param delay  The time in milliseconds to wait for further changes before saving.
+     */
+    public ConfigSaver(Configuration config, long delay) {
+        this(config.getConfigFile()
+            .getName(), config, delay);
+    }
+
+    /**
+     * Create a new saver
+     *
+     * @param name   The name of the config, as reported to {@link ConfigMetrics}
+     * @param config The configuration to save. Any changes to it should be synchronised on the configuration.
+     * @param delay  The time in milliseconds to wait for further changes before saving.
+     */
+    public ConfigSaver(String name, Configuration config, long delay) {
+        this.name = name;
+        this.config = config;
+        this.file = config.getConfigFile();
+        this.delay = delay;
+
+        SAVERS.add(this);
+    }
+
+    /**
+     * Queue the configuration to be saved
+     */
+    public void save() {
+        synchronized (this) {
+            dirty = true;
+            if (pending == null) pending = EXECUTOR.schedule(writer, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write any pending changes to disk on the current thread, blocking until the write has finished
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (!dirty) return;
+                dirty = false;
+            }
+
+            ConfigMetrics metrics = ConfigMetrics.get();
+            long start = metrics == null ? 0 : System.nanoTime();
+            try {
+                String contents = render();
+                if (contents.equals(written)) return;
+
+                long bytes = write(contents);
+                written = contents;
+                if (metrics != null) metrics.save(name, System.nanoTime() - start, bytes);
+            } catch (IOException e) {
+                LOGGER.error("Cannot save config " + file, e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Cannot save config " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Write the configuration to a string, in the same format as {@link Configuration#save()}.
+     *
+     * @return The configuration's contents
+     * @throws IOException If the categories could not be written
+     */
+    private String render() throws IOException {
+        StringWriter text = new StringWriter();
+        BufferedWriter out = new BufferedWriter(text);
+        out.write("# Configuration file" + Configuration.NEW_LINE + Configuration.NEW_LINE);
+
+        synchronized (config) {
+            String version = config.getDefinedConfigVersion();
+            if (version != null) {
+                out.write(
+                    Configuration.CONFIG_VERSION_MARKER + ": " + version + Configuration.NEW_LINE
+                        + Configuration.NEW_LINE);
+            }
+
+            for (String name : config.getCategoryNames()) {
+                ConfigCategory category = config.getCategory(name);
+                if (!category.isChild()) {
+                    category.write(out, 0);
+                    out.write(Configuration.NEW_LINE);
+                }
+            }
+        }
+
+        out.flush();
+        return text.toString();
+    }
+
+    /**
+     * Write the configuration's contents to its file
+     *
+     * @param contents The contents to write
+     * @return The number of bytes written
+     * @throws IOException If the file could not be written
+     */
+    private long write(String contents) throws IOException {
+        File parent = file.getAbsoluteFile()
+            .getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+
+        File temp = new File(parent, file.getName() + ".tmp");
+        FileOutputStream stream = new FileOutputStream(temp);
+        long bytes;
+        try {
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream, UTF_8));
+            out.write(contents);
+            out.flush();
+            bytes = stream.getChannel()
+                .position();
+            stream.getFD()
+                .sync();
+        } finally {
+            stream.close();
+        }
+
+        try {
+            Files.move(
+                temp.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        ConfigWatcher.written(file);
+        return bytes;
+    }
+}
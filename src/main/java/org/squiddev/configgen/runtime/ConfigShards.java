@@ -0,0 +1,203 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Stores each root category of a config in its own {@code .cfg} file within a directory.
+ *
+ * Shards are read and written in parallel on the common fork-join pool. When saving, a shard is only written if its
+ * contents differ from when it was last loaded or saved.
+ */
+public final class ConfigShards {
+
+    /**
+     * A single root category, stored in its own file
+     */
+    public abstract static class Shard {
+
+        private final String name;
+        private File file;
+        private long checksum;
+
+        protected Shard(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Read this shard's properties
+         *
+         * @param buffer The contents of the shard's file
+         * @return If every property was present and valid
+         * @throws IOException If the file is malformed
+         */
+        protected abstract boolean read(ByteBuffer buffer) throws IOException;
+
+        /**
+         * Reset this shard's properties to their default values, as its file is missing
+         */
+        protected abstract void reset();
+
+        /**
+         * Write this shard's category
+         *
+         * @param out The writer to write to
+         */
+        protected abstract void write(ConfigWriter out);
+    }
+
+    private final Shard[] shards;
+
+    public ConfigShards(Shard... shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * Get the file a shard is stored in
+     *
+     * @param directory The directory containing every shard
+     * @param name      The name of the shard's category
+     * @return The shard's file
+     */
+    public static File getFile(File directory, String name) {
+        return new File(directory, name + ".cfg");
+    }
+
+    /**
+     * Load every shard from a directory. Shards whose file is missing are reset to their default values.
+     *
+     * @param directory The directory to load from
+     * @return If every shard existed and all their properties were present and valid.
+     * @throws IOException If a file could not be read or is malformed
+     */
+    public boolean load(final File directory) throws IOException {
+        List<Task> tasks = new ArrayList<Task>(shards.length);
+        for (final Shard shard : shards) {
+            tasks.add(new Task() {
+
+                @Override
+                boolean run() throws IOException {
+                    File file = getFile(directory, shard.name);
+                    synchronized (shard) {
+                        shard.file = null;
+                        if (!file.isFile()) {
+                            shard.reset();
+                            return false;
+                        }
+
+                        byte[] contents = Files.readAllBytes(file.toPath());
+                        boolean complete = shard.read(ByteBuffer.wrap(contents));
+
+                        shard.file = file;
+                        shard.checksum = checksum(ByteBuffer.wrap(contents));
+                        return complete;
+                    }
+                }
+            });
+        }
+
+        run(tasks);
+
+        boolean complete = true;
+        for (Task task : tasks) complete &= task.result;
+        return complete;
+    }
+
+    /**
+     * Save every shard to a directory, skipping those which have not changed since they were last loaded or saved.
+     *
+     * @param directory The directory to save to
+     * @return The number of shards which were written
+     * @throws IOException If a file could not be written
+     */
+    public int save(final File directory) throws IOException {
+        List<Task> tasks = new ArrayList<Task>(shards.length);
+        for (final Shard shard : shards) {
+            tasks.add(new Task() {
+
+                @Override
+                boolean run() throws IOException {
+                    File file = getFile(directory, shard.name);
+                    ConfigWriter out = new ConfigWriter();
+                    shard.write(out);
+                    ByteBuffer contents = out.toBuffer();
+                    long checksum = checksum(contents.duplicate());
+
+                    synchronized (shard) {
+                        if (file.equals(shard.file) && checksum == shard.checksum && file.isFile()) return false;
+
+                        ConfigWriter.write(file, contents);
+                        shard.file = file;
+                        shard.checksum = checksum;
+                        return true;
+                    }
+                }
+            });
+        }
+
+        run(tasks);
+
+        int written = 0;
+        for (Task task : tasks) {
+            if (task.result) written++;
+        }
+        return written;
+    }
+
+    private static long checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Run tasks in parallel, waiting for all of them to finish
+     *
+     * @param tasks The tasks to run
+     * @throws IOException If any task threw an {@link IOException}
+     */
+    private static void run(List<Task> tasks) throws IOException {
+        if (tasks.size() == 1) {
+            tasks.get(0)
+                .invoke();
+        } else {
+            for (Task task : tasks) ForkJoinPool.commonPool()
+                .execute(task);
+            for (Task task : tasks) task.join();
+        }
+
+        for (Task task : tasks) {
+            if (task.error != null) throw task.error;
+        }
+    }
+
+    /**
+     * A task which reads or writes a single shard. {@link IOException}s are stored rather than thrown, so they are not
+     * wrapped by the pool.
+     */
+    private abstract static class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        boolean result;
+        IOException error;
+
+        abstract boolean run() throws IOException;
+
+        @Override
+        protected final void compute() {
+            try {
+                result = run();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches config files for changes, reloading them when they are modified.
+ *
+ * All files are watched from a single thread. Bursts of modifications are merged together, and modifications which
+ * leave the file as it was last written by {@link #written(File)} are ignored.
+ */
+public final class ConfigWatcher {
+
+    /**
+     * The time in milliseconds to wait for further modifications before reloading
+     */
+    private static final long DEBOUNCE = 250;
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+
+    private static final Map<Path, Watch> watches = new ConcurrentHashMap<Path, Watch>();
+    private static final Map<Path, WatchKey> directories = new HashMap<Path, WatchKey>();
+    private static final Map<Path, Integer> directoryCounts = new HashMap<Path, Integer>();
+
+    private static WatchService service;
+
+    private ConfigWatcher() {}
+
+    /**
+     * Start watching a file
+     *
+     * @param file     The file to watch
+     * @param reload   The function to call when the file changes
+     * @param executor The executor to call {@code reload} on. Reloads are submitted from the watcher thread, so
+     *                 this should hand them to the thread which uses the config.
+     * @return The watch, which can be used to stop watching this file
+     * @throws IOException If the file's directory could not be watched
+     */
+    public static Watch watch(File file, Runnable reload, Executor executor) throws IOException {
+        Path path = getPath(file);
+        Path directory = path.getParent();
+        Watch watch = new Watch(path, reload, executor);
+
+        synchronized (directories) {
+            if (service == null) {
+                service = FileSystems.getDefault()
+                    .newWatchService();
+                Thread thread = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        ConfigWatcher.run();
+                    }
+                }, "ConfigGen watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            if (!directories.containsKey(directory)) {
+                directories.put(
+                    directory,
+                    directory.register(
+                        service,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY));
+            }
+
+            Integer count = directoryCounts.get(directory);
+            directoryCounts.put(directory, count == null ? 1 : count + 1);
+
+            Watch previous = watches.put(path, watch);
+            if (previous != null) previous.cancel();
+        }
+
+        watch.written();
+        return watch;
+    }
+
+    /**
+     * Mark a file as having been written by us, so the modification does not trigger a reload
+     *
+     * @param file The file which was written
+     */
+    public static void written(File file) {
+        Watch watch = watches.get(getPath(file));
+        if (watch != null) watch.written();
+    }
+
+    private static Path getPath(File file) {
+        return file.toPath()
+            .toAbsolutePath()
+            .normalize();
+    }
+
+    private static void run() {
+        while (true) {
+            // Find when the next reload is due, so we know how long to wait for
+            long now = System.currentTimeMillis();
+            long next = Long.MAX_VALUE;
+            for (Watch watch : watches.values()) {
+                if (watch.due == 0) continue;
+
+                if (watch.due <= now) {
+                    watch.due = 0;
+                    watch.changed();
+                } else if (watch.due < next) {
+                    next = watch.due;
+                }
+            }
+
+            WatchKey key;
+            try {
+                key = next == Long.MAX_VALUE ? service.take() : service.poll(next - now, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            if (key == null) continue;
+
+            Path directory = (Path) key.watchable();
+            long due = System.currentTimeMillis() + DEBOUNCE;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // We've lost events, so check everything in this directory
+                    for (Watch watch : watches.values()) {
+                        if (watch.path.getParent()
+                            .equals(directory)) watch.due = due;
+                    }
+                } else {
+                    Watch watch = watches.get(directory.resolve((Path) event.context()));
+                    if (watch != null) watch.due = due;
+                }
+            }
+            key.reset();
+        }
+    }
+
+    /**
+     * A file being watched
+     */
+    public static final class Watch {
+
+        private final Path path;
+        private final Runnable reload;
+        private final Executor executor;
+
+        /**
+         * The time the reload is due at, or 0 if there are no pending changes. Only accessed from the watcher thread.
+         */
+        private long due;
+
+        private long length;
+        private long modified;
+        private boolean cancelled;
+
+        private Watch(Path path, Runnable reload, Executor executor) {
+            this.path = path;
+            this.reload = reload;
+            this.executor = executor;
+        }
+
+        /**
+         * Mark the file as having been written by us, so the modification does not trigger a reload
+         */
+        public synchronized void written() {
+            File file = path.toFile();
+            length = file.length();
+            modified = file.lastModified();
+        }
+
+        /**
+         * Stop watching this file
+         */
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+            }
+
+            synchronized (directories) {
+                watches.remove(path, this);
+
+                Path directory = path.getParent();
+                int count = directoryCounts.get(directory) - 1;
+                if (count == 0) {
+                    directoryCounts.remove(directory);
+                    directories.remove(directory)
+                        .cancel();
+                } else {
+                    directoryCounts.put(directory, count);
+                }
+            }
+        }
+
+        private void changed() {
+            synchronized (this) {
+                if (cancelled) return;
+
+                File file = path.toFile();
+                long length = file.length(), modified = file.lastModified();
+                if (length == this.length && modified == this.modified) return;
+
+                this.length = length;
+                this.modified = modified;
+            }
+
+            try {
+                executor.execute(reload);
+            } catch (RuntimeException e) {
+                LOGGER.error("Cannot reload config " + path, e);
+            }
+        }
+    }
+}
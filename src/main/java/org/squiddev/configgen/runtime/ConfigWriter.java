@@ -0,0 +1,278 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Writes Forge's {@code .cfg} format, without building a {@code Configuration}.
+ *
+ * The file is built up in memory and written with a single channel write, in the same layout as Forge. Categories and
+ * properties are written in the order they are given, so callers should sort them as Forge does if they want an
+ * identical file.
+ */
+public final class ConfigWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String NEW_LINE = "\n";
+    private static final String COMMENT_SEPARATOR = "#####################################################"
+        + "#####################################################";
+
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * The depths whose categories already have a child category
+     */
+    private final BitSet children = new BitSet();
+    private int depth = 0;
+
+    public ConfigWriter() {
+        out.append("# Configuration file")
+            .append(NEW_LINE)
+            .append(NEW_LINE);
+    }
+
+    /**
+     * Start a category, nested inside the current one
+     *
+     * @param name    The unqualified name of the category
+     * @param comment The category's comment, or {@code null}
+     */
+    public void startCategory(String name, String comment) {
+        if (depth > 0 && !children.get(depth - 1)) {
+            children.set(depth - 1);
+            out.append(NEW_LINE);
+        }
+
+        if (comment != null && !comment.isEmpty()) {
+            indent(depth).append(COMMENT_SEPARATOR)
+                .append(NEW_LINE);
+            indent(depth).append("# ")
+                .append(name)
+                .append(NEW_LINE);
+            for (String line : comment.split("\r?\n")) {
+                indent(depth).append("# ")
+                    .append(line)
+                    .append(NEW_LINE);
+            }
+            indent(depth).append(COMMENT_SEPARATOR)
+                .append(NEW_LINE)
+                .append(NEW_LINE);
+        }
+
+        indent(depth);
+        name(name).append(" {")
+            .append(NEW_LINE);
+
+        children.clear(depth);
+        depth++;
+    }
+
+    /**
+     * End the current category
+     */
+    public void endCategory() {
+        if (depth == 0) throw new IllegalStateException("No category to end");
+        depth--;
+
+        indent(depth).append("}")
+            .append(NEW_LINE)
+            .append(NEW_LINE);
+        if (depth == 0) out.append(NEW_LINE);
+    }
+
+    public void property(String name, String comment, int value) {
+        property('I', name, comment, Integer.toString(value));
+    }
+
+    public void property(String name, String comment, double value) {
+        property('D', name, comment, Double.toString(value));
+    }
+
+    public void property(String name, String comment, boolean value) {
+        property('B', name, comment, Boolean.toString(value));
+    }
+
+    public void property(String name, String comment, String value) {
+        property('S', name, comment, value);
+    }
+
+    public void list(String name, String comment, int[] values) {
+        startList('I', name, comment);
+        for (int value : values) listValue(Integer.toString(value));
+        endList();
+    }
+
+    public void list(String name, String comment, double[] values) {
+        startList('D', name, comment);
+        for (double value : values) listValue(Double.toString(value));
+        endList();
+    }
+
+    public void list(String name, String comment, boolean[] values) {
+        startList('B', name, comment);
+        for (boolean value : values) listValue(Boolean.toString(value));
+        endList();
+    }
+
+    public void list(String name, String comment, String[] values) {
+        startList('S', name, comment);
+        for (String value : values) listValue(value);
+        endList();
+    }
+
+    /**
+     * Write a list from a collection of boxed values
+     *
+     * @param type    The Forge type of the list's elements: {@code I}, {@code D}, {@code B} or {@code S}.
+     * @param name    The name of the property
+     * @param comment The property's comment, or {@code null}
+     * @param values  The list's values
+     */
+    public void list(char type, String name, String comment, Collection<?> values) {
+        startList(type, name, comment);
+        for (Object value : values) listValue(String.valueOf(value));
+        endList();
+    }
+
+    /**
+     * Write a property which has already been converted to a string
+     *
+     * @param type    The Forge type of the property: {@code I}, {@code D}, {@code B} or {@code S}.
+     * @param name    The name of the property
+     * @param comment The property's comment, or {@code null}
+     * @param value   The property's value
+     */
+    public void property(char type, String name, String comment, String value) {
+        comment(comment);
+        indent(depth).append(type)
+            .append(':');
+        name(name).append('=')
+            .append(value)
+            .append(NEW_LINE);
+    }
+
+    private void startList(char type, String name, String comment) {
+        comment(comment);
+        indent(depth).append(type)
+            .append(':');
+        name(name).append(" <")
+            .append(NEW_LINE);
+    }
+
+    private void listValue(String value) {
+        indent(depth + 1).append(value)
+            .append(NEW_LINE);
+    }
+
+    private void endList() {
+        indent(depth).append(" >")
+            .append(NEW_LINE);
+    }
+
+    private void comment(String comment) {
+        if (depth == 0) throw new IllegalStateException("Properties must be inside a category");
+        if (comment == null || comment.isEmpty()) return;
+        for (String line : comment.split("\r?\n")) {
+            indent(depth).append("# ")
+                .append(line)
+                .append(NEW_LINE);
+        }
+    }
+
+    private StringBuilder indent(int depth) {
+        for (int i = 0; i < depth; i++) out.append("    ");
+        return out;
+    }
+
+    /**
+     * Append a name, quoting it if it contains characters Forge does not allow in bare names
+     */
+    private StringBuilder name(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '.' && c != '_' && c != '-') {
+                return out.append('"')
+                    .append(name)
+                    .append('"');
+            }
+        }
+        return out.append(name);
+    }
+
+    /**
+     * Write the config to a file. The file is written to a temporary file and then moved over the original, so a
+     * crash part way through a save will not corrupt the config.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void writeTo(File file) throws IOException {
+        write(file, toBuffer());
+    }
+
+    /**
+     * Encode the config, ready to be written to a file
+     *
+     * @return The encoded config
+     */
+    public ByteBuffer toBuffer() {
+        if (depth != 0) throw new IllegalStateException("Unterminated category");
+        return UTF_8.encode(CharBuffer.wrap(out));
+    }
+
+    /**
+     * Atomically replace a file's contents
+     *
+     * @param file   The file to write to
+     * @param buffer The contents to write
+     * @throws IOException If the file could not be written
+     * @see #writeTo(File)
+     */
+    static void write(File file, ByteBuffer buffer) throws IOException {
+        File parent = file.getAbsoluteFile()
+            .getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+
+        File temp = new File(parent, file.getName() + ".tmp");
+        FileChannel channel = FileChannel.open(
+            temp.toPath(),
+            StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+
+        try {
+            Files.move(
+                temp.toPath(),
+                file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        ConfigWatcher.written(file);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * An immutable list of doubles, which can be used as a config field to avoid boxing.
+ *
+ * A new list is created each time the config is synced, so it can be read from any thread.
+ */
+public final class DoubleList {
+
+    private final double[] values;
+
+    public DoubleList(double[] values) {
+        this.values = values.clone();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Find the first index of a value. Values are compared in the same way as {@link Double#equals(Object)}, so
+     * {@code NaN} is equal to itself.
+     *
+     * @param value The value to look for
+     * @return The value's index, or {@code -1} if it is not in this list.
+     */
+    public int indexOf(double value) {
+        for (int i = 0; i < values.length; i++) {
+            if (Double.doubleToLongBits(values[i]) == Double.doubleToLongBits(value)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Check if this list contains a value. This is a linear scan, so use a {@link DoubleSet} for large lists which
+     * are checked often.
+     *
+     * @param value The value to look for
+     * @return If this list contains the value
+     */
+    public boolean contains(double value) {
+        return indexOf(value) >= 0;
+    }
+
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof DoubleList && Arrays.equals(values, ((DoubleList) other).values));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
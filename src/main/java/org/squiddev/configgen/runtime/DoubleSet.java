@@ -0,0 +1,96 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of doubles, which can be used as a config field to check membership without boxing.
+ *
+ * Values are compared in the same way as {@link Double#equals(Object)}, so {@code NaN} is equal to itself and
+ * {@code 0.0} is not equal to {@code -0.0}.
+ *
+ * @see IntSet
+ */
+public final class DoubleSet {
+
+    private final double[] values;
+
+    /**
+     * The bits of each value in the hash table, where {@code 0} ({@code 0.0}) marks an empty slot. Whether the set
+     * contains {@code 0.0} is stored separately.
+     */
+    private final long[] table;
+    private final boolean hasZero;
+    private final int size;
+
+    public DoubleSet(double[] values) {
+        this.values = values.clone();
+
+        long[] table = this.table = new long[Integer.highestOneBit(Math.max(2, values.length * 2 - 1)) << 1];
+        int mask = table.length - 1;
+        boolean hasZero = false;
+        int size = 0;
+        for (double value : values) {
+            long bits = Double.doubleToLongBits(value);
+            if (bits == 0) {
+                if (!hasZero) size++;
+                hasZero = true;
+                continue;
+            }
+
+            int index = hash(bits) & mask;
+            while (table[index] != 0 && table[index] != bits) index = (index + 1) & mask;
+            if (table[index] == 0) {
+                table[index] = bits;
+                size++;
+            }
+        }
+
+        this.hasZero = hasZero;
+        this.size = size;
+    }
+
+    private static int hash(long bits) {
+        long hash = bits * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    public boolean contains(double value) {
+        long bits = Double.doubleToLongBits(value);
+        if (bits == 0) return hasZero;
+
+        long[] table = this.table;
+        int mask = table.length - 1;
+        for (int index = hash(bits) & mask;; index = (index + 1) & mask) {
+            long current = table[index];
+            if (current == bits) return true;
+            if (current == 0) return false;
+        }
+    }
+
+    /**
+     * Get the number of distinct values in this set
+     *
+     * @return The size of this set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the values this set was created from, in their original order and including any duplicates
+     *
+     * @return A copy of this set's values
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,146 @@
+package org.squiddev.configgen.runtime;
+
+import net.minecraftforge.common.config.ConfigCategory;
+import net.minecraftforge.common.config.Configuration;
+import net.minecraftforge.common.config.Property;
+
+/**
+ * A {@link ConfigBackend} which stores values in a Forge {@link Configuration}
+ */
+public class ForgeBackend implements ConfigBackend {
+
+    private final Configuration config;
+
+    public ForgeBackend(Configuration config) {
+        this.config = config;
+    }
+
+    public Configuration getConfiguration() {
+        return config;
+    }
+
+    @Override
+    public void category(String category, String comment) {
+        ConfigCategory cat = config.getCategory(category);
+        if (comment != null) cat.setComment(comment);
+    }
+
+    @Override
+    public int getInt(String category, String name, int defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getInt(defaultValue);
+    }
+
+    @Override
+    public double getDouble(String category, String name, double defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getDouble(defaultValue);
+    }
+
+    @Override
+    public boolean getBoolean(String category, String name, boolean defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getBoolean(defaultValue);
+    }
+
+    @Override
+    public String getString(String category, String name, String defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getString();
+    }
+
+    @Override
+    public int[] getIntList(String category, String name, int[] defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getIntList();
+    }
+
+    @Override
+    public double[] getDoubleList(String category, String name, double[] defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getDoubleList();
+    }
+
+    @Override
+    public boolean[] getBooleanList(String category, String name, boolean[] defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getBooleanList();
+    }
+
+    @Override
+    public String[] getStringList(String category, String name, String[] defaultValue, String comment) {
+        return config.get(category, name, defaultValue, comment)
+            .getStringList();
+    }
+
+    // Setters only create properties which do not exist, so that existing comments are kept.
+
+    @Override
+    public void setInt(String category, String name, int value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setDouble(String category, String name, double value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setBoolean(String category, String name, boolean value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setString(String category, String name, String value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setIntList(String category, String name, int[] value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setDoubleList(String category, String name, double[] value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setBooleanList(String category, String name, boolean[] value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void setStringList(String category, String name, String[] value) {
+        Property property = config.getCategory(category)
+            .get(name);
+        if (property == null) config.get(category, name, value, null);
+        else property.set(value);
+    }
+
+    @Override
+    public void commit() {
+        if (config.hasChanged()) config.save();
+    }
+}
@@ -0,0 +1,27 @@
+package org.squiddev.configgen.runtime;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a generated Forge loader, so the config registry can be generated from loaders rather than config classes.
+ *
+ * This is kept in class files, as Gradle reprocesses unchanged loaders from their class files when generating the
+ * registry.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GeneratedLoader {
+
+    /**
+     * @return The name of the config's file within the registry's directory
+     */
+    String name();
+
+    /**
+     * @return Whether the loader delays saving, and so must be flushed after syncing
+     */
+    boolean flush();
+}
@@ -0,0 +1,66 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * An immutable list of ints, which can be used as a config field to avoid boxing.
+ *
+ * A new list is created each time the config is synced, so it can be read from any thread.
+ */
+public final class IntList {
+
+    private final int[] values;
+
+    public IntList(int[] values) {
+        this.values = values.clone();
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int indexOf(int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Check if this list contains a value. This is a linear scan, so use an {@link IntSet} for large lists which are
+     * checked often.
+     *
+     * @param value The value to look for
+     * @return If this list contains the value
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof IntList && Arrays.equals(values, ((IntList) other).values));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,92 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of ints, which can be used as a config field to check membership without boxing.
+ *
+ * Values are stored in an open addressing hash table, which is built once each time the config is synced. The set
+ * also keeps the values it was created from, so it is written back to the config in the same order.
+ */
+public final class IntSet {
+
+    private final int[] values;
+
+    /**
+     * The hash table, where {@code 0} marks an empty slot. Whether the set contains zero is stored separately.
+     */
+    private final int[] table;
+    private final boolean hasZero;
+    private final int size;
+
+    public IntSet(int[] values) {
+        this.values = values.clone();
+
+        // Keep the table at most half full, so probes stay short.
+        int[] table = this.table = new int[Integer.highestOneBit(Math.max(2, values.length * 2 - 1)) << 1];
+        int mask = table.length - 1;
+        boolean hasZero = false;
+        int size = 0;
+        for (int value : values) {
+            if (value == 0) {
+                if (!hasZero) size++;
+                hasZero = true;
+                continue;
+            }
+
+            int index = hash(value) & mask;
+            while (table[index] != 0 && table[index] != value) index = (index + 1) & mask;
+            if (table[index] == 0) {
+                table[index] = value;
+                size++;
+            }
+        }
+
+        this.hasZero = hasZero;
+        this.size = size;
+    }
+
+    private static int hash(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    public boolean contains(int value) {
+        if (value == 0) return hasZero;
+
+        int[] table = this.table;
+        int mask = table.length - 1;
+        for (int index = hash(value) & mask;; index = (index + 1) & mask) {
+            int current = table[index];
+            if (current == value) return true;
+            if (current == 0) return false;
+        }
+    }
+
+    /**
+     * Get the number of distinct values in this set
+     *
+     * @return The size of this set
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the values this set was created from, in their original order and including any duplicates
+     *
+     * @return A copy of this set's values
+     */
+    public int[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,213 @@
+package org.squiddev.configgen.runtime;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Emits JDK Flight Recorder events for each {@link ConfigMetrics} call.
+ *
+ * Flight Recorder's API is only available on Java 11 and later, so event types are created with
+ * {@code jdk.jfr.EventFactory} through reflection. Each call checks whether a recording has enabled its event before
+ * boxing any values, so calls are cheap when nothing is recording.
+ */
+final class JfrMetrics extends ConfigMetrics {
+
+    private static final Logger LOGGER = LogManager.getLogger("ConfigGen");
+
+    private static final String CATEGORY = "ConfigGen";
+
+    private final Reflection jfr;
+    private final EventKind load, sync, syncCategory, onSync, save;
+    private volatile boolean failed;
+
+    private JfrMetrics(Reflection jfr) throws Exception {
+        this.jfr = jfr;
+        load = jfr.create("Load", "Config Load", "A config was loaded from disk or from properties", "time");
+        sync = jfr.create("Sync", "Config Sync", "A config was synced", "time", "changed");
+        syncCategory = jfr
+            .create("SyncCategory", "Config Category Sync", "A root category was synced", "time", "category");
+        onSync = jfr.create("OnSync", "Config OnSync", "A config's sync hook and change listeners ran", "time");
+        save = jfr.create("Save", "Config Save", "A config was written to disk", "time", "bytes");
+    }
+
+    /**
+     * Create the event types
+     *
+     * @return The metrics, or {@code null} if Flight Recorder is not available.
+     */
+    static ConfigMetrics create() {
+        Reflection jfr;
+        try {
+            jfr = new Reflection();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            LOGGER.warn("Cannot find Flight Recorder", e);
+            return null;
+        }
+
+        try {
+            return new JfrMetrics(jfr);
+        } catch (Exception e) {
+            LOGGER.warn("Cannot create Flight Recorder events", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void load(String config, long nanos) {
+        if (isEnabled(load)) commit(load, config, nanos);
+    }
+
+    @Override
+    public void sync(String config, long nanos, int changed) {
+        if (isEnabled(sync)) commit(sync, config, nanos, changed);
+    }
+
+    @Override
+    public void syncCategory(String config, String category, long nanos) {
+        if (isEnabled(syncCategory)) commit(syncCategory, config, nanos, category);
+    }
+
+    @Override
+    public void onSync(String config, long nanos) {
+        if (isEnabled(onSync)) commit(onSync, config, nanos);
+    }
+
+    @Override
+    public void save(String config, long nanos, long bytes) {
+        if (isEnabled(save)) commit(save, config, nanos, bytes);
+    }
+
+    private boolean isEnabled(EventKind kind) {
+        if (failed) return false;
+        try {
+            return jfr.isEnabled(kind);
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.warn("Cannot check Flight Recorder event", e);
+            return false;
+        }
+    }
+
+    private void commit(EventKind kind, Object... values) {
+        try {
+            jfr.commit(kind, values);
+        } catch (Exception e) {
+            failed = true;
+            LOGGER.warn("Cannot emit Flight Recorder event", e);
+        }
+    }
+
+    /**
+     * A type of event, and the factory which creates it
+     */
+    private static final class EventKind {
+
+        final Object factory;
+        final Object type;
+
+        EventKind(Object factory, Object type) {
+            this.factory = factory;
+            this.type = type;
+        }
+    }
+
+    /**
+     * The Flight Recorder classes and methods used to create and commit events
+     */
+    private static final class Reflection {
+
+        private final Class<? extends Annotation> name, label, description, category, timespan, dataAmount;
+        private final Constructor<?> annotation, value;
+        private final Method create, newEvent, getEventType, isEnabled, set, commit;
+
+        Reflection() throws Exception {
+            name = annotation("Name");
+            label = annotation("Label");
+            description = annotation("Description");
+            category = annotation("Category");
+            timespan = annotation("Timespan");
+            dataAmount = annotation("DataAmount");
+
+            Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+            annotation = annotationElement.getConstructor(Class.class, Object.class);
+            value = Class.forName("jdk.jfr.ValueDescriptor")
+                .getConstructor(Class.class, String.class, List.class);
+
+            Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+            create = factory.getMethod("create", List.class, List.class);
+            newEvent = factory.getMethod("newEvent");
+            getEventType = factory.getMethod("getEventType");
+            isEnabled = Class.forName("jdk.jfr.EventType")
+                .getMethod("isEnabled");
+
+            Class<?> event = Class.forName("jdk.jfr.Event");
+            set = event.getMethod("set", int.class, Object.class);
+            commit = event.getMethod("commit");
+        }
+
+        private static Class<? extends Annotation> annotation(String name) throws ClassNotFoundException {
+            return Class.forName("jdk.jfr." + name)
+                .asSubclass(Annotation.class);
+        }
+
+        /**
+         * Create an event type. Every event has a {@code config} field, followed by the given fields.
+         *
+         * @return The event type
+         */
+        EventKind create(String event, String eventLabel, String eventDescription, String... fields) throws Exception {
+            List<Object> annotations = Arrays.asList(
+                annotation.newInstance(name, "configgen." + event),
+                annotation.newInstance(label, eventLabel),
+                annotation.newInstance(description, eventDescription),
+                annotation.newInstance(category, new String[] { CATEGORY }));
+
+            List<Object> values = new ArrayList<Object>();
+            values.add(value("config", String.class, "Config"));
+            for (String field : fields) {
+                if (field.equals("time")) {
+                    values.add(
+                        value("time", long.class, "Time", annotation.newInstance(timespan, "NANOSECONDS")));
+                } else if (field.equals("changed")) {
+                    values.add(value("changed", int.class, "Fields Changed"));
+                } else if (field.equals("category")) {
+                    values.add(value("category", String.class, "Category"));
+                } else if (field.equals("bytes")) {
+                    values.add(
+                        value("bytes", long.class, "Bytes Written", annotation.newInstance(dataAmount, "BYTES")));
+                } else {
+                    throw new IllegalArgumentException("Unknown field " + field);
+                }
+            }
+
+            Object factory = create.invoke(null, annotations, values);
+            return new EventKind(factory, getEventType.invoke(factory));
+        }
+
+        private Object value(String field, Class<?> type, String fieldLabel, Object... extra) throws Exception {
+            List<Object> annotations = new ArrayList<Object>();
+            annotations.add(annotation.newInstance(label, fieldLabel));
+            annotations.addAll(Arrays.asList(extra));
+            return this.value.newInstance(type, field, annotations);
+        }
+
+        boolean isEnabled(EventKind kind) throws Exception {
+            return (Boolean) isEnabled.invoke(kind.type);
+        }
+
+        void commit(EventKind kind, Object... values) throws Exception {
+            Object event = newEvent.invoke(kind.factory);
+            for (int i = 0; i < values.length; i++) set.invoke(event, i, values[i]);
+            commit.invoke(event);
+        }
+    }
+}
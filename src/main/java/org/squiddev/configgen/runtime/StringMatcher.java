@@ -0,0 +1,348 @@
+package org.squiddev.configgen.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable list of patterns, compiled so a string can be checked against every pattern at once. This can be used
+ * as a config field in place of a {@code String[]} allow or deny list.
+ *
+ * Patterns may contain {@code *}, which matches any sequence of characters, and {@code ?}, which matches any single
+ * character. A pattern surrounded by slashes, such as {@code /minecraft:.+_ore/}, is a regular expression.
+ *
+ * Plain names are stored in a hash set, and patterns of the form {@code prefix*} in a trie. Any other wildcard
+ * patterns are compiled into a single deterministic automaton, so checking a string takes time proportional to its
+ * length, rather than to the number of patterns. Regular expressions are combined into a single {@link Pattern} and
+ * checked last.
+ */
+public final class StringMatcher {
+
+    /**
+     * The most states to build in the automaton. Wildcard patterns which need more are matched with a regular
+     * expression instead.
+     */
+    private static final int MAX_STATES = 4096;
+
+    private final String[] values;
+
+    private final Set<String> exact = new HashSet<String>();
+    private final Trie prefixes;
+    private final Automaton wildcards;
+    private final Pattern regex;
+
+    public StringMatcher(String[] values) {
+        this.values = values.clone();
+
+        TreeMap<String, Boolean> prefixes = new TreeMap<String, Boolean>();
+        List<String> wildcards = new ArrayList<String>();
+        StringBuilder regex = new StringBuilder();
+        for (String value : values) {
+            if (value.length() >= 2 && value.startsWith("/") && value.endsWith("/")) {
+                if (regex.length() > 0) regex.append('|');
+                regex.append("(?:")
+                    .append(value, 1, value.length() - 1)
+                    .append(')');
+                continue;
+            }
+
+            int star = value.indexOf('*');
+            if (value.indexOf('?') < 0 && (star < 0 || star == value.length() - 1)) {
+                if (star < 0) {
+                    exact.add(value);
+                } else {
+                    prefixes.put(value.substring(0, star), true);
+                }
+            } else {
+                wildcards.add(value);
+            }
+        }
+
+        this.prefixes = prefixes.isEmpty() ? null : Trie.build(prefixes.keySet());
+
+        Automaton automaton = wildcards.isEmpty() ? null : Automaton.build(wildcards);
+        if (automaton == null && !wildcards.isEmpty()) {
+            for (String wildcard : wildcards) {
+                if (regex.length() > 0) regex.append('|');
+                regex.append(toRegex(wildcard));
+            }
+        }
+        this.wildcards = automaton;
+        this.regex = regex.length() == 0 ? null : Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Check if a string matches any pattern
+     *
+     * @param value The string to check
+     * @return If any pattern matches
+     */
+    public boolean matches(String value) {
+        return exact.contains(value) || (prefixes != null && prefixes.matches(value))
+            || (wildcards != null && wildcards.matches(value))
+            || (regex != null && regex.matcher(value)
+                .matches());
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    /**
+     * Get the patterns this matcher was created from, in their original order
+     *
+     * @return A copy of this matcher's patterns
+     */
+    public String[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    private static String toRegex(String wildcard) {
+        StringBuilder out = new StringBuilder("(?:");
+        int start = 0;
+        for (int i = 0; i < wildcard.length(); i++) {
+            char c = wildcard.charAt(i);
+            if (c != '*' && c != '?') continue;
+
+            if (i > start) out.append(Pattern.quote(wildcard.substring(start, i)));
+            out.append(c == '*' ? ".*" : ".");
+            start = i + 1;
+        }
+        if (start < wildcard.length()) out.append(Pattern.quote(wildcard.substring(start)));
+        return out.append(')')
+            .toString();
+    }
+
+    /**
+     * Find the index of a character in a sorted array
+     */
+    private static int find(char[] keys, char key) {
+        int index = Arrays.binarySearch(keys, key);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * A trie of prefixes, where each node stores its children's characters in sorted order
+     */
+    private static final class Trie {
+
+        private boolean terminal;
+        private char[] keys = new char[0];
+        private Trie[] children = new Trie[0];
+
+        static Trie build(Iterable<String> prefixes) {
+            Trie root = new Trie();
+            for (String prefix : prefixes) {
+                Trie node = root;
+                for (int i = 0; i < prefix.length() && !node.terminal; i++) node = node.child(prefix.charAt(i));
+                node.terminal = true;
+            }
+            return root;
+        }
+
+        private Trie child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) return children[index];
+
+            index = -index - 1;
+            Trie child = new Trie();
+            char[] keys = new char[this.keys.length + 1];
+            Trie[] children = new Trie[keys.length];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.children, 0, children, 0, index);
+            keys[index] = key;
+            children[index] = child;
+            System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+            System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+            this.keys = keys;
+            this.children = children;
+            return child;
+        }
+
+        boolean matches(String value) {
+            Trie node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i >= value.length()) return false;
+
+                int index = find(node.keys, value.charAt(i));
+                if (index < 0) return false;
+                node = node.children[index];
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A deterministic automaton matching several wildcard patterns at once.
+     *
+     * Characters which appear literally in a pattern each get their own class, and every other character shares a
+     * single class, so the transition table stays small.
+     */
+    private static final class Automaton {
+
+        private static final int DEAD = -1;
+
+        private final int[] asciiClasses;
+        private final char[] otherChars;
+        private final int[] otherClasses;
+        private final int classCount;
+
+        private final int[] transitions;
+        private final boolean[] accepting;
+
+        private Automaton(int[] asciiClasses, char[] otherChars, int[] otherClasses, int classCount,
+            int[] transitions, boolean[] accepting) {
+            this.asciiClasses = asciiClasses;
+            this.otherChars = otherChars;
+            this.otherClasses = otherClasses;
+            this.classCount = classCount;
+            this.transitions = transitions;
+            this.accepting = accepting;
+        }
+
+        /**
+         * Build an automaton by subset construction over a combined non-deterministic automaton.
+         *
+         * In the non-deterministic automaton, a pattern with {@code n} non-{@code *} characters has states
+         * {@code 0..n}, where state {@code i} means the first {@code i} characters have been matched. A state loops on
+         * any character if it is preceded by a {@code *}.
+         *
+         * @param patterns The patterns to match
+         * @return The built automaton, or {@code null} if it would have too many states.
+         */
+        static Automaton build(List<String> patterns) {
+            // Flatten every pattern into a single array of states.
+            List<Character> tokens = new ArrayList<Character>();
+            BitSet loops = new BitSet(), accepts = new BitSet(), starts = new BitSet();
+            int stateCount = 0;
+            for (String pattern : patterns) {
+                starts.set(stateCount);
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = pattern.charAt(i);
+                    if (c == '*') {
+                        loops.set(stateCount);
+                    } else {
+                        tokens.add(c);
+                        stateCount++;
+                    }
+                }
+                tokens.add(null);
+                accepts.set(stateCount);
+                stateCount++;
+            }
+
+            // Assign a class to every literal character, with class 0 for everything else.
+            int[] asciiClasses = new int[128];
+            TreeMap<Character, Integer> otherMap = new TreeMap<Character, Integer>();
+            List<Character> representatives = new ArrayList<Character>();
+            representatives.add(null);
+            for (Character token : tokens) {
+                if (token == null || token == '?') continue;
+                char c = token;
+                if (c < 128 ? asciiClasses[c] != 0 : otherMap.containsKey(c)) continue;
+
+                if (c < 128) {
+                    asciiClasses[c] = representatives.size();
+                } else {
+                    otherMap.put(c, representatives.size());
+                }
+                representatives.add(c);
+            }
+
+            char[] otherChars = new char[otherMap.size()];
+            int[] otherClasses = new int[otherMap.size()];
+            int index = 0;
+            for (Map.Entry<Character, Integer> entry : otherMap.entrySet()) {
+                otherChars[index] = entry.getKey();
+                otherClasses[index] = entry.getValue();
+                index++;
+            }
+
+            int classCount = representatives.size();
+            Map<BitSet, Integer> ids = new HashMap<BitSet, Integer>();
+            List<BitSet> states = new ArrayList<BitSet>();
+            ids.put(starts, 0);
+            states.add(starts);
+
+            int[] transitions = new int[16 * classCount];
+            for (int state = 0; state < states.size(); state++) {
+                BitSet current = states.get(state);
+                for (int klass = 0; klass < classCount; klass++) {
+                    Character c = representatives.get(klass);
+                    BitSet next = new BitSet();
+                    for (int nfa = current.nextSetBit(0); nfa >= 0; nfa = current.nextSetBit(nfa + 1)) {
+                        if (loops.get(nfa)) next.set(nfa);
+                        Character token = tokens.get(nfa);
+                        if (token != null && (token == '?' || token.equals(c))) next.set(nfa + 1);
+                    }
+
+                    int target;
+                    if (next.isEmpty()) {
+                        target = DEAD;
+                    } else {
+                        Integer id = ids.get(next);
+                        if (id == null) {
+                            if (states.size() >= MAX_STATES) return null;
+                            ids.put(next, id = states.size());
+                            states.add(next);
+                        }
+                        target = id;
+                    }
+
+                    int slot = state * classCount + klass;
+                    if (slot >= transitions.length) transitions = Arrays.copyOf(transitions, transitions.length * 2);
+                    transitions[slot] = target;
+                }
+            }
+
+            boolean[] accepting = new boolean[states.size()];
+            for (int state = 0; state < states.size(); state++) {
+                accepting[state] = states.get(state)
+                    .intersects(accepts);
+            }
+
+            return new Automaton(
+                asciiClasses,
+                otherChars,
+                otherClasses,
+                classCount,
+                Arrays.copyOf(transitions, states.size() * classCount),
+                accepting);
+        }
+
+        boolean matches(String value) {
+            int[] transitions = this.transitions;
+            int state = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                int klass;
+                if (c < 128) {
+                    klass = asciiClasses[c];
+                } else {
+                    int index = find(otherChars, c);
+                    klass = index < 0 ? 0 : otherClasses[index];
+                }
+
+                state = transitions[state * classCount + klass];
+                if (state == DEAD) return false;
+            }
+            return accepting[state];
+        }
+    }
+}
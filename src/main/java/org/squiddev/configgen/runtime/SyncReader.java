@@ -0,0 +1,117 @@
+package org.squiddev.configgen.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Reads config values written by a {@link SyncWriter}
+ *
+ * Reading past the end of the buffer throws a {@link java.nio.BufferUnderflowException}.
+ */
+public final class SyncReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer;
+    private int bits;
+    private int bitCount;
+
+    public SyncReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    public int readLength() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) return value;
+        }
+        throw new IOException("Varint is too long");
+    }
+
+    public int readInt() throws IOException {
+        int value = readLength();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        int length = readLength();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("String is longer than the remaining data");
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public boolean readBit() {
+        if (bitCount == 0) {
+            bits = buffer.get() & 0xFF;
+            bitCount = 8;
+        }
+
+        boolean value = (bits & 1) != 0;
+        bits >>>= 1;
+        bitCount--;
+        return value;
+    }
+
+    /**
+     * Skip the rest of a partially read byte of bits
+     */
+    public void align() {
+        bits = 0;
+        bitCount = 0;
+    }
+
+    public int[] readIntList() throws IOException {
+        int[] values = new int[checkLength(readLength())];
+        for (int i = 0; i < values.length; i++) values[i] = readInt();
+        return values;
+    }
+
+    public double[] readDoubleList() throws IOException {
+        double[] values = new double[checkLength(readLength())];
+        for (int i = 0; i < values.length; i++) values[i] = readDouble();
+        return values;
+    }
+
+    public boolean[] readBooleanList() throws IOException {
+        int length = readLength();
+        if (length < 0) throw new IOException("List is longer than the remaining data");
+        checkLength((length + 7) / 8);
+
+        boolean[] values = new boolean[length];
+        for (int i = 0; i < values.length; i++) values[i] = readBit();
+        align();
+        return values;
+    }
+
+    public String[] readStringList() throws IOException {
+        String[] values = new String[checkLength(readLength())];
+        for (int i = 0; i < values.length; i++) values[i] = readString();
+        return values;
+    }
+
+    /**
+     * Check a length can fit in the remaining data, assuming each element takes at least one byte, so a corrupt
+     * length cannot allocate a huge array.
+     */
+    private int checkLength(int length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("List is longer than the remaining data");
+        }
+        return length;
+    }
+}
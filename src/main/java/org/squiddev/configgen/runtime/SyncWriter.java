@@ -0,0 +1,133 @@
+package org.squiddev.configgen.runtime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes config values for syncing to clients, into a buffer which grows as needed.
+ *
+ * Integers are written as zig-zag encoded varints, so small values of either sign take a single byte. Booleans are
+ * packed eight to a byte with {@link #writeBit(boolean)}, and must be followed by {@link #align()} before writing
+ * anything else.
+ *
+ * @see SyncReader
+ */
+public final class SyncWriter {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ByteBuffer buffer;
+    private int bits;
+    private int bitCount;
+
+    public SyncWriter() {
+        this(64);
+    }
+
+    public SyncWriter(int capacity) {
+        buffer = ByteBuffer.allocate(capacity);
+    }
+
+    private void ensure(int size) {
+        if (buffer.remaining() >= size) return;
+
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+
+    public void writeLong(long value) {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Write an unsigned varint, such as a length
+     *
+     * @param value The value to write, which should not be negative
+     */
+    public void writeLength(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Write a signed, zig-zag encoded, varint
+     *
+     * @param value The value to write
+     */
+    public void writeInt(int value) {
+        writeLength((value << 1) ^ (value >> 31));
+    }
+
+    public void writeDouble(double value) {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    public void writeString(String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        writeLength(bytes.length);
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Write a single bit, packing it into the current byte
+     *
+     * @param value The bit to write
+     */
+    public void writeBit(boolean value) {
+        if (value) bits |= 1 << bitCount;
+        if (++bitCount == 8) align();
+    }
+
+    /**
+     * Write any partially filled byte of bits
+     */
+    public void align() {
+        if (bitCount == 0) return;
+        ensure(1);
+        buffer.put((byte) bits);
+        bits = 0;
+        bitCount = 0;
+    }
+
+    public void writeIntList(int[] values) {
+        writeLength(values.length);
+        for (int value : values) writeInt(value);
+    }
+
+    public void writeDoubleList(double[] values) {
+        writeLength(values.length);
+        for (double value : values) writeDouble(value);
+    }
+
+    public void writeBooleanList(boolean[] values) {
+        writeLength(values.length);
+        for (boolean value : values) writeBit(value);
+        align();
+    }
+
+    public void writeStringList(String[] values) {
+        writeLength(values.length);
+        for (String value : values) writeString(value);
+    }
+
+    /**
+     * Get the written data
+     *
+     * @return A buffer containing everything written so far, ready to be read.
+     */
+    public ByteBuffer toBuffer() {
+        align();
+        ByteBuffer result = buffer.duplicate();
+        result.flip();
+        return result;
+    }
+}